@@ -0,0 +1,197 @@
+package com.timetracker.benchmarks;
+
+import com.timetracker.dao.TimeLogRollupDAO;
+import com.timetracker.exception.DatabaseException;
+import com.timetracker.util.DatabaseManager;
+import com.timetracker.util.HoursAggregator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Embedded H2 database seeded with a fixed number of time logs.
+ * Each size gets its own database file, which is reused across runs once seeded.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    public static final int USER_COUNT = 50;
+    public static final int PROJECT_COUNT = 20;
+    public static final int TASK_COUNT = 500;
+    public static final LocalDate FIRST_DAY = LocalDate.of(2023, 1, 1);
+    public static final int DAY_COUNT = 730;
+
+    // Rows written by benchmarks land after this date so they can be removed again on tear down
+    public static final LocalDate WRITE_DATE = LocalDate.of(2099, 1, 15);
+    private static final LocalDate WRITE_CUTOFF = LocalDate.of(2099, 1, 1);
+    private static final LocalDate WRITE_ROLLUP_CUTOFF = LocalDate.of(2098, 12, 1);
+
+    private static final long SEED = 42L;
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    // The DatabaseManager singleton binds to one URL per JVM, so each size needs its own fork
+    private static String activeUrl;
+
+    @Param({"1000", "100000", "1000000"})
+    public int timeLogCount;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, DatabaseException {
+        open("timetracker-" + timeLogCount);
+        seed();
+        HoursAggregator.getInstance().reseed();
+    }
+
+    /**
+     * Points DatabaseManager at the named database under bench.dataDir and migrates it
+     */
+    static void open(String name) throws SQLException {
+        Path dataDir = Paths.get(System.getProperty("bench.dataDir", "target/bench-data")).toAbsolutePath();
+        String url = "jdbc:h2:file:" + dataDir.resolve(name);
+        synchronized (BenchmarkDatabase.class) {
+            if (activeUrl != null && !activeUrl.equals(url)) {
+                throw new IllegalStateException("Benchmarks for different datasets must run in separate forks");
+            }
+            activeUrl = url;
+        }
+        System.setProperty("timetracker.db.url", url);
+        DatabaseManager.getInstance().initializeDatabase();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement logs = conn.prepareStatement("DELETE FROM time_logs WHERE date >= ?");
+             PreparedStatement rollups = conn.prepareStatement("DELETE FROM time_log_rollups WHERE period_start >= ?")) {
+            logs.setDate(1, Date.valueOf(WRITE_CUTOFF));
+            logs.executeUpdate();
+            rollups.setDate(1, Date.valueOf(WRITE_ROLLUP_CUTOFF));
+            rollups.executeUpdate();
+        }
+        DatabaseManager.getInstance().shutdown();
+    }
+
+    /**
+     * Picks a user ID from the seeded range (the sample data occupies the first IDs)
+     */
+    public int randomUserId(Random random) {
+        return 1 + random.nextInt(USER_COUNT);
+    }
+
+    public int randomTaskId(Random random) {
+        return 1 + random.nextInt(TASK_COUNT);
+    }
+
+    private void seed() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            int existing = count(conn, "SELECT COUNT(*) FROM time_logs");
+            if (existing >= timeLogCount) {
+                return;
+            }
+
+            System.out.println("Seeding " + (timeLogCount - existing) + " time logs...");
+            long started = System.nanoTime();
+            Random random = new Random(SEED);
+            conn.setAutoCommit(false);
+            try {
+                seedUsers(conn);
+                seedProjects(conn);
+                seedTasks(conn, random);
+                seedTimeLogs(conn, random, timeLogCount - existing);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            new TimeLogRollupDAO().backfill();
+            System.out.printf("Seeded in %.1f s%n", (System.nanoTime() - started) / 1e9);
+        }
+    }
+
+    static void seedUsers(Connection conn) throws SQLException {
+        int existing = count(conn, "SELECT COUNT(*) FROM users");
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO users (username, password, role, email, full_name) VALUES (?, 'bench', 'TEAM_MEMBER', ?, ?)")) {
+            for (int i = existing; i < USER_COUNT; i++) {
+                stmt.setString(1, "bench" + i);
+                stmt.setString(2, "bench" + i + "@timetracker.com");
+                stmt.setString(3, "Bench User " + i);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    static void seedProjects(Connection conn) throws SQLException {
+        int existing = count(conn, "SELECT COUNT(*) FROM projects");
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO projects (title, description, start_date, end_date, status) VALUES (?, ?, ?, ?, 'ACTIVE')")) {
+            for (int i = existing; i < PROJECT_COUNT; i++) {
+                stmt.setString(1, "Bench Project " + i);
+                stmt.setString(2, "Generated for benchmarks");
+                stmt.setDate(3, Date.valueOf(FIRST_DAY));
+                stmt.setDate(4, Date.valueOf(FIRST_DAY.plusDays(DAY_COUNT)));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private void seedTasks(Connection conn, Random random) throws SQLException {
+        int existing = count(conn, "SELECT COUNT(*) FROM tasks");
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO tasks (title, description, project_id, assigned_user_id, status, due_date, estimated_hours) "
+                    + "VALUES (?, ?, ?, ?, 'IN_PROGRESS', ?, ?)")) {
+            for (int i = existing; i < TASK_COUNT; i++) {
+                stmt.setString(1, "Bench Task " + i);
+                stmt.setString(2, "Generated for benchmarks");
+                stmt.setInt(3, 1 + random.nextInt(PROJECT_COUNT));
+                stmt.setInt(4, randomUserId(random));
+                stmt.setDate(5, Date.valueOf(FIRST_DAY.plusDays(random.nextInt(DAY_COUNT))));
+                stmt.setInt(6, 8 + random.nextInt(40));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private void seedTimeLogs(Connection conn, Random random, int rows) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO time_logs (task_id, user_id, date, hours_spent, description) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                stmt.setInt(1, randomTaskId(random));
+                stmt.setInt(2, randomUserId(random));
+                stmt.setDate(3, Date.valueOf(FIRST_DAY.plusDays(random.nextInt(DAY_COUNT))));
+                stmt.setDouble(4, 0.25 * (1 + random.nextInt(32)));
+                stmt.setString(5, "Benchmark work item " + i);
+                stmt.addBatch();
+                if ((i + 1) % INSERT_BATCH_SIZE == 0) {
+                    stmt.executeBatch();
+                    conn.commit();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    static int count(Connection conn, String query) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
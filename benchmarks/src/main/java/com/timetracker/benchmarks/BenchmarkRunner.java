@@ -0,0 +1,55 @@
+package com.timetracker.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Runs the benchmarks with JSON output and checks the results against the stored baseline.
+ * Accepts the usual JMH command line options, plus these system properties:
+ * bench.baseline (baseline/jmh-baseline.json), bench.tolerance (0.10) and
+ * bench.updateBaseline (false) to store the results as the new baseline.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Path resultFile = Paths.get(commandLine.getResult().orElse("target/jmh-result.json"));
+        Path baselineFile = Paths.get(System.getProperty("bench.baseline", "baseline/jmh-baseline.json"));
+        double tolerance = Double.parseDouble(System.getProperty("bench.tolerance", "0.10"));
+
+        Files.createDirectories(resultFile.toAbsolutePath().getParent());
+        Options options = new OptionsBuilder()
+            .parent(commandLine)
+            .resultFormat(ResultFormatType.JSON)
+            .result(resultFile.toString())
+            .build();
+        new Runner(options).run();
+
+        if (Boolean.getBoolean("bench.updateBaseline")) {
+            Files.createDirectories(baselineFile.toAbsolutePath().getParent());
+            Files.copy(resultFile, baselineFile, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline updated: " + baselineFile);
+            return;
+        }
+        if (!Files.exists(baselineFile)) {
+            System.out.println("No baseline at " + baselineFile + "; rerun with -Dbench.updateBaseline=true to store one");
+            return;
+        }
+
+        System.out.printf("Comparing against %s (tolerance %.0f%%)%n", baselineFile, tolerance * 100);
+        List<String> regressions = new RegressionCheck(tolerance).compare(resultFile, baselineFile);
+        if (!regressions.isEmpty()) {
+            System.out.println(regressions.size() + " benchmark(s) regressed");
+            System.exit(1);
+        }
+    }
+}
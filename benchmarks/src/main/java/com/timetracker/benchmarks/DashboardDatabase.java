@@ -0,0 +1,110 @@
+package com.timetracker.benchmarks;
+
+import com.timetracker.util.DatabaseManager;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Random;
+
+/**
+ * Embedded H2 database with dashboard-sized task lists: the benchmark users and
+ * projects, a fixed number of tasks and LOGS_PER_TASK time logs on each.
+ * Each size gets its own database file, which is reused across runs once seeded.
+ */
+@State(Scope.Benchmark)
+public class DashboardDatabase {
+
+    public static final int LOGS_PER_TASK = 10;
+
+    private static final long SEED = 7L;
+
+    @Param({"10000"})
+    public int taskCount;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.open("dashboard-" + taskCount);
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseManager.getInstance().shutdown();
+    }
+
+    /**
+     * Picks a user ID from the seeded range (the sample data occupies the first IDs)
+     */
+    public int randomUserId(Random random) {
+        return 1 + random.nextInt(BenchmarkDatabase.USER_COUNT);
+    }
+
+    private void seed() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            int existing = BenchmarkDatabase.count(conn, "SELECT COUNT(*) FROM tasks");
+            if (existing >= taskCount) {
+                return;
+            }
+
+            System.out.println("Seeding " + (taskCount - existing) + " tasks...");
+            long started = System.nanoTime();
+            int lastTaskId = BenchmarkDatabase.count(conn, "SELECT COALESCE(MAX(id), 0) FROM tasks");
+            conn.setAutoCommit(false);
+            try {
+                BenchmarkDatabase.seedUsers(conn);
+                BenchmarkDatabase.seedProjects(conn);
+                seedTasks(conn, new Random(SEED), taskCount - existing);
+                seedTimeLogs(conn, lastTaskId);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            System.out.printf("Seeded in %.1f s%n", (System.nanoTime() - started) / 1e9);
+        }
+    }
+
+    private void seedTasks(Connection conn, Random random, int rows) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO tasks (title, description, project_id, assigned_user_id, status, due_date, estimated_hours) "
+                    + "VALUES (?, ?, ?, ?, 'IN_PROGRESS', ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                stmt.setString(1, "Dashboard Task " + i);
+                stmt.setString(2, "Generated for benchmarks");
+                stmt.setInt(3, 1 + random.nextInt(BenchmarkDatabase.PROJECT_COUNT));
+                stmt.setInt(4, randomUserId(random));
+                stmt.setDate(5, Date.valueOf(BenchmarkDatabase.FIRST_DAY.plusDays(random.nextInt(BenchmarkDatabase.DAY_COUNT))));
+                stmt.setInt(6, 8 + random.nextInt(40));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Logs LOGS_PER_TASK entries by each new task's assignee, spread over the seeded days
+     */
+    private void seedTimeLogs(Connection conn, int lastTaskId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("""
+                INSERT INTO time_logs (task_id, user_id, date, hours_spent, description)
+                SELECT t.id, t.assigned_user_id, DATEADD(DAY, MOD(t.id * 31 + r.x * 7, ?), CAST(? AS DATE)),
+                       0.25 * (1 + MOD(t.id + r.x, 32)), 'Dashboard work item'
+                FROM tasks t, SYSTEM_RANGE(1, ?) r
+                WHERE t.id > ?
+                """)) {
+            stmt.setInt(1, BenchmarkDatabase.DAY_COUNT);
+            stmt.setDate(2, Date.valueOf(BenchmarkDatabase.FIRST_DAY));
+            stmt.setInt(3, LOGS_PER_TASK);
+            stmt.setInt(4, lastTaskId);
+            stmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.timetracker.benchmarks;
+
+import com.timetracker.dao.PageRequest;
+import com.timetracker.dao.TaskDAO;
+import com.timetracker.dao.TimeLogDAO;
+import com.timetracker.dao.TimeLogQuery;
+import com.timetracker.service.ExecutorStrategy;
+import com.timetracker.util.DatabaseManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Team member dashboards opening at the same time under each loader strategy.
+ * Every dashboard starts the loads TeamMemberDashboardController starts when it
+ * opens (its task table, the first page of its time logs and its total hours),
+ * run as AsyncDataLoader runs them: on the strategy's executor, behind a
+ * semaphore sized to the connection pool. A dashboard load ends when all of them
+ * have returned. AsyncDataLoader itself is not used because it hands results to
+ * the FX thread, which the benchmarks run without.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DashboardLoadBenchmark {
+
+    private static final int USER_SAMPLES = 1024;
+
+    @Param({"FIXED_POOL", "VIRTUAL_THREAD_PER_TASK"})
+    public ExecutorStrategy strategy;
+
+    @Param({"1", "2", "4"})
+    public int dashboards;
+
+    private final TaskDAO taskDAO = new TaskDAO();
+    private final TimeLogDAO timeLogDAO = new TimeLogDAO();
+
+    private ExecutorService executor;
+    private Semaphore databaseLimiter;
+    private int[] userIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(DashboardDatabase database) {
+        executor = strategy.createExecutor();
+        databaseLimiter = new Semaphore(DatabaseManager.getInstance().getConnectionPool().getMaxSize(), true);
+        Random random = new Random(5);
+        userIds = new int[USER_SAMPLES];
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = database.randomUserId(random);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public List<Object> openDashboards() throws Exception {
+        List<Future<?>> loads = new ArrayList<>(dashboards * 3);
+        for (int i = 0; i < dashboards; i++) {
+            int userId = userIds[next++ & (USER_SAMPLES - 1)];
+            loads.add(submit(() -> taskDAO.findTaskSummaries(userId)));
+            // The first page as PagedTableLoader requests it, one row over to see if there is more
+            loads.add(submit(() -> timeLogDAO.find(TimeLogQuery.all().forUser(userId)
+                .page(PageRequest.first(PageRequest.DEFAULT_PAGE_SIZE + 1)))));
+            loads.add(submit(() -> timeLogDAO.sumHours(TimeLogQuery.all().forUser(userId))));
+        }
+        List<Object> results = new ArrayList<>(loads.size());
+        for (Future<?> load : loads) {
+            results.add(load.get());
+        }
+        return results;
+    }
+
+    private Future<?> submit(Callable<?> load) {
+        return executor.submit(() -> {
+            databaseLimiter.acquire();
+            try {
+                return load.call();
+            } finally {
+                databaseLimiter.release();
+            }
+        });
+    }
+}
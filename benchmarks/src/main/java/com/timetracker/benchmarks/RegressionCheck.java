@@ -0,0 +1,100 @@
+package com.timetracker.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file against a stored baseline in the same format.
+ * A benchmark regresses when its score is worse than the baseline by more than the tolerance.
+ */
+public class RegressionCheck {
+
+    private final double tolerance;
+
+    public RegressionCheck(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @return Descriptions of every regressed benchmark; empty when none regressed
+     */
+    public List<String> compare(Path resultFile, Path baselineFile) throws IOException {
+        Map<String, Score> results = readScores(resultFile);
+        Map<String, Score> baseline = readScores(baselineFile);
+        List<String> regressions = new ArrayList<>();
+
+        for (Map.Entry<String, Score> entry : results.entrySet()) {
+            Score current = entry.getValue();
+            Score previous = baseline.get(entry.getKey());
+            if (previous == null) {
+                System.out.printf("  NEW        %s: %.3f %s%n", entry.getKey(), current.value, current.unit);
+                continue;
+            }
+
+            // Throughput modes are better when higher; time-based modes when lower
+            double change = current.higherIsBetter
+                ? (previous.value - current.value) / previous.value
+                : (current.value - previous.value) / previous.value;
+            String verdict = change > tolerance ? "REGRESSED" : change < -tolerance ? "IMPROVED" : "OK";
+            String line = String.format("%-10s %s: %.3f -> %.3f %s (%+.1f%%)",
+                verdict, entry.getKey(), previous.value, current.value, current.unit, change * 100);
+            System.out.println("  " + line);
+            if (change > tolerance) {
+                regressions.add(line);
+            }
+        }
+        return regressions;
+    }
+
+    private Map<String, Score> readScores(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            JsonArray runs = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : runs) {
+                JsonObject run = element.getAsJsonObject();
+                String mode = run.get("mode").getAsString();
+                JsonObject metric = run.getAsJsonObject("primaryMetric");
+                scores.put(key(run), new Score(metric.get("score").getAsDouble(),
+                    metric.get("scoreUnit").getAsString(), "thrpt".equals(mode)));
+            }
+        }
+        return scores;
+    }
+
+    private String key(JsonObject run) {
+        StringBuilder key = new StringBuilder(run.get("benchmark").getAsString());
+        key.append(" [").append(run.get("mode").getAsString());
+        if (run.has("params")) {
+            Map<String, String> params = new TreeMap<>();
+            for (Map.Entry<String, JsonElement> param : run.getAsJsonObject("params").entrySet()) {
+                params.put(param.getKey(), param.getValue().getAsString());
+            }
+            params.forEach((name, value) -> key.append(", ").append(name).append('=').append(value));
+        }
+        return key.append(']').toString();
+    }
+
+    private static final class Score {
+        private final double value;
+        private final String unit;
+        private final boolean higherIsBetter;
+
+        private Score(double value, String unit, boolean higherIsBetter) {
+            this.value = value;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+}
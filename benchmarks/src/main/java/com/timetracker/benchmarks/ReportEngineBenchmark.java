@@ -0,0 +1,75 @@
+package com.timetracker.benchmarks;
+
+import com.timetracker.analytics.Aggregation;
+import com.timetracker.analytics.GroupBy;
+import com.timetracker.analytics.ReportEngine;
+import com.timetracker.analytics.TimeLogFilter;
+import com.timetracker.analytics.TimeLogStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parallel report engine scaling from one worker up to the machine's cores.
+ * Compare scores across the parallelism values of one dataset size; values
+ * above the core count show the cost of oversubscription.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportEngineBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"ROWS", "DATES"})
+    public ReportEngine.Partitioning partitioning;
+
+    private ForkJoinPool pool;
+    private ReportEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) {
+        TimeLogStore.getInstance().load();
+        pool = new ForkJoinPool(parallelism);
+        engine = new ReportEngine(TimeLogStore.getInstance(), pool, partitioning);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Map<Integer, Double> projectHours() {
+        return engine.run(GroupBy.PROJECT, Aggregation.SUM, TimeLogFilter.all());
+    }
+
+    @Benchmark
+    public Map<Integer, Double> dailyAverageForOneYear() {
+        return engine.run(GroupBy.DAY, Aggregation.AVG,
+            TimeLogFilter.all().between(BenchmarkDatabase.FIRST_DAY, BenchmarkDatabase.FIRST_DAY.plusYears(1)));
+    }
+
+    @Benchmark
+    public Map<Integer, Double> userP95DailyHours() {
+        return engine.run(GroupBy.USER, Aggregation.P95_DAILY_HOURS, TimeLogFilter.all());
+    }
+}
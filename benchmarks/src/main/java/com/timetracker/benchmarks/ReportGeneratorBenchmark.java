@@ -0,0 +1,41 @@
+package com.timetracker.benchmarks;
+
+import com.timetracker.util.ReportGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Project hours report, served from the running totals and rebuilt from scratch
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ReportGeneratorBenchmark {
+
+    private final ReportGenerator reportGenerator = new ReportGenerator();
+
+    @Benchmark
+    public Map<Integer, Double> generateProjectHoursReport(BenchmarkDatabase database) {
+        return reportGenerator.generateProjectHoursReport();
+    }
+
+    @Benchmark
+    public Map<Integer, Double> generateProjectHoursReportCold(BenchmarkDatabase database) {
+        // clearCache reseeds the totals from the database, as after an external import
+        reportGenerator.clearCache();
+        return reportGenerator.generateProjectHoursReport();
+    }
+}
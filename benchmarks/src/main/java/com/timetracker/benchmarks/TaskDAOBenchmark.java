@@ -0,0 +1,59 @@
+package com.timetracker.benchmarks;
+
+import com.timetracker.dao.TaskDAO;
+import com.timetracker.model.Task;
+import com.timetracker.model.TaskSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Task list loading for the team member dashboard
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskDAOBenchmark {
+
+    private static final int USER_SAMPLES = 1024;
+
+    private final TaskDAO taskDAO = new TaskDAO();
+
+    // Users are drawn up front and cycled through, so no per-invocation setup is timed
+    private final int[] userIds = new int[USER_SAMPLES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void pickUsers(BenchmarkDatabase database) {
+        Random random = new Random(11);
+        for (int i = 0; i < USER_SAMPLES; i++) {
+            userIds[i] = database.randomUserId(random);
+        }
+    }
+
+    @Benchmark
+    public List<Task> getTasksByUserId() {
+        return taskDAO.getTasksByUserId(userIds[next++ & (USER_SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public List<TaskSummary> findTaskSummaries() {
+        // Tasks joined with project, assignee and logged hours in one query
+        return taskDAO.findTaskSummaries(userIds[next++ & (USER_SAMPLES - 1)]);
+    }
+}
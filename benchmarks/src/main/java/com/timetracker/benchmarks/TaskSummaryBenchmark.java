@@ -0,0 +1,105 @@
+package com.timetracker.benchmarks;
+
+import com.timetracker.dao.TaskDAO;
+import com.timetracker.dao.TimeLogDAO;
+import com.timetracker.model.Task;
+import com.timetracker.model.TaskSummary;
+import com.timetracker.util.DatabaseManager;
+import com.timetracker.util.QueryMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Project manager task table at dashboard scale, before and after the joined
+ * TaskSummary query. perTaskLookups replays the old load: the task list, then a
+ * project and an hours query per task (2N+1 round trips). findTaskSummaries reads
+ * the same table in one. The round trips of each load, counted by the query
+ * metrics, are printed when the trial starts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskSummaryBenchmark {
+
+    private final TaskDAO taskDAO = new TaskDAO();
+    private final TimeLogDAO timeLogDAO = new TimeLogDAO();
+
+    @Setup(Level.Trial)
+    public void countRoundTrips(DashboardDatabase database) throws Exception {
+        QueryMetrics metrics = DatabaseManager.getInstance().getQueryMetrics();
+        if (metrics == null) {
+            System.out.println("Query metrics are off; round trips not counted");
+            return;
+        }
+        System.out.printf("Round trips per load of %d tasks: perTaskLookups=%d, findTaskSummaries=%d%n",
+            database.taskCount, roundTrips(metrics, this::perTaskLookups), roundTrips(metrics, this::findTaskSummaries));
+    }
+
+    @Benchmark
+    public List<TaskSummary> perTaskLookups() throws SQLException {
+        List<Task> tasks = taskDAO.getAllTasks();
+        List<TaskSummary> summaries = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            TaskSummary summary = new TaskSummary();
+            summary.setId(task.getId());
+            summary.setTitle(task.getTitle());
+            summary.setProjectTitle(projectTitle(task.getProjectId()));
+            summary.setActualHours(timeLogDAO.getTotalHoursByTaskId(task.getId()));
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+
+    @Benchmark
+    public List<TaskSummary> findTaskSummaries() {
+        return taskDAO.findTaskSummaries(null);
+    }
+
+    /**
+     * ProjectDAO.getProjectById as the dashboards called it, before it was cached
+     */
+    private static String projectTitle(int projectId) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM projects WHERE id = ?")) {
+            stmt.setInt(1, projectId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString("title") : null;
+            }
+        }
+    }
+
+    private static long roundTrips(QueryMetrics metrics, Callable<?> load) throws Exception {
+        long before = executions(metrics);
+        load.call();
+        return executions(metrics) - before;
+    }
+
+    private static long executions(QueryMetrics metrics) {
+        long executions = 0;
+        for (QueryMetrics.QueryStats stats : metrics.getStats()) {
+            executions += stats.getExecutions();
+        }
+        return executions;
+    }
+}
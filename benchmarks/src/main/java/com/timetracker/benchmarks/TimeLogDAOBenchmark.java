@@ -0,0 +1,71 @@
+package com.timetracker.benchmarks;
+
+import com.timetracker.dao.TimeLogDAO;
+import com.timetracker.model.TimeLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time log writes and the read paths used by the dashboards and reports
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TimeLogDAOBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final TimeLogDAO timeLogDAO = new TimeLogDAO();
+
+    // Arguments are drawn up front and cycled through, so no per-invocation setup is timed
+    private final int[] taskIds = new int[SAMPLES];
+    private final int[] userIds = new int[SAMPLES];
+    private final LocalDate[] rangeStarts = new LocalDate[SAMPLES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void pickArguments(BenchmarkDatabase database) {
+        Random random = new Random(7);
+        for (int i = 0; i < SAMPLES; i++) {
+            taskIds[i] = database.randomTaskId(random);
+            userIds[i] = database.randomUserId(random);
+            rangeStarts[i] = BenchmarkDatabase.FIRST_DAY.plusDays(random.nextInt(BenchmarkDatabase.DAY_COUNT - 31));
+        }
+    }
+
+    @Benchmark
+    public boolean createTimeLog() {
+        int sample = next++ & (SAMPLES - 1);
+        TimeLog log = new TimeLog(taskIds[sample], userIds[sample], BenchmarkDatabase.WRITE_DATE, 1.5, "Benchmark write");
+        return timeLogDAO.createTimeLog(log);
+    }
+
+    @Benchmark
+    public List<TimeLog> getTimeLogsByDateRange() {
+        // A month of logs, as shown by the member and admin date filters
+        LocalDate rangeStart = rangeStarts[next++ & (SAMPLES - 1)];
+        return timeLogDAO.getTimeLogsByDateRange(rangeStart, rangeStart.plusDays(30));
+    }
+
+    @Benchmark
+    public double getTotalHoursByTaskId() {
+        return timeLogDAO.getTotalHoursByTaskId(taskIds[next++ & (SAMPLES - 1)]);
+    }
+}
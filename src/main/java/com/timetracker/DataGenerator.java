@@ -0,0 +1,362 @@
+package com.timetracker;
+
+import com.timetracker.dao.TimeLogRollupDAO;
+import com.timetracker.util.DatabaseManager;
+
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command line generator for production-sized datasets, for load and performance testing.
+ *
+ * Usage: DataGenerator [--users=10000] [--projects=2000] [--tasks=200000] [--time-logs=50000000]
+ *                      [--seed=42] [--threads=N] [--batch-size=5000] [--start=2022-01-01] [--days=1095]
+ *
+ * The same seed and sizes always produce the same rows, whatever the thread count (with more than one
+ * thread only the order they are inserted in, and so their IDs, varies). Activity is skewed (a few users and
+ * projects account for most of the logged hours) and seasonal (quiet weekends, summer and holidays).
+ * Rows are appended to the database configured through -Dtimetracker.db.url.
+ */
+public class DataGenerator {
+
+    private static final String[] ACTIVITIES = {
+        "Implemented", "Reviewed", "Tested", "Refactored", "Documented", "Debugged", "Designed", "Deployed"
+    };
+    private static final String[] SUBJECTS = {
+        "login flow", "report export", "database schema", "REST endpoints", "dashboard charts",
+        "payment module", "search page", "notification service", "user settings", "build pipeline"
+    };
+    // Relative activity per month, January first
+    private static final double[] MONTH_FACTORS = {1.0, 1.0, 1.05, 1.0, 0.95, 0.9, 0.7, 0.65, 1.0, 1.05, 1.0, 0.6};
+    private static final double WEEKEND_FACTOR = 0.08;
+    // Time logs are generated in blocks of this many rows, each from a seed of its own, so the rows
+    // depend only on the seed and count and not on how many threads share out the blocks
+    private static final int TIME_LOG_BLOCK_ROWS = 10_000;
+
+    private final int userCount;
+    private final int projectCount;
+    private final int taskCount;
+    private final long timeLogCount;
+    private final long seed;
+    private final int threads;
+    private final int batchSize;
+    private final LocalDate startDate;
+    private final int days;
+
+    private final AtomicLong insertedRows = new AtomicLong();
+
+    public DataGenerator(Map<String, String> options) {
+        this.userCount = Integer.parseInt(options.getOrDefault("users", "10000"));
+        this.projectCount = Integer.parseInt(options.getOrDefault("projects", "2000"));
+        this.taskCount = Integer.parseInt(options.getOrDefault("tasks", "200000"));
+        this.timeLogCount = Long.parseLong(options.getOrDefault("time-logs", "50000000"));
+        this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        // Leave one pooled connection free for progress queries and the final backfill
+        int defaultThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+            DatabaseManager.getInstance().getConnectionPool().getMaxSize() - 1));
+        this.threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(defaultThreads)));
+        this.batchSize = Integer.parseInt(options.getOrDefault("batch-size", "5000"));
+        this.startDate = LocalDate.parse(options.getOrDefault("start", "2022-01-01"));
+        this.days = Integer.parseInt(options.getOrDefault("days", "1095"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Unrecognised argument: " + arg);
+                System.err.println("Usage: DataGenerator [--users=N] [--projects=N] [--tasks=N] [--time-logs=N] "
+                    + "[--seed=N] [--threads=N] [--batch-size=N] [--start=yyyy-MM-dd] [--days=N]");
+                System.exit(2);
+            }
+            int split = arg.indexOf('=');
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+
+        DatabaseManager.getInstance().initializeDatabase();
+        try {
+            new DataGenerator(options).generate();
+        } finally {
+            DatabaseManager.getInstance().shutdown();
+        }
+    }
+
+    public void generate() throws Exception {
+        long started = System.nanoTime();
+        Random random = new Random(seed);
+
+        int firstUserId = generateUsers();
+        int firstProjectId = generateProjects(random);
+        // Weighted pickers: a small share of users and projects carry most of the activity
+        double[] userWeights = zipfWeights(userCount, 1.1, random);
+        double[] projectWeights = zipfWeights(projectCount, 0.9, random);
+        int firstTaskId = generateTasks(random, firstUserId, firstProjectId, userWeights, projectWeights);
+        int[][] tasksByUser = tasksByUser(firstUserId, firstTaskId);
+        generateTimeLogs(firstUserId, firstTaskId, userWeights, tasksByUser);
+
+        long backfillStarted = System.nanoTime();
+        System.out.println("Rebuilding time log rollups...");
+        new TimeLogRollupDAO().backfill();
+        System.out.printf("Rollups rebuilt in %.1f s%n", seconds(backfillStarted));
+        System.out.printf("Done in %.1f s%n", seconds(started));
+    }
+
+    private int generateUsers() throws SQLException {
+        String sql = "INSERT INTO users (username, password, role, email, full_name) VALUES (?, ?, ?, ?, ?)";
+        return insertSequential("users", userCount, sql, (stmt, i) -> {
+            // Roughly 1% admins and 5% project managers
+            String role = i % 100 == 0 ? "ADMIN" : i % 20 == 0 ? "PROJECT_MANAGER" : "TEAM_MEMBER";
+            stmt.setString(1, "gen" + seed + "_user" + i);
+            stmt.setString(2, "password");
+            stmt.setString(3, role);
+            stmt.setString(4, "user" + i + "@example.com");
+            stmt.setString(5, "Generated User " + i);
+        });
+    }
+
+    private int generateProjects(Random random) throws SQLException {
+        String sql = "INSERT INTO projects (title, description, start_date, end_date, status) VALUES (?, ?, ?, ?, ?)";
+        return insertSequential("projects", projectCount, sql, (stmt, i) -> {
+            LocalDate start = startDate.plusDays(random.nextInt(Math.max(1, days / 2)));
+            LocalDate end = start.plusDays(60 + random.nextInt(Math.max(1, days / 2)));
+            stmt.setString(1, "Project " + i);
+            stmt.setString(2, "Generated project " + i);
+            stmt.setDate(3, Date.valueOf(start));
+            stmt.setDate(4, Date.valueOf(end));
+            stmt.setString(5, end.isBefore(startDate.plusDays(days)) ? "COMPLETED" : "ACTIVE");
+        });
+    }
+
+    private int generateTasks(Random random, int firstUserId, int firstProjectId,
+                              double[] userWeights, double[] projectWeights) throws SQLException {
+        String[] statuses = {"TODO", "IN_PROGRESS", "COMPLETED", "COMPLETED"};
+        String sql = "INSERT INTO tasks (title, description, project_id, assigned_user_id, status, due_date, estimated_hours) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        return insertSequential("tasks", taskCount, sql, (stmt, i) -> {
+            stmt.setString(1, SUBJECTS[random.nextInt(SUBJECTS.length)] + " #" + i);
+            stmt.setString(2, "Generated task " + i);
+            stmt.setInt(3, firstProjectId + pick(projectWeights, random));
+            stmt.setInt(4, firstUserId + pick(userWeights, random));
+            stmt.setString(5, statuses[random.nextInt(statuses.length)]);
+            stmt.setDate(6, Date.valueOf(startDate.plusDays(random.nextInt(days))));
+            stmt.setInt(7, 4 + random.nextInt(60));
+        });
+    }
+
+    /**
+     * Inserts rows on one connection in batches so that their IDs are consecutive
+     * @return ID of the first inserted row
+     */
+    private int insertSequential(String table, int rows, String sql, RowBinder binder) throws SQLException {
+        long started = System.nanoTime();
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < rows; i++) {
+                    binder.bind(stmt, i);
+                    stmt.addBatch();
+                    if ((i + 1) % batchSize == 0) {
+                        stmt.executeBatch();
+                        conn.commit();
+                    }
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            report(table, rows, started);
+            // Identity values are consecutive for a single inserter, even if earlier rows were deleted
+            return maxId(conn, table) - rows + 1;
+        }
+    }
+
+    private int[][] tasksByUser(int firstUserId, int firstTaskId) throws SQLException {
+        List<List<Integer>> tasks = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            tasks.add(new ArrayList<>());
+        }
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT id, assigned_user_id FROM tasks WHERE id >= ? ORDER BY id")) {
+            stmt.setInt(1, firstTaskId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    tasks.get(rs.getInt("assigned_user_id") - firstUserId).add(rs.getInt("id"));
+                }
+            }
+        }
+
+        int[][] result = new int[userCount][];
+        for (int i = 0; i < userCount; i++) {
+            result[i] = tasks.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
+
+    private void generateTimeLogs(int firstUserId, int firstTaskId, double[] userWeights, int[][] tasksByUser)
+            throws Exception {
+        long started = System.nanoTime();
+        insertedRows.set(0);
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+        progress.scheduleAtFixedRate(() -> System.out.printf("  time_logs: %,d / %,d (%,.0f rows/s)%n",
+            insertedRows.get(), timeLogCount, insertedRows.get() / seconds(started)), 5, 5, TimeUnit.SECONDS);
+
+        AtomicLong nextBlock = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> shards = new ArrayList<>();
+            for (int shard = 0; shard < threads; shard++) {
+                shards.add(workers.submit(() -> {
+                    insertTimeLogs(nextBlock, firstUserId, firstTaskId, userWeights, tasksByUser);
+                    return null;
+                }));
+            }
+            for (Future<?> shard : shards) {
+                shard.get();
+            }
+        } finally {
+            workers.shutdownNow();
+            progress.shutdownNow();
+        }
+        report("time_logs", timeLogCount, started);
+    }
+
+    /**
+     * Inserts blocks of time logs until none are left
+     * @param nextBlock Index of the next block no thread has taken yet
+     */
+    private void insertTimeLogs(AtomicLong nextBlock, int firstUserId, int firstTaskId,
+                                double[] userWeights, int[][] tasksByUser) throws SQLException {
+        String sql = "INSERT INTO time_logs (task_id, user_id, date, hours_spent, description) VALUES (?, ?, ?, ?, ?)";
+        double maxDayFactor = Arrays.stream(MONTH_FACTORS).max().orElse(1.0);
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            int pending = 0;
+            for (long block = nextBlock.getAndIncrement(); block * TIME_LOG_BLOCK_ROWS < timeLogCount;
+                 block = nextBlock.getAndIncrement()) {
+                Random random = new Random(seed * 0x9E3779B97F4A7C15L + block);
+                long rows = Math.min(TIME_LOG_BLOCK_ROWS, timeLogCount - block * TIME_LOG_BLOCK_ROWS);
+                for (long i = 0; i < rows; i++) {
+                    int user = pick(userWeights, random);
+                    int[] ownTasks = tasksByUser[user];
+                    // Most hours go to the user's own tasks; the rest (and users without tasks) help elsewhere
+                    int taskId = ownTasks.length > 0 && random.nextInt(10) < 9
+                        ? ownTasks[random.nextInt(ownTasks.length)]
+                        : firstTaskId + random.nextInt(taskCount);
+
+                    stmt.setInt(1, taskId);
+                    stmt.setInt(2, firstUserId + user);
+                    stmt.setDate(3, Date.valueOf(seasonalDate(random, maxDayFactor)));
+                    stmt.setDouble(4, hours(random));
+                    stmt.setString(5, ACTIVITIES[random.nextInt(ACTIVITIES.length)] + " "
+                        + SUBJECTS[random.nextInt(SUBJECTS.length)]);
+                    stmt.addBatch();
+
+                    if (++pending == batchSize) {
+                        stmt.executeBatch();
+                        conn.commit();
+                        insertedRows.addAndGet(pending);
+                        pending = 0;
+                    }
+                }
+            }
+            stmt.executeBatch();
+            conn.commit();
+            insertedRows.addAndGet(pending);
+        }
+    }
+
+    /**
+     * Samples a date by rejection so that weekends, summer and December see less activity
+     */
+    private LocalDate seasonalDate(Random random, double maxDayFactor) {
+        while (true) {
+            LocalDate date = startDate.plusDays(random.nextInt(days));
+            double factor = MONTH_FACTORS[date.getMonthValue() - 1];
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                factor *= WEEKEND_FACTOR;
+            }
+            if (random.nextDouble() * maxDayFactor < factor) {
+                return date;
+            }
+        }
+    }
+
+    /**
+     * Quarter-hour entries clustered around two to four hours, never above a working day
+     */
+    private double hours(Random random) {
+        double hours = 3.0 + random.nextGaussian() * 1.75;
+        return Math.min(8.0, Math.max(0.25, Math.round(hours * 4) / 4.0));
+    }
+
+    /**
+     * Cumulative Zipf weights over a shuffled ranking, so the busiest IDs are spread out
+     */
+    private static double[] zipfWeights(int count, double exponent, Random random) {
+        int[] ranks = new int[count];
+        for (int i = 0; i < count; i++) {
+            ranks[i] = i + 1;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = ranks[i];
+            ranks[i] = ranks[j];
+            ranks[j] = swap;
+        }
+
+        double[] cumulative = new double[count];
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += 1.0 / Math.pow(ranks[i], exponent);
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < count; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulativeWeights, Random random) {
+        int index = Arrays.binarySearch(cumulativeWeights, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulativeWeights.length - 1);
+    }
+
+    private static int maxId(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void report(String table, long rows, long startedNanos) {
+        double elapsed = seconds(startedNanos);
+        System.out.printf("%s: %,d rows in %.1f s (%,.0f rows/s)%n", table, rows, elapsed, rows / Math.max(elapsed, 1e-9));
+    }
+
+    private static double seconds(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1e9;
+    }
+
+    @FunctionalInterface
+    private interface RowBinder {
+        void bind(PreparedStatement stmt, int index) throws SQLException;
+    }
+}
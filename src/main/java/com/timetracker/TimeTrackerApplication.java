@@ -1,6 +1,12 @@
 package com.timetracker;
 
+import com.timetracker.exception.DatabaseException;
+import com.timetracker.search.SearchIndex;
+import com.timetracker.service.TimeLogIngestionQueue;
 import com.timetracker.util.DatabaseManager;
+import com.timetracker.util.FlightRecording;
+import com.timetracker.util.FxThreadWatchdog;
+import com.timetracker.util.HoursAggregator;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -9,10 +15,27 @@ import javafx.stage.Stage;
 
 public class TimeTrackerApplication extends Application {
 
+    private FxThreadWatchdog watchdog;
+    private final FlightRecording flightRecording = new FlightRecording();
+
     @Override
     public void start(Stage primaryStage) throws Exception {
+        flightRecording.startIfRequested();
+
+        // Log any pulse where the UI thread is blocked for more than 50 ms
+        watchdog = new FxThreadWatchdog(FxThreadWatchdog.DEFAULT_THRESHOLD_MS);
+        watchdog.start();
+
         // Initialize database
         DatabaseManager.getInstance().initializeDatabase();
+        HoursAggregator.getInstance().seedInBackground();
+        SearchIndex.getInstance().openInBackground();
+        try {
+            // Without the queue, time logs are written synchronously
+            TimeLogIngestionQueue.getInstance().start();
+        } catch (DatabaseException e) {
+            e.printStackTrace();
+        }
         
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/login.fxml"));
         Scene scene = new Scene(loader.load(), 800, 600);
@@ -37,6 +60,18 @@ public class TimeTrackerApplication extends Application {
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        if (watchdog != null) {
+            watchdog.stop();
+        }
+        // Commits queued time logs before the search index and pool go away
+        TimeLogIngestionQueue.getInstance().shutdown();
+        SearchIndex.getInstance().save();
+        DatabaseManager.getInstance().shutdown();
+        flightRecording.stop();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,54 @@
+package com.timetracker.analytics;
+
+/**
+ * Turns a report group's merged statistics into its value
+ */
+@FunctionalInterface
+public interface Aggregation {
+
+    /** Total hours */
+    Aggregation SUM = GroupStats::getHours;
+
+    /** Number of time logs */
+    Aggregation COUNT = stats -> stats.getCount();
+
+    /** Average hours per time log */
+    Aggregation AVG = stats -> stats.getCount() == 0 ? 0.0 : stats.getHours() / stats.getCount();
+
+    /** 95th percentile of the hours logged per day */
+    Aggregation P95_DAILY_HOURS = percentileOfDailyHours(95);
+
+    double compute(GroupStats stats);
+
+    /**
+     * @return Whether the engine must keep per-day totals for each group, which costs memory per (group, day)
+     */
+    default boolean needsDailyTotals() {
+        return false;
+    }
+
+    /**
+     * @param percentile Between 0 and 100; nearest-rank over the days the group logged time on
+     */
+    static Aggregation percentileOfDailyHours(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        return new Aggregation() {
+            @Override
+            public double compute(GroupStats stats) {
+                double[] daily = stats.getSortedDailyHours();
+                if (daily.length == 0) {
+                    return 0.0;
+                }
+                int rank = (int) Math.ceil(percentile / 100.0 * daily.length);
+                return daily[Math.max(rank, 1) - 1];
+            }
+
+            @Override
+            public boolean needsDailyTotals() {
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.timetracker.analytics;
+
+/**
+ * Report grouping; each row falls into the group given by one of its columns
+ */
+public enum GroupBy {
+    PROJECT,
+    USER,
+    TASK,
+    /** Keyed by epoch day */
+    DAY;
+
+    int key(TimeLogColumns columns, int row) {
+        switch (this) {
+            case PROJECT:
+                return columns.projectId(row);
+            case USER:
+                return columns.userId(row);
+            case TASK:
+                return columns.taskId(row);
+            default:
+                return columns.epochDay(row);
+        }
+    }
+}
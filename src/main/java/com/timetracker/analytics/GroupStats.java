@@ -0,0 +1,39 @@
+package com.timetracker.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Everything known about one report group once all partitions are merged
+ */
+public final class GroupStats {
+
+    private final long hundredths;
+    private final long count;
+    private final long[] dailyHundredths;
+    private final int dailyFrom;
+    private final int dailyTo;
+
+    GroupStats(long hundredths, long count, long[] dailyHundredths, int dailyFrom, int dailyTo) {
+        this.hundredths = hundredths;
+        this.count = count;
+        this.dailyHundredths = dailyHundredths;
+        this.dailyFrom = dailyFrom;
+        this.dailyTo = dailyTo;
+    }
+
+    public double getHours() {
+        return hundredths / 100.0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Hours per day the group logged time on, in ascending order;
+     *         empty unless the aggregation asked for daily totals
+     */
+    public double[] getSortedDailyHours() {
+        return Arrays.stream(dailyHundredths, dailyFrom, dailyTo).mapToDouble(value -> value / 100.0).toArray();
+    }
+}
@@ -0,0 +1,113 @@
+package com.timetracker.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from a long key to a (sum, count) pair, so
+ * per-partition aggregation allocates nothing per row. Not thread-safe;
+ * each fork/join leaf fills its own and the results are merged.
+ */
+final class LongKeyTotals {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] sums;
+    private long[] counts;
+    private int size;
+    private int shift;
+
+    /**
+     * Receives one entry along with its slot, which stays valid until the next add
+     */
+    @FunctionalInterface
+    interface EntryVisitor {
+        void visit(int slot, long key, long sum, long count);
+    }
+
+    LongKeyTotals() {
+        allocate(64);
+    }
+
+    void add(long key, long sum, long count) {
+        int slot = findSlot(key);
+        if (keys[slot] == EMPTY) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = findSlot(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        sums[slot] += sum;
+        counts[slot] += count;
+    }
+
+    void merge(LongKeyTotals other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != EMPTY) {
+                add(other.keys[slot], other.sums[slot], other.counts[slot]);
+            }
+        }
+    }
+
+    /**
+     * @return Slot of the key, or -1 when absent
+     */
+    int slotOf(long key) {
+        int slot = findSlot(key);
+        return keys[slot] == EMPTY ? -1 : slot;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return Upper bound (exclusive) of slot numbers
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    void forEach(EntryVisitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                visitor.visit(slot, keys[slot], sums[slot], counts[slot]);
+            }
+        }
+    }
+
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        // Fibonacci hashing spreads sequential IDs and epoch days across the table
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldSums = sums;
+        long[] oldCounts = counts;
+        allocate(oldKeys.length * 2);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                int newSlot = findSlot(oldKeys[slot]);
+                keys[newSlot] = oldKeys[slot];
+                sums[newSlot] = oldSums[slot];
+                counts[newSlot] = oldCounts[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        Arrays.fill(keys, EMPTY);
+        sums = new long[capacity];
+        counts = new long[capacity];
+    }
+}
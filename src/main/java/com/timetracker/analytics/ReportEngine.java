@@ -0,0 +1,234 @@
+package com.timetracker.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel group-by over a {@link TimeLogStore} snapshot.
+ *
+ * The time log space is split into partitions that are aggregated on a
+ * ForkJoinPool, each into its own primitive hash map of partial sums, and the
+ * partials are merged as the fork/join tree unwinds. Nothing is locked: the
+ * snapshot is immutable and writers keep appending to the store meanwhile.
+ */
+public class ReportEngine {
+
+    /**
+     * How the time log space is split between workers
+     */
+    public enum Partitioning {
+        /** Contiguous runs of rows; each worker reads disjoint memory. The default. */
+        ROWS,
+        /** Date ranges; day zone maps let each worker skip blocks outside its range */
+        DATES,
+        /** Task ID ranges; each worker scans the task column in full */
+        TASKS
+    }
+
+    // Rows per leaf when partitioning by rows: large enough to amortize the fork, small enough to balance
+    static final int ROWS_PER_PARTITION = 32 * TimeLogColumns.BLOCK_SIZE;
+    // Leaves per worker when partitioning by value range, whose row counts are unknown up front
+    private static final int RANGE_PARTITIONS_PER_WORKER = 4;
+
+    private final TimeLogStore store;
+    private final ForkJoinPool pool;
+    private final Partitioning partitioning;
+
+    public ReportEngine() {
+        this(TimeLogStore.getInstance(), ForkJoinPool.commonPool(), Partitioning.ROWS);
+    }
+
+    public ReportEngine(TimeLogStore store, ForkJoinPool pool, Partitioning partitioning) {
+        this.store = store;
+        this.pool = pool;
+        this.partitioning = partitioning;
+    }
+
+    /**
+     * @return Aggregated value per group (project, user or task ID, or epoch day)
+     */
+    public Map<Integer, Double> run(GroupBy groupBy, Aggregation aggregation, TimeLogFilter filter) {
+        TimeLogColumns columns = store.snapshot();
+        boolean daily = aggregation.needsDailyTotals();
+
+        PartitionTask root;
+        switch (partitioning) {
+            case DATES: {
+                int fromDay = Math.max(filter.minDay, columns.minEpochDay());
+                int toDay = Math.min(filter.maxDay, columns.maxEpochDay());
+                root = new PartitionTask(columns, groupBy, daily, filter, fromDay, toDay, rangeLeaves());
+                break;
+            }
+            case TASKS: {
+                int fromTask = filter.taskFiltered ? Math.max(filter.minTask, 0) : 0;
+                int toTask = filter.taskFiltered ? Math.min(filter.maxTask, columns.maxTaskId()) : columns.maxTaskId();
+                root = new PartitionTask(columns, groupBy, daily, filter, fromTask, toTask, rangeLeaves());
+                break;
+            }
+            default:
+                int leaves = Math.max(1, (columns.size() + ROWS_PER_PARTITION - 1) / ROWS_PER_PARTITION);
+                root = new PartitionTask(columns, groupBy, daily, filter, 0, columns.size(), leaves);
+        }
+        return finish(pool.invoke(root), aggregation);
+    }
+
+    public Partitioning getPartitioning() {
+        return partitioning;
+    }
+
+    private int rangeLeaves() {
+        return pool.getParallelism() * RANGE_PARTITIONS_PER_WORKER;
+    }
+
+    /**
+     * Applies the aggregation to every merged group
+     */
+    private static Map<Integer, Double> finish(Partial partial, Aggregation aggregation) {
+        LongKeyTotals groups = partial.groups;
+        Map<Integer, Double> report = new HashMap<>(groups.size() * 2);
+
+        if (partial.daily == null) {
+            groups.forEach((slot, key, sum, count) ->
+                report.put((int) key, aggregation.compute(new GroupStats(sum, count, new long[0], 0, 0))));
+            return report;
+        }
+
+        // Lay the per-day totals out contiguously per group (counting sort on the group's slot)
+        int[] offsets = new int[groups.capacity() + 1];
+        partial.daily.forEach((slot, key, sum, count) -> offsets[groups.slotOf(groupOf(key)) + 1]++);
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        long[] dailyHundredths = new long[partial.daily.size()];
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        partial.daily.forEach((slot, key, sum, count) -> dailyHundredths[next[groups.slotOf(groupOf(key))]++] = sum);
+
+        groups.forEach((slot, key, sum, count) -> {
+            Arrays.sort(dailyHundredths, offsets[slot], offsets[slot + 1]);
+            GroupStats stats = new GroupStats(sum, count, dailyHundredths, offsets[slot], offsets[slot + 1]);
+            report.put((int) key, aggregation.compute(stats));
+        });
+        return report;
+    }
+
+    private static long dailyKey(int group, int epochDay) {
+        return ((long) group << 32) | (epochDay & 0xFFFFFFFFL);
+    }
+
+    private static long groupOf(long dailyKey) {
+        return (int) (dailyKey >> 32);
+    }
+
+    /**
+     * Partial sums of one partition
+     */
+    private static final class Partial {
+        private final LongKeyTotals groups = new LongKeyTotals();
+        // (group, day) -> hours, only when the aggregation needs daily totals
+        private final LongKeyTotals daily;
+
+        private Partial(boolean withDaily) {
+            daily = withDaily ? new LongKeyTotals() : null;
+        }
+
+        private Partial merge(Partial other) {
+            // Fold the smaller map into the larger one
+            if (other.groups.size() > groups.size()) {
+                return other.merge(this);
+            }
+            groups.merge(other.groups);
+            if (daily != null) {
+                daily.merge(other.daily);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Splits [from, to] in halves until one leaf is left, then aggregates that partition.
+     * The range is rows (end exclusive) for ROWS and days or task IDs (end inclusive) otherwise.
+     */
+    private final class PartitionTask extends RecursiveTask<Partial> {
+        private final TimeLogColumns columns;
+        private final GroupBy groupBy;
+        private final boolean daily;
+        private final TimeLogFilter filter;
+        private final int from;
+        private final int to;
+        private final int leaves;
+
+        private PartitionTask(TimeLogColumns columns, GroupBy groupBy, boolean daily, TimeLogFilter filter,
+                              int from, int to, int leaves) {
+            this.columns = columns;
+            this.groupBy = groupBy;
+            this.daily = daily;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+            this.leaves = leaves;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (leaves <= 1 || to - from < 2) {
+                return aggregate();
+            }
+            int leftLeaves = leaves / 2;
+            int mid = from + (int) ((long) (to - from) * leftLeaves / leaves);
+            if (partitioning == Partitioning.ROWS) {
+                // Keep row partitions on block boundaries so no block is masked twice
+                int block = TimeLogColumns.BLOCK_SIZE;
+                mid = (mid + block / 2) / block * block;
+                if (mid <= from || mid >= to) {
+                    return aggregate();
+                }
+            }
+            int rightFrom = partitioning == Partitioning.ROWS ? mid : mid + 1;
+            PartitionTask left = new PartitionTask(columns, groupBy, daily, filter, from, mid, leftLeaves);
+            PartitionTask right = new PartitionTask(columns, groupBy, daily, filter, rightFrom, to, leaves - leftLeaves);
+            left.fork();
+            Partial rightPartial = right.compute();
+            return left.join().merge(rightPartial);
+        }
+
+        private Partial aggregate() {
+            Partial partial = new Partial(daily);
+            switch (partitioning) {
+                case DATES:
+                    if (from <= to) {
+                        aggregate(partial, filter.withinDays(from, to), 0, columns.size());
+                    }
+                    break;
+                case TASKS:
+                    if (from <= to) {
+                        aggregate(partial, filter.withinTasks(from, to), 0, columns.size());
+                    }
+                    break;
+                default:
+                    aggregate(partial, filter, from, to);
+            }
+            return partial;
+        }
+
+        private void aggregate(Partial partial, TimeLogFilter partitionFilter, int fromRow, int toRow) {
+            LongKeyTotals groups = partial.groups;
+            LongKeyTotals dailyTotals = partial.daily;
+            columns.scan(partitionFilter, fromRow, toRow, (firstRow, length, mask) -> {
+                for (int j = 0; j < length; j++) {
+                    if (mask[j] != 0) {
+                        int row = firstRow + j;
+                        int group = groupBy.key(columns, row);
+                        int hundredths = columns.hundredths(row);
+                        groups.add(group, hundredths, 1);
+                        if (dailyTotals != null) {
+                            dailyTotals.add(dailyKey(group, columns.epochDay(row)), hundredths, 1);
+                        }
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.timetracker.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoding for repetitive text columns: each distinct string is stored
+ * once and rows hold its int code. Code 0 is null. Writers must be serialized by
+ * the caller; readers only look up codes that were published to them.
+ */
+final class StringDictionary {
+
+    static final int NULL_CODE = 0;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private volatile String[] values = new String[16];
+    private int size = 1;
+
+    int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = value;
+        values = current;
+        codes.put(value, size);
+        return size++;
+    }
+
+    String decode(int code) {
+        return values[code];
+    }
+
+    int size() {
+        return size - 1;
+    }
+
+    /**
+     * @return Rough heap size of the distinct strings and the lookup map
+     */
+    long estimateBytes() {
+        long bytes = (long) values.length * 4;
+        for (int i = 1; i < size; i++) {
+            // String header + byte[] (Latin-1) + map entry
+            bytes += 40 + values[i].length() + 48;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,204 @@
+package com.timetracker.analytics;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * A consistent view of the first {@link #size()} rows of the time log store.
+ * Rows are in insertion order; a row replaced by an update keeps its slot but
+ * never matches a filter again.
+ *
+ * Scans work on blocks of {@link #BLOCK_SIZE} rows. Each block keeps its lowest
+ * and highest day, so date-range scans skip blocks that cannot match (rows
+ * arrive roughly in date order). Inside a block, every filtered column is
+ * folded into an int mask (-1 = match) by a branch-free loop that the JIT
+ * compiles to SIMD code, and only the columns the filter uses are read.
+ */
+public final class TimeLogColumns {
+
+    public static final int BLOCK_SIZE = 2048;
+
+    private final int size;
+    private final int[] taskIds;
+    private final int[] userIds;
+    private final int[] projectIds;
+    private final int[] days;
+    private final int[] hundredths;
+    private final int[] descriptions;
+    private final int[] blockMinDays;
+    private final int[] blockMaxDays;
+    private final boolean hasReplacedRows;
+    private final int maxTaskId;
+    private final StringDictionary dictionary;
+
+    TimeLogColumns(int size, int[] taskIds, int[] userIds, int[] projectIds, int[] days, int[] hundredths,
+                   int[] descriptions, int[] blockMinDays, int[] blockMaxDays, boolean hasReplacedRows,
+                   int maxTaskId, StringDictionary dictionary) {
+        this.size = size;
+        this.taskIds = taskIds;
+        this.userIds = userIds;
+        this.projectIds = projectIds;
+        this.days = days;
+        this.hundredths = hundredths;
+        this.descriptions = descriptions;
+        this.blockMinDays = blockMinDays;
+        this.blockMaxDays = blockMaxDays;
+        this.hasReplacedRows = hasReplacedRows;
+        this.maxTaskId = maxTaskId;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Receives the matching rows of one block
+     */
+    @FunctionalInterface
+    public interface BlockVisitor {
+        /**
+         * @param firstRow Row of mask[0]
+         * @param length Number of rows in this block
+         * @param mask -1 for each matching row, 0 otherwise; only valid during the call
+         */
+        void visit(int firstRow, int length, int[] mask);
+    }
+
+    public int size() { return size; }
+
+    public int taskId(int row) { return taskIds[row]; }
+    public int userId(int row) { return userIds[row]; }
+    public int projectId(int row) { return projectIds[row]; }
+    public int epochDay(int row) { return days[row]; }
+    public boolean isLive(int row) { return days[row] != TimeLogFilter.NO_DAY; }
+
+    /**
+     * @return Hours spent in hundredths of an hour
+     */
+    public int hundredths(int row) { return hundredths[row]; }
+
+    public LocalDate date(int row) {
+        return isLive(row) ? LocalDate.ofEpochDay(days[row]) : null;
+    }
+
+    public String description(int row) {
+        return dictionary.decode(descriptions[row]);
+    }
+
+    public int maxTaskId() { return maxTaskId; }
+
+    /**
+     * @return Lowest day of any row (epoch days), or 0 when empty
+     */
+    public int minEpochDay() {
+        int min = Integer.MAX_VALUE;
+        for (int block = 0; block * BLOCK_SIZE < size; block++) {
+            min = Math.min(min, blockMinDays[block]);
+        }
+        return size == 0 ? 0 : min;
+    }
+
+    /**
+     * @return Highest day of any row (epoch days), or 0 when empty
+     */
+    public int maxEpochDay() {
+        int max = Integer.MIN_VALUE;
+        for (int block = 0; block * BLOCK_SIZE < size; block++) {
+            max = Math.max(max, blockMaxDays[block]);
+        }
+        return size == 0 ? 0 : max;
+    }
+
+    /**
+     * @return Total hours of matching rows, in hundredths of an hour
+     */
+    public long sumHundredths(TimeLogFilter filter) {
+        return sumHundredths(filter, 0, size);
+    }
+
+    /**
+     * @param fromRow First row (inclusive)
+     * @param toRow Last row (exclusive)
+     * @return Total hours of matching rows in the range, in hundredths of an hour
+     */
+    public long sumHundredths(TimeLogFilter filter, int fromRow, int toRow) {
+        long[] sum = new long[1];
+        scan(filter, fromRow, toRow, (firstRow, length, mask) -> {
+            int blockSum = 0;
+            for (int j = 0; j < length; j++) {
+                blockSum += hundredths[firstRow + j] & mask[j];
+            }
+            sum[0] += blockSum;
+        });
+        return sum[0];
+    }
+
+    public int count(TimeLogFilter filter) {
+        return count(filter, 0, size);
+    }
+
+    /**
+     * @param fromRow First row (inclusive)
+     * @param toRow Last row (exclusive)
+     * @return Number of matching rows in the range
+     */
+    public int count(TimeLogFilter filter, int fromRow, int toRow) {
+        int[] count = new int[1];
+        scan(filter, fromRow, toRow, (firstRow, length, mask) -> {
+            int blockCount = 0;
+            for (int j = 0; j < length; j++) {
+                blockCount -= mask[j];
+            }
+            count[0] += blockCount;
+        });
+        return count[0];
+    }
+
+    /**
+     * Hands each block of the range that may hold matches to the visitor, with a mask of the rows that do
+     * @param fromRow First row (inclusive)
+     * @param toRow Last row (exclusive)
+     */
+    public void scan(TimeLogFilter filter, int fromRow, int toRow, BlockVisitor visitor) {
+        // Replaced rows carry NO_DAY, which the day check always rejects
+        boolean checkDays = filter.dayFiltered || hasReplacedRows;
+        int[] mask = new int[BLOCK_SIZE];
+
+        int start = Math.max(fromRow, 0);
+        int end = Math.min(toRow, size);
+        while (start < end) {
+            int block = start / BLOCK_SIZE;
+            int blockEnd = Math.min(end, (block + 1) * BLOCK_SIZE);
+            int length = blockEnd - start;
+            if (filter.dayFiltered && (blockMaxDays[block] < filter.minDay || blockMinDays[block] > filter.maxDay)) {
+                start = blockEnd;
+                continue;
+            }
+
+            Arrays.fill(mask, 0, length, -1);
+            if (checkDays) {
+                restrict(mask, days, start, length, filter.minDay, filter.maxDay);
+            }
+            if (filter.userFiltered) {
+                restrict(mask, userIds, start, length, filter.minUser, filter.maxUser);
+            }
+            if (filter.taskFiltered) {
+                restrict(mask, taskIds, start, length, filter.minTask, filter.maxTask);
+            }
+            if (filter.projectFiltered) {
+                restrict(mask, projectIds, start, length, filter.minProject, filter.maxProject);
+            }
+            visitor.visit(start, length, mask);
+            start = blockEnd;
+        }
+    }
+
+    /**
+     * Clears the mask of rows whose value is outside [min, max]. The test is
+     * (v - min) | (max - v) being non-negative, turned into a mask with a
+     * sign-extending shift; values are far enough from the int limits not to overflow.
+     */
+    private static void restrict(int[] mask, int[] column, int start, int length, int min, int max) {
+        for (int j = 0; j < length; j++) {
+            int value = column[start + j];
+            mask[j] &= ~(((value - min) | (max - value)) >> 31);
+        }
+    }
+}
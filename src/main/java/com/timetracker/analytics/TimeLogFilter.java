@@ -0,0 +1,112 @@
+package com.timetracker.analytics;
+
+import java.time.LocalDate;
+
+/**
+ * Row filter for columnar time log scans. Every dimension is an inclusive int
+ * range; scans only read the columns of the dimensions that were set.
+ */
+public class TimeLogFilter {
+
+    // Supported date range (years 0 - 9999), kept well inside int so range checks cannot overflow
+    static final int FIRST_DAY = (int) LocalDate.of(0, 1, 1).toEpochDay();
+    static final int LAST_DAY = (int) LocalDate.of(9999, 12, 31).toEpochDay();
+    // Day value of replaced rows; outside every day range
+    static final int NO_DAY = Integer.MIN_VALUE;
+
+    int minUser;
+    int maxUser;
+    boolean userFiltered;
+    int minTask;
+    int maxTask;
+    boolean taskFiltered;
+    int minProject;
+    int maxProject;
+    boolean projectFiltered;
+    int minDay = FIRST_DAY;
+    int maxDay = LAST_DAY;
+    boolean dayFiltered;
+
+    public static TimeLogFilter all() {
+        return new TimeLogFilter();
+    }
+
+    public TimeLogFilter forUser(int userId) {
+        minUser = userId;
+        maxUser = userId;
+        userFiltered = true;
+        return this;
+    }
+
+    public TimeLogFilter forTask(int taskId) {
+        return forTasks(taskId, taskId);
+    }
+
+    /**
+     * @param taskIdFrom First task ID (inclusive)
+     * @param taskIdTo Last task ID (inclusive)
+     */
+    public TimeLogFilter forTasks(int taskIdFrom, int taskIdTo) {
+        minTask = taskIdFrom;
+        maxTask = taskIdTo;
+        taskFiltered = true;
+        return this;
+    }
+
+    public TimeLogFilter forProject(int projectId) {
+        minProject = projectId;
+        maxProject = projectId;
+        projectFiltered = true;
+        return this;
+    }
+
+    /**
+     * @param startDate First day (inclusive), or null for no lower bound
+     * @param endDate Last day (inclusive), or null for no upper bound
+     */
+    public TimeLogFilter between(LocalDate startDate, LocalDate endDate) {
+        minDay = startDate == null ? FIRST_DAY : (int) Math.max(startDate.toEpochDay(), FIRST_DAY);
+        maxDay = endDate == null ? LAST_DAY : (int) Math.min(endDate.toEpochDay(), LAST_DAY);
+        dayFiltered = startDate != null || endDate != null;
+        return this;
+    }
+
+    /**
+     * @return A copy further limited to the given days (epoch days, inclusive)
+     */
+    TimeLogFilter withinDays(int fromDay, int toDay) {
+        TimeLogFilter copy = copy();
+        copy.minDay = Math.max(minDay, fromDay);
+        copy.maxDay = Math.min(maxDay, toDay);
+        copy.dayFiltered = true;
+        return copy;
+    }
+
+    /**
+     * @return A copy further limited to the given task IDs (inclusive)
+     */
+    TimeLogFilter withinTasks(int fromTaskId, int toTaskId) {
+        TimeLogFilter copy = copy();
+        copy.minTask = taskFiltered ? Math.max(minTask, fromTaskId) : fromTaskId;
+        copy.maxTask = taskFiltered ? Math.min(maxTask, toTaskId) : toTaskId;
+        copy.taskFiltered = true;
+        return copy;
+    }
+
+    private TimeLogFilter copy() {
+        TimeLogFilter copy = new TimeLogFilter();
+        copy.minUser = minUser;
+        copy.maxUser = maxUser;
+        copy.userFiltered = userFiltered;
+        copy.minTask = minTask;
+        copy.maxTask = maxTask;
+        copy.taskFiltered = taskFiltered;
+        copy.minProject = minProject;
+        copy.maxProject = maxProject;
+        copy.projectFiltered = projectFiltered;
+        copy.minDay = minDay;
+        copy.maxDay = maxDay;
+        copy.dayFiltered = dayFiltered;
+        return copy;
+    }
+}
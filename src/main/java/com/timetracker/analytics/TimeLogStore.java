@@ -0,0 +1,332 @@
+package com.timetracker.analytics;
+
+import com.timetracker.dao.TimeLogDAO;
+import com.timetracker.exception.DatabaseException;
+import com.timetracker.model.TimeLog;
+import com.timetracker.util.HoursAggregator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * In-memory columnar copy of time_logs for analytics.
+ *
+ * Each row is six ints (task, user, project, epoch day, hundredths of an hour and
+ * a dictionary code for the description) instead of a TimeLog object, so a row
+ * costs about 28 bytes including the ID lookup, versus ~150 bytes boxed.
+ *
+ * Loaded from the database on first use and then kept current by the DAOs, like
+ * HoursAggregator. Writers are serialized; readers take a {@link TimeLogColumns}
+ * snapshot and scan it without locking. An updated row is appended again and its
+ * old slot is marked replaced, in a copy of the day column if a published snapshot
+ * still reads it, so a snapshot never changes under its reader.
+ * Writes reported while a load is running are buffered and applied after it.
+ */
+public class TimeLogStore {
+    private static TimeLogStore instance;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_ROW = -1;
+
+    private int[] taskIds;
+    private int[] userIds;
+    private int[] projectIds;
+    private int[] days;
+    private int[] hundredths;
+    private int[] descriptions;
+    // Lowest and highest day per block of TimeLogColumns.BLOCK_SIZE rows
+    private int[] blockMinDays;
+    private int[] blockMaxDays;
+    private int size;
+    private int replaced;
+    private int maxId;
+    private int maxTaskId;
+    // Time log ID -> row
+    private int[] rowsById;
+    private StringDictionary dictionary;
+
+    // Whether the last published snapshot shares the days array
+    private boolean daysPublished;
+
+    private volatile TimeLogColumns snapshot;
+    private volatile boolean loaded;
+    // Guarded by pendingWrites: writes reported while a load runs, applied after it in order
+    private boolean loading;
+    private final List<PendingWrite> pendingWrites = new ArrayList<>();
+
+    private TimeLogStore() {
+        clear();
+    }
+
+    public static synchronized TimeLogStore getInstance() {
+        if (instance == null) {
+            instance = new TimeLogStore();
+        }
+        return instance;
+    }
+
+    /**
+     * @return The current rows, loading them from the database on first use
+     */
+    public TimeLogColumns snapshot() {
+        load();
+        return snapshot;
+    }
+
+    /**
+     * Loads the rows from the database if that has not happened yet
+     */
+    public void load() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the in-memory rows and reloads them from the database
+     */
+    public synchronized void reload() {
+        synchronized (pendingWrites) {
+            loading = true;
+            pendingWrites.clear();
+        }
+        loaded = false;
+        clear();
+        long started = System.nanoTime();
+
+        try {
+            new TimeLogDAO().scanColumns(0, this::put);
+        } catch (DatabaseException e) {
+            // Left unloaded rather than partial, so the next snapshot() loads again
+            e.printStackTrace();
+            synchronized (pendingWrites) {
+                loading = false;
+                pendingWrites.clear();
+            }
+            clear();
+            return;
+        }
+        // Writes committed during the scan may or may not have been visible to it;
+        // their hooks were buffered, and applying them again is harmless
+        while (true) {
+            List<PendingWrite> writes;
+            synchronized (pendingWrites) {
+                if (pendingWrites.isEmpty()) {
+                    loading = false;
+                    loaded = true;
+                    break;
+                }
+                writes = new ArrayList<>(pendingWrites);
+                pendingWrites.clear();
+            }
+            for (PendingWrite write : writes) {
+                if (write.timeLog != null) {
+                    putTimeLog(write.timeLog, HoursAggregator.getInstance().getProjectId(write.timeLog.getTaskId()));
+                } else {
+                    remove(write.removedId);
+                }
+            }
+        }
+        publish();
+
+        System.out.printf("Time log store loaded: %,d rows, %,d distinct descriptions, ~%,d KB in %.0f ms%n",
+            size, dictionary.size(), estimateBytes() / 1024, (System.nanoTime() - started) / 1e6);
+    }
+
+    /**
+     * Adds a committed time log, or replaces the stored copy of an updated one
+     */
+    public void recordTimeLog(TimeLog timeLog) {
+        if (timeLog.getId() <= 0 || buffered(timeLog, 0)) {
+            return;
+        }
+        if (!loaded) {
+            // Not loaded yet: the write is already in the table and will be picked up by the load
+            return;
+        }
+        Integer projectId = HoursAggregator.getInstance().getProjectId(timeLog.getTaskId());
+        synchronized (this) {
+            putTimeLog(timeLog, projectId);
+            publish();
+        }
+    }
+
+    /**
+     * Drops a deleted time log
+     */
+    public void removeTimeLog(int id) {
+        if (buffered(null, id) || !loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (remove(id)) {
+                publish();
+            }
+        }
+    }
+
+    /**
+     * @return true if a load is running and the write was queued for after it
+     */
+    private boolean buffered(TimeLog timeLog, int removedId) {
+        synchronized (pendingWrites) {
+            if (loading) {
+                pendingWrites.add(new PendingWrite(timeLog, removedId));
+            }
+            return loading;
+        }
+    }
+
+    private void putTimeLog(TimeLog timeLog, Integer projectId) {
+        put(timeLog.getId(), timeLog.getTaskId(), projectId == null ? 0 : projectId, timeLog.getUserId(),
+            (int) timeLog.getDate().toEpochDay(), (int) Math.round(timeLog.getHoursSpent() * 100),
+            timeLog.getDescription());
+    }
+
+    private boolean remove(int id) {
+        int row = id < rowsById.length ? rowsById[id] : NO_ROW;
+        if (row == NO_ROW) {
+            return false;
+        }
+        markReplaced(row);
+        rowsById[id] = NO_ROW;
+        return true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return Live rows (not counting replaced ones)
+     */
+    public synchronized int getRowCount() {
+        return size - replaced;
+    }
+
+    /**
+     * @return Approximate heap used by the columns, the ID lookup and the description dictionary
+     */
+    public synchronized long estimateBytes() {
+        return (long) taskIds.length * 6 * Integer.BYTES + (long) blockMinDays.length * 2 * Integer.BYTES
+            + (long) rowsById.length * Integer.BYTES + dictionary.estimateBytes();
+    }
+
+    private void put(int id, int taskId, int projectId, int userId, int epochDay, int hours, String description) {
+        int previous = id < rowsById.length ? rowsById[id] : NO_ROW;
+        if (previous != NO_ROW) {
+            if (days[previous] == epochDay && taskIds[previous] == taskId && userIds[previous] == userId
+                    && hundredths[previous] == hours
+                    && Objects.equals(dictionary.decode(descriptions[previous]), description)) {
+                // Already stored, e.g. seen by both the load and a DAO hook
+                return;
+            }
+            markReplaced(previous);
+        }
+
+        ensureCapacity(size + 1);
+        taskIds[size] = taskId;
+        userIds[size] = userId;
+        projectIds[size] = projectId;
+        days[size] = epochDay;
+        hundredths[size] = hours;
+        descriptions[size] = dictionary.encode(description);
+        int block = size / TimeLogColumns.BLOCK_SIZE;
+        if (size % TimeLogColumns.BLOCK_SIZE == 0) {
+            blockMinDays[block] = epochDay;
+            blockMaxDays[block] = epochDay;
+        } else {
+            blockMinDays[block] = Math.min(blockMinDays[block], epochDay);
+            blockMaxDays[block] = Math.max(blockMaxDays[block], epochDay);
+        }
+        setRow(id, size);
+        size++;
+        maxId = Math.max(maxId, id);
+        maxTaskId = Math.max(maxTaskId, taskId);
+    }
+
+    private void markReplaced(int row) {
+        if (daysPublished) {
+            // Snapshots published so far must keep seeing the row as it was
+            days = Arrays.copyOf(days, days.length);
+            daysPublished = false;
+        }
+        days[row] = TimeLogFilter.NO_DAY;
+        replaced++;
+    }
+
+    /**
+     * Makes rows written so far visible to new snapshots
+     */
+    private void publish() {
+        snapshot = new TimeLogColumns(size, taskIds, userIds, projectIds, days, hundredths, descriptions,
+            blockMinDays, blockMaxDays, replaced > 0, maxTaskId, dictionary);
+        daysPublished = true;
+    }
+
+    private void clear() {
+        taskIds = new int[INITIAL_CAPACITY];
+        userIds = new int[INITIAL_CAPACITY];
+        projectIds = new int[INITIAL_CAPACITY];
+        days = new int[INITIAL_CAPACITY];
+        hundredths = new int[INITIAL_CAPACITY];
+        descriptions = new int[INITIAL_CAPACITY];
+        blockMinDays = new int[blockCount(INITIAL_CAPACITY)];
+        blockMaxDays = new int[blockCount(INITIAL_CAPACITY)];
+        size = 0;
+        replaced = 0;
+        maxId = 0;
+        maxTaskId = 0;
+        rowsById = new int[0];
+        dictionary = new StringDictionary();
+        publish();
+    }
+
+    private void setRow(int id, int row) {
+        if (id >= rowsById.length) {
+            int oldLength = rowsById.length;
+            rowsById = Arrays.copyOf(rowsById, Math.max(id + 1, oldLength + (oldLength >> 1)));
+            Arrays.fill(rowsById, oldLength, rowsById.length, NO_ROW);
+        }
+        rowsById[id] = row;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > taskIds.length) {
+            // Grown copies leave existing snapshots on the old arrays untouched
+            int newLength = Math.max(capacity, taskIds.length + (taskIds.length >> 1));
+            taskIds = Arrays.copyOf(taskIds, newLength);
+            userIds = Arrays.copyOf(userIds, newLength);
+            projectIds = Arrays.copyOf(projectIds, newLength);
+            days = Arrays.copyOf(days, newLength);
+            daysPublished = false;
+            hundredths = Arrays.copyOf(hundredths, newLength);
+            descriptions = Arrays.copyOf(descriptions, newLength);
+            blockMinDays = Arrays.copyOf(blockMinDays, blockCount(newLength));
+            blockMaxDays = Arrays.copyOf(blockMaxDays, blockCount(newLength));
+        }
+    }
+
+    private static int blockCount(int rows) {
+        return (rows + TimeLogColumns.BLOCK_SIZE - 1) / TimeLogColumns.BLOCK_SIZE;
+    }
+
+    /**
+     * A write reported while a load was running: a recorded time log, or the ID of a removed one
+     */
+    private static final class PendingWrite {
+        private final TimeLog timeLog;
+        private final int removedId;
+
+        private PendingWrite(TimeLog timeLog, int removedId) {
+            this.timeLog = timeLog;
+            this.removedId = removedId;
+        }
+    }
+}
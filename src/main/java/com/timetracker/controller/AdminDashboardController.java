@@ -2,7 +2,15 @@ package com.timetracker.controller;
 
 import com.timetracker.dao.*;
 import com.timetracker.model.*;
+import com.timetracker.service.AsyncDataLoader;
 import com.timetracker.service.AuthenticationService;
+import com.timetracker.service.TimeLogIngestionQueue;
+import com.timetracker.util.ChangeEvent;
+import com.timetracker.util.ChangeFeed;
+import com.timetracker.util.DatabaseManager;
+import com.timetracker.util.PagedTableLoader;
+import com.timetracker.util.QueryMetrics;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -12,10 +20,16 @@ import javafx.scene.chart.PieChart;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
+import javafx.scene.text.Font;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.File;
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AdminDashboardController {
     @FXML private Label welcomeLabel;
@@ -51,22 +65,32 @@ public class AdminDashboardController {
     @FXML private DatePicker endDatePicker;
     @FXML private Button generateReportButton;
     @FXML private PieChart timeDistributionChart;
+    @FXML private Button queryMetricsButton;
 
     private AuthenticationService authService;
     private UserDAO userDAO;
     private ProjectDAO projectDAO;
     private TimeLogDAO timeLogDAO;
+    private TimeLogRollupDAO rollupDAO;
+    private AsyncDataLoader dataLoader;
+    private PagedTableLoader<User, String> userPages;
+    private PagedTableLoader<Project, String> projectPages;
+    private ChangeFeed.Subscription<User> userChanges;
+    private ChangeFeed.Subscription<Project> projectChanges;
 
     public void initialize() {
         authService = new AuthenticationService();
+        dataLoader = new AsyncDataLoader(getClass().getSimpleName());
         userDAO = new UserDAO();
         projectDAO = new ProjectDAO();
         timeLogDAO = new TimeLogDAO();
+        rollupDAO = new TimeLogRollupDAO();
         
         setupWelcomeMessage();
         setupUserTable();
         setupProjectTable();
         setupReportsSection();
+        subscribeToChanges();
         loadData();
     }
 
@@ -81,6 +105,8 @@ public class AdminDashboardController {
         fullNameColumn.setCellValueFactory(new PropertyValueFactory<>("fullName"));
         emailColumn.setCellValueFactory(new PropertyValueFactory<>("email"));
         roleColumn.setCellValueFactory(new PropertyValueFactory<>("role"));
+        userPages = new PagedTableLoader<>(usersTable, dataLoader, "admin-users",
+            user -> user.getFullName() != null ? user.getFullName() : "", User::getId, false, this::handleLoadError);
         
         // Add action buttons
         actionsColumn.setCellFactory(param -> new TableCell<>() {
@@ -113,6 +139,8 @@ public class AdminDashboardController {
         startDateColumn.setCellValueFactory(new PropertyValueFactory<>("startDate"));
         endDateColumn.setCellValueFactory(new PropertyValueFactory<>("endDate"));
         statusColumn.setCellValueFactory(new PropertyValueFactory<>("status"));
+        projectPages = new PagedTableLoader<>(projectsTable, dataLoader, "admin-projects",
+            Project::getTitle, Project::getId, false, this::handleLoadError);
     }
 
     private void setupReportsSection() {
@@ -123,28 +151,70 @@ public class AdminDashboardController {
     private void loadData() {
         loadUsers();
         loadProjects();
-        loadProjectComboBox();
         generateDefaultReport();
     }
 
     private void loadUsers() {
-        List<User> users = userDAO.getAllUsers();
-        usersTable.setItems(FXCollections.observableArrayList(users));
+        userPages.reload(userDAO::findPage);
     }
 
     private void loadProjects() {
-        List<Project> projects = projectDAO.getAllProjects();
-        projectsTable.setItems(FXCollections.observableArrayList(projects));
+        projectPages.reload(projectDAO::getProjectPage);
+        // The report picker offers every project, so it still loads the full list
+        dataLoader.loadAsync("admin-project-choices", projectDAO::getAllProjects,
+            this::loadProjectComboBox, this::handleLoadError);
     }
 
-    private void loadProjectComboBox() {
-        List<Project> projects = projectDAO.getAllProjects();
+    /**
+     * Applies user and project rows written anywhere in the application to the open tables
+     */
+    private void subscribeToChanges() {
+        ChangeFeed feed = ChangeFeed.getInstance();
+        userChanges = feed.subscribe(User.class, Platform::runLater, events -> {
+            for (ChangeEvent<User> event : events) {
+                if (event.isDelete()) {
+                    userPages.remove(event.getId());
+                } else {
+                    userPages.upsert(event.getRow());
+                }
+            }
+        });
+        projectChanges = feed.subscribe(Project.class, Platform::runLater, events -> {
+            for (ChangeEvent<Project> event : events) {
+                List<Project> choices = projectComboBox.getItems();
+                int index = -1;
+                for (int i = 0; i < choices.size() && index < 0; i++) {
+                    index = choices.get(i).getId() == event.getId() ? i : -1;
+                }
+                if (event.isDelete()) {
+                    projectPages.remove(event.getId());
+                    if (index >= 0) {
+                        choices.remove(index);
+                    }
+                } else {
+                    projectPages.upsert(event.getRow());
+                    if (index >= 0) {
+                        choices.set(index, event.getRow());
+                    } else {
+                        choices.add(event.getRow());
+                    }
+                }
+            }
+        });
+    }
+
+    private void loadProjectComboBox(List<Project> projects) {
         projectComboBox.setItems(FXCollections.observableArrayList(projects));
         if (!projects.isEmpty()) {
             projectComboBox.getSelectionModel().selectFirst();
         }
     }
 
+    private void handleLoadError(Exception e) {
+        e.printStackTrace();
+        showAlert("Error", "Failed to load data: " + e.getMessage());
+    }
+
     @FXML
     private void handleAddUser() {
         // Simple dialog for adding user
@@ -186,14 +256,13 @@ public class AdminDashboardController {
             return null;
         });
 
-        dialog.showAndWait().ifPresent(user -> {
-            if (userDAO.createUser(user)) {
-                loadUsers();
+        dialog.showAndWait().ifPresent(user -> dataLoader.loadAsync(() -> userDAO.createUser(user), created -> {
+            if (created) {
                 showAlert("Success", "User added successfully!");
             } else {
                 showAlert("Error", "Failed to add user!");
             }
-        });
+        }, this::handleLoadError));
     }
 
     @FXML
@@ -235,15 +304,13 @@ public class AdminDashboardController {
             return null;
         });
 
-        dialog.showAndWait().ifPresent(project -> {
-            if (projectDAO.createProject(project)) {
-                loadProjects();
-                loadProjectComboBox();
+        dialog.showAndWait().ifPresent(project -> dataLoader.loadAsync(() -> projectDAO.createProject(project), created -> {
+            if (created) {
                 showAlert("Success", "Project added successfully!");
             } else {
                 showAlert("Error", "Failed to add project!");
             }
-        });
+        }, this::handleLoadError));
     }
 
     private void handleEditUserRole(User user) {
@@ -252,14 +319,13 @@ public class AdminDashboardController {
         dialog.setHeaderText("Change role for: " + user.getFullName());
         dialog.setContentText("Select new role:");
 
-        dialog.showAndWait().ifPresent(newRole -> {
-            if (userDAO.updateUserRole(user.getId(), newRole)) {
-                loadUsers();
+        dialog.showAndWait().ifPresent(newRole -> dataLoader.loadAsync(() -> userDAO.updateUserRole(user.getId(), newRole), updated -> {
+            if (updated) {
                 showAlert("Success", "User role updated successfully!");
             } else {
                 showAlert("Error", "Failed to update user role!");
             }
-        });
+        }, this::handleLoadError));
     }
 
     @FXML
@@ -289,19 +355,112 @@ public class AdminDashboardController {
     }
 
     private void generateDefaultReport() {
-        ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
-        
-        // Sample data for demonstration
-        pieChartData.add(new PieChart.Data("E-Commerce Platform", 45));
-        pieChartData.add(new PieChart.Data("Mobile App Development", 30));
-        pieChartData.add(new PieChart.Data("Data Analytics Dashboard", 25));
+        LocalDate startDate = startDatePicker.getValue();
+        LocalDate endDate = endDatePicker.getValue();
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            showAlert("Error", "Please select a valid date range");
+            return;
+        }
         
-        timeDistributionChart.setData(pieChartData);
+        // Latest wins: changing the range while a report is loading discards the old one
+        dataLoader.loadLatestAsync("admin-report", () -> {
+            // Hours per project for the range, answered from the pre-aggregated rollups
+            Map<Integer, Double> hoursByProject = rollupDAO.getProjectHours(startDate, endDate);
+            Map<String, Double> hoursByTitle = new LinkedHashMap<>();
+            for (Project project : projectDAO.getAllProjects()) {
+                double hours = hoursByProject.getOrDefault(project.getId(), 0.0);
+                if (hours > 0) {
+                    hoursByTitle.merge(project.getTitle(), hours, Double::sum);
+                }
+            }
+            return hoursByTitle;
+        }, hoursByTitle -> {
+            ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
+            hoursByTitle.forEach((title, hours) -> pieChartData.add(new PieChart.Data(title, hours)));
+            timeDistributionChart.setData(pieChartData);
+        }, this::handleLoadError);
+    }
+
+    @FXML
+    private void handleShowQueryMetrics() {
+        QueryMetrics metrics = DatabaseManager.getInstance().getQueryMetrics();
+        if (metrics == null) {
+            showAlert("Query Metrics", "Query instrumentation is disabled (timetracker.query.metrics=false)");
+            return;
+        }
+
+        TextArea reportArea = new TextArea(formatDiagnostics(metrics));
+        reportArea.setEditable(false);
+        reportArea.setFont(Font.font("Monospaced", 12));
+        reportArea.setPrefSize(1000, 500);
+
+        ButtonType saveButton = new ButtonType("Save to File", ButtonBar.ButtonData.LEFT);
+        ButtonType checkRollupsButton = new ButtonType("Check Rollups", ButtonBar.ButtonData.LEFT);
+        ButtonType resetButton = new ButtonType("Reset", ButtonBar.ButtonData.OTHER);
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Query Metrics");
+        dialog.setHeaderText("Database calls by DAO method since startup");
+        dialog.setResizable(true);
+        dialog.getDialogPane().setContent(reportArea);
+        dialog.getDialogPane().getButtonTypes().addAll(saveButton, checkRollupsButton, resetButton, ButtonType.CLOSE);
+
+        dialog.showAndWait().ifPresent(button -> {
+            if (button == saveButton) {
+                saveQueryMetrics(metrics);
+            } else if (button == checkRollupsButton) {
+                checkRollups();
+            } else if (button == resetButton) {
+                metrics.reset();
+            }
+        });
+    }
+
+    /**
+     * Compares the report rollups with the raw time logs and lists any mismatches
+     */
+    private void checkRollups() {
+        dataLoader.loadAsync(rollupDAO::checkConsistency, problems -> {
+            if (problems.isEmpty()) {
+                showAlert("Rollup Check", "The report rollups match the time logs.");
+            } else {
+                // The first few are enough to tell which periods drifted
+                showAlert("Rollup Check", problems.size() + " mismatched rollup rows:" + System.lineSeparator()
+                    + String.join(System.lineSeparator(), problems.subList(0, Math.min(problems.size(), 20))));
+            }
+        }, this::handleLoadError);
+    }
+
+    private String formatDiagnostics(QueryMetrics metrics) {
+        return metrics.formatReport()
+            + System.lineSeparator() + DatabaseManager.getInstance().getConnectionPool()
+            + System.lineSeparator() + TimeLogIngestionQueue.getInstance()
+            + System.lineSeparator() + ProjectDAO.getCacheStats()
+            + System.lineSeparator() + UserDAO.getCacheStats();
+    }
+
+    private void saveQueryMetrics(QueryMetrics metrics) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Query Metrics");
+        fileChooser.setInitialFileName("query-metrics.txt");
+        File file = fileChooser.showSaveDialog(queryMetricsButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        try {
+            metrics.dumpToFile(file.toPath());
+            showAlert("Success", "Query metrics saved to " + file.getName());
+        } catch (IOException e) {
+            e.printStackTrace();
+            showAlert("Error", "Failed to save query metrics: " + e.getMessage());
+        }
     }
 
     @FXML
     private void handleLogout() {
         try {
+            userChanges.close();
+            projectChanges.close();
+            dataLoader.dispose();
             authService.logout();
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/login.fxml"));
             Scene scene = new Scene(loader.load(), 800, 600);
@@ -1,8 +1,15 @@
 package com.timetracker.controller;
 
 import com.timetracker.dao.*;
+import com.timetracker.export.DelimitedFileWriter;
+import com.timetracker.export.TimeLogExporter;
 import com.timetracker.model.*;
+import com.timetracker.service.AsyncDataLoader;
 import com.timetracker.service.AuthenticationService;
+import com.timetracker.util.ChangeEvent;
+import com.timetracker.util.ChangeFeed;
+import com.timetracker.util.PagedTableLoader;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -12,12 +19,23 @@ import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.File;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public class ProjectManagerDashboardController {
+    private static final String TIME_LOG_EXPORT = "Time log detail";
+    private static final String PROGRESS_EXPORT = "Project progress";
+
     @FXML private Label welcomeLabel;
     @FXML private Button logoutButton;
     
@@ -54,9 +72,14 @@ public class ProjectManagerDashboardController {
     private ProjectDAO projectDAO;
     private UserDAO userDAO;
     private TimeLogDAO timeLogDAO;
+    private AsyncDataLoader dataLoader;
+    private PagedTableLoader<TaskView, String> taskPages;
+    private ChangeFeed.Subscription<Task> taskChanges;
+    private ChangeFeed.Subscription<TimeLog> timeLogChanges;
 
     public void initialize() {
         authService = new AuthenticationService();
+        dataLoader = new AsyncDataLoader(getClass().getSimpleName());
         taskDAO = new TaskDAO();
         projectDAO = new ProjectDAO();
         userDAO = new UserDAO();
@@ -65,6 +88,7 @@ public class ProjectManagerDashboardController {
         setupWelcomeMessage();
         setupTaskTable();
         setupProgressTable();
+        subscribeToChanges();
         loadData();
     }
 
@@ -82,6 +106,8 @@ public class ProjectManagerDashboardController {
         dueDateColumn.setCellValueFactory(new PropertyValueFactory<>("dueDate"));
         estimatedHoursColumn.setCellValueFactory(new PropertyValueFactory<>("estimatedHours"));
         actualHoursColumn.setCellValueFactory(new PropertyValueFactory<>("actualHours"));
+        taskPages = new PagedTableLoader<>(tasksTable, dataLoader, "pm-tasks",
+            TaskView::getTitle, TaskView::getId, false, this::handleLoadError);
     }
 
     private void setupProgressTable() {
@@ -102,18 +128,58 @@ public class ProjectManagerDashboardController {
     }
 
     private void loadTasks() {
-        List<Task> tasks = taskDAO.getAllTasks();
-        ObservableList<TaskView> taskViews = FXCollections.observableArrayList();
+        taskPages.reload(page -> toTaskViews(taskDAO.findTaskSummaryPage(page)));
+    }
+
+    /**
+     * Keeps the task table current: new and changed tasks are re-read one by one,
+     * and tasks in view are re-read when time is logged against them (actual hours)
+     */
+    private void subscribeToChanges() {
+        ChangeFeed feed = ChangeFeed.getInstance();
+        taskChanges = feed.subscribe(Task.class, Platform::runLater, events -> {
+            Set<Integer> changed = new LinkedHashSet<>();
+            for (ChangeEvent<Task> event : events) {
+                if (event.isDelete()) {
+                    taskPages.remove(event.getId());
+                } else {
+                    changed.add(event.getId());
+                }
+            }
+            refreshTasks(changed);
+        });
+        timeLogChanges = feed.subscribe(TimeLog.class, Platform::runLater, events -> {
+            Set<Integer> changed = new LinkedHashSet<>();
+            for (ChangeEvent<TimeLog> event : events) {
+                // An update may move the hours from one task to another
+                addIfShown(changed, event.getRow());
+                addIfShown(changed, event.getPrevious());
+            }
+            refreshTasks(changed);
+        });
+    }
+
+    private void addIfShown(Set<Integer> taskIds, TimeLog log) {
+        if (log != null && taskPages.contains(log.getTaskId())) {
+            taskIds.add(log.getTaskId());
+        }
+    }
+
+    private void refreshTasks(Set<Integer> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        dataLoader.loadAsync(() -> toTaskViews(taskDAO.findTaskSummariesByIds(taskIds)),
+            taskViews -> taskViews.forEach(taskPages::upsert), this::handleLoadError);
+    }
+
+    private List<TaskView> toTaskViews(List<TaskSummary> tasks) {
+        List<TaskView> taskViews = new ArrayList<>(tasks.size());
         
-        for (Task task : tasks) {
-            Project project = projectDAO.getProjectById(task.getProjectId());
-            String projectName = project != null ? project.getTitle() : "Unknown";
-            
-            // Get assignee name (simplified)
-            String assigneeName = "User " + task.getAssignedUserId();
-            
-            // Get actual hours
-            double actualHours = timeLogDAO.getTotalHoursByTaskId(task.getId());
+        for (TaskSummary task : tasks) {
+            String projectName = task.getProjectTitle() != null ? task.getProjectTitle() : "Unknown";
+            String assigneeName = task.getAssigneeName() != null
+                ? task.getAssigneeName() : "User " + task.getAssignedUserId();
             
             TaskView taskView = new TaskView(
                 task.getId(),
@@ -123,12 +189,16 @@ public class ProjectManagerDashboardController {
                 task.getStatus().getDisplayName(),
                 task.getDueDate(),
                 task.getEstimatedHours(),
-                actualHours
+                task.getActualHours()
             );
             taskViews.add(taskView);
         }
-        
-        tasksTable.setItems(taskViews);
+        return taskViews;
+    }
+
+    private void handleLoadError(Exception e) {
+        e.printStackTrace();
+        showAlert("Error", "Failed to load data: " + e.getMessage());
     }
 
     private void loadCharts() {
@@ -179,12 +249,19 @@ public class ProjectManagerDashboardController {
         DatePicker dueDate = new DatePicker(LocalDate.now().plusWeeks(2));
         TextField estimatedHours = new TextField();
 
-        // Load projects and users
-        projectCombo.setItems(FXCollections.observableArrayList(projectDAO.getAllProjects()));
-        List<User> teamMembers = userDAO.getAllUsers().stream()
+        // Load projects and users in the background; the combos fill in when ready
+        projectCombo.setPromptText("Loading...");
+        assigneeCombo.setPromptText("Loading...");
+        dataLoader.loadAsync("pm-projects", projectDAO::getAllProjects, projects -> {
+            projectCombo.setItems(FXCollections.observableArrayList(projects));
+            projectCombo.setPromptText(null);
+        }, this::handleLoadError);
+        dataLoader.loadAsync("pm-team-members", () -> userDAO.getAllUsers().stream()
             .filter(u -> u.getRole() == UserRole.TEAM_MEMBER)
-            .toList();
-        assigneeCombo.setItems(FXCollections.observableArrayList(teamMembers));
+            .toList(), teamMembers -> {
+            assigneeCombo.setItems(FXCollections.observableArrayList(teamMembers));
+            assigneeCombo.setPromptText(null);
+        }, this::handleLoadError);
 
         description.setPrefRowCount(3);
 
@@ -221,14 +298,13 @@ public class ProjectManagerDashboardController {
             return null;
         });
 
-        dialog.showAndWait().ifPresent(task -> {
-            if (taskDAO.createTask(task)) {
-                loadTasks();
+        dialog.showAndWait().ifPresent(task -> dataLoader.loadAsync(() -> taskDAO.createTask(task), created -> {
+            if (created) {
                 showAlert("Success", "Task assigned successfully!");
             } else {
                 showAlert("Error", "Failed to assign task!");
             }
-        });
+        }, this::handleLoadError));
     }
 
     @FXML
@@ -239,12 +315,100 @@ public class ProjectManagerDashboardController {
 
     @FXML
     private void handleExportReport() {
-        showAlert("Export", "Report export functionality would be implemented here!");
+        ChoiceDialog<String> choice = new ChoiceDialog<>(TIME_LOG_EXPORT, TIME_LOG_EXPORT, PROGRESS_EXPORT);
+        choice.setTitle("Export");
+        choice.setHeaderText("Choose the report to export:");
+        Optional<String> report = choice.showAndWait();
+        if (report.isEmpty()) {
+            return;
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export " + report.get());
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("CSV", "*.csv"),
+            new FileChooser.ExtensionFilter("TSV", "*.tsv"),
+            new FileChooser.ExtensionFilter("Gzipped CSV", "*.csv.gz"),
+            new FileChooser.ExtensionFilter("Gzipped TSV", "*.tsv.gz"));
+        fileChooser.setInitialFileName(report.get().equals(TIME_LOG_EXPORT) ? "time-logs.csv" : "project-progress.csv");
+        File file = fileChooser.showSaveDialog(exportReportButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        if (report.get().equals(TIME_LOG_EXPORT)) {
+            exportTimeLogs(file.toPath());
+        } else {
+            exportProgress(file.toPath());
+        }
+    }
+
+    /**
+     * Streams every time log to the file in the background, with a progress
+     * dialog whose Cancel button stops the export and discards the file
+     */
+    private void exportTimeLogs(Path file) {
+        TimeLogExporter exporter = new TimeLogExporter();
+
+        ProgressBar progress = new ProgressBar(ProgressBar.INDETERMINATE_PROGRESS);
+        progress.setPrefWidth(300);
+        Label status = new Label("Counting time logs...");
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("Export");
+        dialog.setHeaderText("Exporting time logs to " + file.getFileName());
+        dialog.getDialogPane().setContent(new VBox(10, progress, status));
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        dialog.setOnHidden(event -> exporter.cancel());
+        dialog.show();
+
+        long started = System.nanoTime();
+        dataLoader.loadAsync(() -> exporter.export(TimeLogQuery.all().orderBy(TimeLogQuery.Sort.ID), file,
+            (rows, total) -> Platform.runLater(() -> {
+                progress.setProgress(total > 0 ? (double) rows / total : 1);
+                status.setText(String.format("%,d of %,d rows", rows, total));
+            })), rows -> {
+            dialog.setOnHidden(null);
+            dialog.close();
+            double seconds = Math.max(1e-3, (System.nanoTime() - started) / 1e9);
+            showAlert("Success", String.format("Exported %,d time logs to %s in %.1f s",
+                rows, file.getFileName(), seconds));
+        }, e -> {
+            dialog.setOnHidden(null);
+            dialog.close();
+            e.printStackTrace();
+            showAlert("Error", "Failed to export time logs: " + e.getMessage());
+        });
+    }
+
+    private void exportProgress(Path file) {
+        List<ProjectProgress> rows = new ArrayList<>(progressTable.getItems());
+        dataLoader.loadAsync(() -> {
+            try (DelimitedFileWriter writer = new DelimitedFileWriter(file)) {
+                writer.row("project", "total_tasks", "completed", "in_progress", "pending", "progress_percent");
+                for (ProjectProgress row : rows) {
+                    writer.text(row.getProjectName())
+                        .field(row.getTotalTasks())
+                        .field(row.getCompletedTasks())
+                        .field(row.getInProgressTasks())
+                        .field(row.getPendingTasks())
+                        .hundredths((int) Math.round(row.getProgressPercent() * 100))
+                        .endRow();
+                }
+                writer.commit();
+            }
+            return rows.size();
+        }, count -> showAlert("Success", "Exported " + count + " projects to " + file.getFileName()), e -> {
+            e.printStackTrace();
+            showAlert("Error", "Failed to export project progress: " + e.getMessage());
+        });
     }
 
     @FXML
     private void handleLogout() {
         try {
+            taskChanges.close();
+            timeLogChanges.close();
+            dataLoader.dispose();
             authService.logout();
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/login.fxml"));
             Scene scene = new Scene(loader.load(), 800, 600);
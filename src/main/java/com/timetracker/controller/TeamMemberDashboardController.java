@@ -2,7 +2,14 @@ package com.timetracker.controller;
 
 import com.timetracker.dao.*;
 import com.timetracker.model.*;
+import com.timetracker.service.AsyncDataLoader;
 import com.timetracker.service.AuthenticationService;
+import com.timetracker.service.TimeLogIngestionQueue;
+import com.timetracker.util.ChangeEvent;
+import com.timetracker.util.ChangeFeed;
+import com.timetracker.util.PagedTableLoader;
+import com.timetracker.util.StagedTableRenderer;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -15,9 +22,17 @@ import javafx.stage.Stage;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class TeamMemberDashboardController {
+    private static final DateTimeFormatter CREATED_FORMAT = DateTimeFormatter.ofPattern("MM/dd HH:mm");
+    private static final long QUEUE_STATUS_CHECK_MS = 1000;
+    
     @FXML private Label welcomeLabel;
     @FXML private Button logoutButton;
     
@@ -27,6 +42,7 @@ public class TeamMemberDashboardController {
     @FXML private TextField hoursField;
     @FXML private TextArea descriptionArea;
     @FXML private Button logTimeButton;
+    @FXML private Label logTimeStatusLabel;
     @FXML private Button quickLog1Button;
     @FXML private Button quickLog4Button;
     @FXML private Button quickLog8Button;
@@ -62,9 +78,20 @@ public class TeamMemberDashboardController {
     private ProjectDAO projectDAO;
     private TimeLogDAO timeLogDAO;
     private User currentUser;
+    private AsyncDataLoader dataLoader;
+    private PagedTableLoader<TimeLogView, LocalDate> timeLogPages;
+    private ChangeFeed.Subscription<TimeLog> timeLogChanges;
+    // Queued time logs acknowledged to the user but not committed yet; FX thread only
+    private int uncommittedLogs;
+    private boolean queueStatusCheckScheduled;
+    private ChangeFeed.Subscription<Task> taskChanges;
+    // Date range of the time log listing; null for unbounded
+    private LocalDate logStartDate;
+    private LocalDate logEndDate;
 
     public void initialize() {
         authService = new AuthenticationService();
+        dataLoader = new AsyncDataLoader(getClass().getSimpleName());
         taskDAO = new TaskDAO();
         projectDAO = new ProjectDAO();
         timeLogDAO = new TimeLogDAO();
@@ -73,6 +100,7 @@ public class TeamMemberDashboardController {
         setupWelcomeMessage();
         setupTables();
         setupDatePickers();
+        subscribeToChanges();
         loadData();
     }
 
@@ -88,6 +116,8 @@ public class TeamMemberDashboardController {
         logHoursColumn.setCellValueFactory(new PropertyValueFactory<>("hours"));
         logDescriptionColumn.setCellValueFactory(new PropertyValueFactory<>("description"));
         logCreatedColumn.setCellValueFactory(new PropertyValueFactory<>("createdAt"));
+        timeLogPages = new PagedTableLoader<>(timeLogsTable, dataLoader, "member-time-logs",
+            TimeLogView::getDate, TimeLogView::getId, true, this::handleLoadError);
         
         // My Tasks Table
         myTaskIdColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
@@ -131,71 +161,212 @@ public class TeamMemberDashboardController {
     private void loadData() {
         loadMyTasks();
         loadMyTimeLogs();
-        updateTotalHours();
     }
 
     private void loadMyTasks() {
-        List<Task> tasks = taskDAO.getTasksByUserId(currentUser.getId());
-        
+        StagedTableRenderer.showLoading(myTasksTable);
+        dataLoader.loadAsync("member-tasks", () -> taskDAO.findTaskSummaries(currentUser.getId()),
+            this::showMyTasks, this::handleLoadError);
+    }
+
+    private void showMyTasks(List<TaskSummary> tasks) {
         // Load for combo box
+        Task selected = taskComboBox.getValue();
         taskComboBox.setItems(FXCollections.observableArrayList(tasks));
-        if (!tasks.isEmpty()) {
+        if (selected != null) {
+            tasks.stream()
+                .filter(task -> task.getId() == selected.getId())
+                .findFirst()
+                .ifPresent(task -> taskComboBox.getSelectionModel().select(task));
+        }
+        if (taskComboBox.getValue() == null && !tasks.isEmpty()) {
             taskComboBox.getSelectionModel().selectFirst();
         }
         
         // Load for my tasks table
-        ObservableList<MyTaskView> taskViews = FXCollections.observableArrayList();
-        for (Task task : tasks) {
-            Project project = projectDAO.getProjectById(task.getProjectId());
-            String projectTitle = project != null ? project.getTitle() : "Unknown";
-            double actualHours = timeLogDAO.getTotalHoursByTaskId(task.getId());
-            
-            MyTaskView taskView = new MyTaskView(
-                task.getId(),
-                task.getTitle(),
-                projectTitle,
-                task.getStatus().getDisplayName(),
-                task.getDueDate(),
-                task.getEstimatedHours(),
-                actualHours
-            );
-            taskViews.add(taskView);
+        List<MyTaskView> taskViews = new ArrayList<>(tasks.size());
+        for (TaskSummary task : tasks) {
+            taskViews.add(toMyTaskView(task));
         }
         
-        myTasksTable.setItems(taskViews);
+        StagedTableRenderer.render(myTasksTable, taskViews);
     }
 
-    private void loadMyTimeLogs() {
-        List<TimeLog> timeLogs = timeLogDAO.getTimeLogsByUserId(currentUser.getId());
-        ObservableList<TimeLogView> logViews = FXCollections.observableArrayList();
+    private MyTaskView toMyTaskView(TaskSummary task) {
+        String projectTitle = task.getProjectTitle() != null ? task.getProjectTitle() : "Unknown";
         
+        return new MyTaskView(
+            task.getId(),
+            task.getTitle(),
+            projectTitle,
+            task.getStatus().getDisplayName(),
+            task.getDueDate(),
+            task.getEstimatedHours(),
+            task.getActualHours()
+        );
+    }
+
+    /**
+     * Applies committed changes to the open tables: the user's new or edited time logs go
+     * straight into the log table, and tasks they touch are re-read for their actual hours
+     */
+    private void subscribeToChanges() {
+        ChangeFeed feed = ChangeFeed.getInstance();
+        timeLogChanges = feed.subscribe(TimeLog.class, Platform::runLater, events -> {
+            Set<Integer> changedTasks = new LinkedHashSet<>();
+            boolean listingChanged = false;
+            for (ChangeEvent<TimeLog> event : events) {
+                TimeLog log = event.getRow();
+                TimeLog previous = event.getPrevious();
+                boolean shown = log != null && isListed(log);
+                boolean wasShown = previous != null && isListed(previous);
+                if (shown) {
+                    timeLogPages.upsert(toLogView(log));
+                } else {
+                    timeLogPages.remove(event.getId());
+                }
+                listingChanged |= shown || wasShown;
+                if (log != null && log.getUserId() == currentUser.getId()) {
+                    changedTasks.add(log.getTaskId());
+                }
+                if (previous != null && previous.getUserId() == currentUser.getId()) {
+                    changedTasks.add(previous.getTaskId());
+                }
+            }
+            if (listingChanged) {
+                loadTotalHours();
+            }
+            refreshMyTasks(changedTasks);
+        });
+        taskChanges = feed.subscribe(Task.class, Platform::runLater, events -> {
+            Set<Integer> changedTasks = new LinkedHashSet<>();
+            for (ChangeEvent<Task> event : events) {
+                Task task = event.getRow();
+                if (event.isDelete()) {
+                    removeMyTask(event.getId());
+                } else if (task.getAssignedUserId() == currentUser.getId() || indexOfMyTask(event.getId()) >= 0) {
+                    changedTasks.add(event.getId());
+                }
+            }
+            refreshMyTasks(changedTasks);
+        });
+    }
+
+    private boolean isListed(TimeLog log) {
+        return log.getUserId() == currentUser.getId()
+            && (logStartDate == null || !log.getDate().isBefore(logStartDate))
+            && (logEndDate == null || !log.getDate().isAfter(logEndDate));
+    }
+
+    /**
+     * Re-reads the given tasks and puts them in, or takes them out of, the user's task table
+     */
+    private void refreshMyTasks(Set<Integer> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        dataLoader.loadAsync(() -> taskDAO.findTaskSummariesByIds(taskIds), tasks -> {
+            for (TaskSummary task : tasks) {
+                if (task.getAssignedUserId() != currentUser.getId()) {
+                    removeMyTask(task.getId());
+                    continue;
+                }
+                MyTaskView taskView = toMyTaskView(task);
+                List<MyTaskView> rows = myTasksTable.getItems();
+                int index = indexOfMyTask(task.getId());
+                if (index >= 0) {
+                    rows.set(index, taskView);
+                } else {
+                    // Ordered by due date, like findTaskSummaries
+                    int position = 0;
+                    while (position < rows.size() && task.getDueDate() != null && rows.get(position).getDueDate() != null
+                            && !rows.get(position).getDueDate().isAfter(task.getDueDate())) {
+                        position++;
+                    }
+                    rows.add(position, taskView);
+                    taskComboBox.getItems().add(task);
+                }
+            }
+        }, this::handleLoadError);
+    }
+
+    private int indexOfMyTask(int taskId) {
+        List<MyTaskView> rows = myTasksTable.getItems();
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).getId() == taskId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeMyTask(int taskId) {
+        int index = indexOfMyTask(taskId);
+        if (index >= 0) {
+            myTasksTable.getItems().remove(index);
+        }
+        taskComboBox.getItems().removeIf(task -> task.getId() == taskId);
+    }
+
+    private void loadMyTimeLogs() {
+        showTimeLogs(null, null);
+    }
+
+    /**
+     * Pages through the user's time logs in a date range, newest first
+     * @param startDate First day, or null for no lower bound
+     * @param endDate Last day, or null for no upper bound
+     */
+    private void showTimeLogs(LocalDate startDate, LocalDate endDate) {
+        // Refresh and filter share the table, so the newest request wins
+        int userId = currentUser.getId();
+        logStartDate = startDate;
+        logEndDate = endDate;
+        timeLogPages.reload(page -> toLogViews(timeLogDAO.find(
+            TimeLogQuery.all().forUser(userId).between(startDate, endDate).page(page))));
+        loadTotalHours();
+    }
+
+    private void loadTotalHours() {
+        int userId = currentUser.getId();
+        LocalDate startDate = logStartDate;
+        LocalDate endDate = logEndDate;
+        dataLoader.loadLatestAsync("member-total-hours",
+            () -> timeLogDAO.sumHours(TimeLogQuery.all().forUser(userId).between(startDate, endDate)),
+            total -> totalHoursLabel.setText(String.format("Total Hours: %.1f", total)),
+            this::handleLoadError);
+    }
+
+    private List<TimeLogView> toLogViews(List<TimeLog> timeLogs) {
+        List<TimeLogView> logViews = new ArrayList<>(timeLogs.size());
         for (TimeLog log : timeLogs) {
-            // Get task and project info
-            String taskTitle = "Task " + log.getTaskId(); // Simplified
-            String projectTitle = "Project"; // Simplified
-            
-            String createdAt = log.getCreatedAt() != null ? 
-                log.getCreatedAt().format(DateTimeFormatter.ofPattern("MM/dd HH:mm")) : "";
-            
-            TimeLogView logView = new TimeLogView(
-                log.getDate(),
-                taskTitle,
-                projectTitle,
-                log.getHoursSpent(),
-                log.getDescription(),
-                createdAt
-            );
-            logViews.add(logView);
+            logViews.add(toLogView(log));
         }
+        return logViews;
+    }
+
+    private TimeLogView toLogView(TimeLog log) {
+        // Get task and project info
+        String taskTitle = "Task " + log.getTaskId(); // Simplified
+        String projectTitle = "Project"; // Simplified
+        
+        String createdAt = log.getCreatedAt() != null ? 
+            log.getCreatedAt().format(CREATED_FORMAT) : "";
         
-        timeLogsTable.setItems(logViews);
+        return new TimeLogView(
+            log.getId(),
+            log.getDate(),
+            taskTitle,
+            projectTitle,
+            log.getHoursSpent(),
+            log.getDescription(),
+            createdAt
+        );
     }
 
-    private void updateTotalHours() {
-        double total = timeLogsTable.getItems().stream()
-            .mapToDouble(TimeLogView::getHours)
-            .sum();
-        totalHoursLabel.setText(String.format("Total Hours: %.1f", total));
+    private void handleLoadError(Exception e) {
+        e.printStackTrace();
+        showAlert("Error", "Failed to load data: " + e.getMessage());
     }
 
     @FXML
@@ -235,26 +406,90 @@ public class TeamMemberDashboardController {
                 description
             );
 
-            if (timeLogDAO.createTimeLog(timeLog)) {
-                // Clear form
+            TimeLogIngestionQueue ingestionQueue = TimeLogIngestionQueue.getInstance();
+            if (!ingestionQueue.isRunning()) {
+                logTimeSynchronously(timeLog);
+                return;
+            }
+            // Reported saved once forced to the journal, which survives a crash and does not wait
+            // on the database; the new log and the task's hours arrive through the change feed
+            logTimeButton.setDisable(true);
+            TimeLogIngestionQueue.Submission submission = ingestionQueue.submit(timeLog);
+            submission.journaled().whenComplete((journaled, e) -> Platform.runLater(() -> {
+                logTimeButton.setDisable(false);
+                if (e != null) {
+                    showAlert("Error", "Failed to log time: " + e.getMessage());
+                    return;
+                }
                 hoursField.clear();
                 descriptionArea.clear();
-                
-                // Refresh data
-                loadMyTimeLogs();
-                loadMyTasks(); // Refresh to update actual hours
-                updateTotalHours();
-                
+                uncommittedLogs++;
+                updateQueueStatus();
                 showAlert("Success", "Time logged successfully!");
-            } else {
-                showAlert("Error", "Failed to log time!");
-            }
+            }));
+            submission.committed().whenComplete((committed, e) -> Platform.runLater(() -> {
+                if (submission.journaled().isCompletedExceptionally()) {
+                    // Already reported as not logged
+                    return;
+                }
+                uncommittedLogs--;
+                updateQueueStatus();
+                if (e != null) {
+                    showAlert("Error", "A logged time entry could not be saved: " + e.getMessage());
+                }
+            }));
 
         } catch (NumberFormatException e) {
             showAlert("Error", "Please enter a valid number for hours");
         }
     }
 
+    /**
+     * Shows how many logged entries are still waiting for the database, and whether it is
+     * unavailable; rechecked while any are waiting
+     */
+    private void updateQueueStatus() {
+        if (uncommittedLogs == 0) {
+            logTimeStatusLabel.setVisible(false);
+            return;
+        }
+        String entries = uncommittedLogs == 1 ? "1 entry" : uncommittedLogs + " entries";
+        if (TimeLogIngestionQueue.getInstance().isRetrying()) {
+            logTimeStatusLabel.setText("Queued – database unavailable. " + entries
+                + " will be saved when it is back.");
+        } else {
+            logTimeStatusLabel.setText("Saving " + entries + "...");
+        }
+        logTimeStatusLabel.setVisible(true);
+        if (!queueStatusCheckScheduled) {
+            queueStatusCheckScheduled = true;
+            CompletableFuture.delayedExecutor(QUEUE_STATUS_CHECK_MS, TimeUnit.MILLISECONDS)
+                .execute(() -> Platform.runLater(() -> {
+                    queueStatusCheckScheduled = false;
+                    updateQueueStatus();
+                }));
+        }
+    }
+
+    private void logTimeSynchronously(TimeLog timeLog) {
+        logTimeButton.setDisable(true);
+        dataLoader.loadAsync(() -> timeLogDAO.createTimeLog(timeLog), created -> {
+            logTimeButton.setDisable(false);
+            if (created) {
+                // Clear form; the new log and the task's hours arrive through the change feed
+                hoursField.clear();
+                descriptionArea.clear();
+
+                showAlert("Success", "Time logged successfully!");
+            } else {
+                showAlert("Error", "Failed to log time!");
+            }
+        }, e -> {
+            logTimeButton.setDisable(false);
+            handleLoadError(e);
+        });
+    }
+
     @FXML
     private void handleQuickLog1() {
         hoursField.setText("1.0");
@@ -276,38 +511,13 @@ public class TeamMemberDashboardController {
         LocalDate endDate = filterEndDate.getValue();
         
         if (startDate != null && endDate != null) {
-            List<TimeLog> filteredLogs = timeLogDAO.getTimeLogsByDateRange(startDate, endDate)
-                .stream()
-                .filter(log -> log.getUserId() == currentUser.getId())
-                .toList();
-            
-            ObservableList<TimeLogView> logViews = FXCollections.observableArrayList();
-            for (TimeLog log : filteredLogs) {
-                String taskTitle = "Task " + log.getTaskId();
-                String projectTitle = "Project";
-                String createdAt = log.getCreatedAt() != null ? 
-                    log.getCreatedAt().format(DateTimeFormatter.ofPattern("MM/dd HH:mm")) : "";
-                
-                TimeLogView logView = new TimeLogView(
-                    log.getDate(),
-                    taskTitle,
-                    projectTitle,
-                    log.getHoursSpent(),
-                    log.getDescription(),
-                    createdAt
-                );
-                logViews.add(logView);
-            }
-            
-            timeLogsTable.setItems(logViews);
-            updateTotalHours();
+            showTimeLogs(startDate, endDate);
         }
     }
 
     @FXML
     private void handleRefreshLogs() {
         loadMyTimeLogs();
-        updateTotalHours();
     }
 
     @FXML
@@ -322,19 +532,22 @@ public class TeamMemberDashboardController {
         dialog.setHeaderText("Update status for: " + taskView.getTitle());
         dialog.setContentText("Select new status:");
 
-        dialog.showAndWait().ifPresent(newStatus -> {
-            if (taskDAO.updateTaskStatus(taskView.getId(), newStatus)) {
-                loadMyTasks();
-                showAlert("Success", "Task status updated successfully!");
-            } else {
-                showAlert("Error", "Failed to update task status!");
-            }
-        });
+        dialog.showAndWait().ifPresent(newStatus -> dataLoader.loadAsync(
+            () -> taskDAO.updateTaskStatus(taskView.getId(), newStatus), updated -> {
+                if (updated) {
+                    showAlert("Success", "Task status updated successfully!");
+                } else {
+                    showAlert("Error", "Failed to update task status!");
+                }
+            }, this::handleLoadError));
     }
 
     @FXML
     private void handleLogout() {
         try {
+            timeLogChanges.close();
+            taskChanges.close();
+            dataLoader.dispose();
             authService.logout();
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/login.fxml"));
             Scene scene = new Scene(loader.load(), 800, 600);
@@ -357,6 +570,7 @@ public class TeamMemberDashboardController {
 
     // Helper classes for table views
     public static class TimeLogView {
+        private int id;
         private LocalDate date;
         private String taskTitle;
         private String projectTitle;
@@ -364,8 +578,9 @@ public class TeamMemberDashboardController {
         private String description;
         private String createdAt;
 
-        public TimeLogView(LocalDate date, String taskTitle, String projectTitle, 
+        public TimeLogView(int id, LocalDate date, String taskTitle, String projectTitle, 
                           double hours, String description, String createdAt) {
+            this.id = id;
             this.date = date;
             this.taskTitle = taskTitle;
             this.projectTitle = projectTitle;
@@ -375,6 +590,7 @@ public class TeamMemberDashboardController {
         }
 
         // Getters
+        public int getId() { return id; }
         public LocalDate getDate() { return date; }
         public String getTaskTitle() { return taskTitle; }
         public String getProjectTitle() { return projectTitle; }
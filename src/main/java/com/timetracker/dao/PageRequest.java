@@ -0,0 +1,112 @@
+package com.timetracker.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) paginated listing. Listings are sorted by one
+ * column and then by id, so every row has a unique position; a page starts
+ * strictly after the last row of the previous page (or, paging backwards,
+ * strictly before the first row of the next one). Unlike OFFSET, the cost of
+ * a page does not depend on how deep into the listing it is.
+ * @param <K> Type of the sort column
+ */
+public final class PageRequest<K> {
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+
+    private final K sortKey;
+    private final int id;
+    private final boolean anchored;
+    private final boolean backward;
+    private final int limit;
+
+    private PageRequest(K sortKey, int id, boolean anchored, boolean backward, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+        this.sortKey = sortKey;
+        this.id = id;
+        this.anchored = anchored;
+        this.backward = backward;
+        this.limit = limit;
+    }
+
+    public static <K> PageRequest<K> first(int limit) {
+        return new PageRequest<>(null, 0, false, false, limit);
+    }
+
+    /**
+     * @param sortKey Sort column value of the last row already shown
+     * @param id ID of that row
+     */
+    public static <K> PageRequest<K> after(K sortKey, int id, int limit) {
+        return new PageRequest<>(sortKey, id, true, false, limit);
+    }
+
+    /**
+     * @param sortKey Sort column value of the first row already shown
+     * @param id ID of that row
+     */
+    public static <K> PageRequest<K> before(K sortKey, int id, int limit) {
+        return new PageRequest<>(sortKey, id, true, true, limit);
+    }
+
+    public int getLimit() { return limit; }
+    public boolean isBackward() { return backward; }
+
+    /**
+     * Seek condition for the WHERE clause, "TRUE" for a first page. It is written as
+     * {@code sort <= ? AND (sort < ? OR id < ?)} (for a descending listing) rather than a
+     * row value comparison so the leading range can use an index on the sort column.
+     * Bind its parameters with {@link #bind}.
+     * @param sortColumn Sort column or expression; must not be null for any row
+     */
+    String seekCondition(String sortColumn, String idColumn, boolean descending) {
+        if (!anchored) {
+            return "TRUE";
+        }
+        // Paging backwards through a descending listing seeks upwards, and vice versa
+        String op = descending != backward ? "<" : ">";
+        return sortColumn + " " + op + "= ? AND (" + sortColumn + " " + op + " ? OR " + idColumn + " " + op + " ?)";
+    }
+
+    /**
+     * ORDER BY and LIMIT for the page; backward pages are read in reverse and flipped by {@link #inDisplayOrder}
+     */
+    String orderAndLimit(String sortColumn, String idColumn, boolean descending) {
+        String direction = descending != backward ? "DESC" : "ASC";
+        if (sortColumn.equals(idColumn)) {
+            // Repeating the column would keep H2 from reading the rows in index order
+            return "ORDER BY " + idColumn + " " + direction + " LIMIT " + limit;
+        }
+        return "ORDER BY " + sortColumn + " " + direction + ", " + idColumn + " " + direction + " LIMIT " + limit;
+    }
+
+    /**
+     * Binds the seek condition's parameters
+     * @param index Index of the condition's first parameter
+     * @return Index of the next parameter
+     */
+    int bind(PreparedStatement stmt, int index) throws SQLException {
+        if (!anchored) {
+            return index;
+        }
+        stmt.setObject(index++, sortKey);
+        stmt.setObject(index++, sortKey);
+        stmt.setInt(index++, id);
+        return index;
+    }
+
+    /**
+     * @return The rows in the listing's order
+     */
+    <T> List<T> inDisplayOrder(List<T> rows) {
+        if (backward) {
+            Collections.reverse(rows);
+        }
+        return rows;
+    }
+}
@@ -1,15 +1,31 @@
 package com.timetracker.dao;
 
 import com.timetracker.model.Project;
+import com.timetracker.util.ChangeEvent;
+import com.timetracker.util.ChangeFeed;
 import com.timetracker.util.DatabaseManager;
+import com.timetracker.util.EntityCache;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class ProjectDAO {
     
+    // Shared by all ProjectDAO instances so every dashboard benefits from the same warm entries
+    private static final EntityCache<Integer, Project> PROJECT_CACHE = new EntityCache<>("Project",
+        Integer.getInteger("timetracker.cache.maxSize", 1000), Long.getLong("timetracker.cache.ttlSeconds", 0L));
+    
+    public static EntityCache.Stats getCacheStats() {
+        return PROJECT_CACHE.getStats();
+    }
+    
     public List<Project> getAllProjects() {
         List<Project> projects = new ArrayList<>();
         String query = "SELECT * FROM projects ORDER BY title";
@@ -27,11 +43,36 @@ public class ProjectDAO {
         return projects;
     }
     
+    /**
+     * One page of all projects ordered by title, then ID (keyset pagination)
+     * @param page Page position, keyed by title
+     */
+    public List<Project> getProjectPage(PageRequest<String> page) {
+        List<Project> projects = new ArrayList<>();
+        String query = "SELECT * FROM projects WHERE " + page.seekCondition("title", "id", false) + " "
+            + page.orderAndLimit("title", "id", false);
+        
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            page.bind(stmt, 1);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    projects.add(mapResultSetToProject(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return page.inDisplayOrder(projects);
+    }
+    
     public boolean createProject(Project project) {
         String query = "INSERT INTO projects (title, description, start_date, end_date, status) VALUES (?, ?, ?, ?, ?)";
         
         try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+             PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
             
             stmt.setString(1, project.getTitle());
             stmt.setString(2, project.getDescription());
@@ -39,7 +80,16 @@ public class ProjectDAO {
             stmt.setDate(4, Date.valueOf(project.getEndDate()));
             stmt.setString(5, project.getStatus().name());
             
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() > 0) {
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        project.setId(keys.getInt(1));
+                        PROJECT_CACHE.invalidate(project.getId());
+                        ChangeFeed.getInstance().publish(ChangeEvent.inserted(Project.class, project.getId(), project));
+                    }
+                }
+                return true;
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -47,6 +97,46 @@ public class ProjectDAO {
     }
     
     public Project getProjectById(int id) {
+        return PROJECT_CACHE.get(id, this::loadProjectById);
+    }
+    
+    /**
+     * Looks up several projects, loading all cache misses with one IN query
+     * @param ids Project IDs
+     * @return Map of ID to project for the IDs that exist
+     */
+    public Map<Integer, Project> getProjectsByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return PROJECT_CACHE.getMany(ids, this::loadProjectsByIds);
+    }
+    
+    private Map<Integer, Project> loadProjectsByIds(Set<Integer> ids) {
+        Map<Integer, Project> projects = new HashMap<>();
+        String query = "SELECT * FROM projects WHERE id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            int index = 1;
+            for (Integer id : ids) {
+                stmt.setInt(index++, id);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Project project = mapResultSetToProject(rs);
+                    projects.put(project.getId(), project);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return projects;
+    }
+    
+    private Project loadProjectById(int id) {
         String query = "SELECT * FROM projects WHERE id = ?";
         
         try (Connection conn = DatabaseManager.getInstance().getConnection();
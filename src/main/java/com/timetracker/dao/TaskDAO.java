@@ -1,12 +1,22 @@
 package com.timetracker.dao;
 
+import com.timetracker.exception.DatabaseException;
 import com.timetracker.model.Task;
+import com.timetracker.model.TaskSummary;
+import com.timetracker.search.SearchIndex;
 import com.timetracker.util.DatabaseManager;
+import com.timetracker.util.ChangeEvent;
+import com.timetracker.util.ChangeFeed;
+import com.timetracker.util.HoursAggregator;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TaskDAO {
     
@@ -47,11 +57,190 @@ public class TaskDAO {
         return tasks;
     }
     
+    /**
+     * Loads task rows for the dashboards in a single round trip, joining the
+     * project title, assignee name and summed hours instead of looking them up per task
+     * @param assignedUserId Only tasks assigned to this user, or null for all tasks
+     * @return Task summaries ordered by due date (per user) or by title (all tasks)
+     */
+    public List<TaskSummary> findTaskSummaries(Integer assignedUserId) {
+        List<TaskSummary> summaries = new ArrayList<>();
+        String query = """
+            SELECT t.*, p.title AS project_title, u.full_name AS assignee_name,
+                   COALESCE(h.total_hours, 0) AS actual_hours
+            FROM tasks t
+            LEFT JOIN projects p ON p.id = t.project_id
+            LEFT JOIN users u ON u.id = t.assigned_user_id
+            LEFT JOIN (
+                SELECT task_id, SUM(hours_spent) AS total_hours
+                FROM time_logs
+                GROUP BY task_id
+            ) h ON h.task_id = t.id
+            """
+            + (assignedUserId != null ? "WHERE t.assigned_user_id = ? ORDER BY t.due_date" : "ORDER BY t.title");
+        
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            if (assignedUserId != null) {
+                stmt.setInt(1, assignedUserId);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToTaskSummary(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return summaries;
+    }
+    
+    /**
+     * One page of all task summaries ordered by title, then ID (keyset pagination).
+     * Hours are summed only for the tasks on the page.
+     * @param page Page position, keyed by title
+     */
+    public List<TaskSummary> findTaskSummaryPage(PageRequest<String> page) {
+        List<TaskSummary> summaries = new ArrayList<>();
+        String query = """
+            SELECT t.*, p.title AS project_title, u.full_name AS assignee_name,
+                   (SELECT COALESCE(SUM(l.hours_spent), 0) FROM time_logs l WHERE l.task_id = t.id) AS actual_hours
+            FROM tasks t
+            LEFT JOIN projects p ON p.id = t.project_id
+            LEFT JOIN users u ON u.id = t.assigned_user_id
+            """ + "WHERE " + page.seekCondition("t.title", "t.id", false) + " "
+            + page.orderAndLimit("t.title", "t.id", false);
+        
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            page.bind(stmt, 1);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToTaskSummary(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return page.inDisplayOrder(summaries);
+    }
+    
+    /**
+     * Task summaries for the given task IDs, e.g. to refresh changed rows of a table
+     * @param taskIds Task IDs; IDs that do not exist are skipped
+     */
+    public List<TaskSummary> findTaskSummariesByIds(Collection<Integer> taskIds) {
+        List<TaskSummary> summaries = new ArrayList<>();
+        if (taskIds.isEmpty()) {
+            return summaries;
+        }
+        String query = """
+            SELECT t.*, p.title AS project_title, u.full_name AS assignee_name,
+                   (SELECT COALESCE(SUM(l.hours_spent), 0) FROM time_logs l WHERE l.task_id = t.id) AS actual_hours
+            FROM tasks t
+            LEFT JOIN projects p ON p.id = t.project_id
+            LEFT JOIN users u ON u.id = t.assigned_user_id
+            """ + "WHERE t.id IN (" + String.join(", ", Collections.nCopies(taskIds.size(), "?")) + ")";
+        
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            int index = 1;
+            for (Integer taskId : taskIds) {
+                stmt.setInt(index++, taskId);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToTaskSummary(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return summaries;
+    }
+    
+    /**
+     * One page of all tasks ordered by title, then ID (keyset pagination)
+     * @param page Page position, keyed by title
+     */
+    public List<Task> getTaskPage(PageRequest<String> page) {
+        List<Task> tasks = new ArrayList<>();
+        String query = "SELECT * FROM tasks WHERE " + page.seekCondition("title", "id", false) + " "
+            + page.orderAndLimit("title", "id", false);
+        
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            page.bind(stmt, 1);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    tasks.add(mapResultSetToTask(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return page.inDisplayOrder(tasks);
+    }
+    
+    /**
+     * Gets the tasks with an ID above the given one, in ID order
+     * @param afterId Exclusive lower bound; 0 returns every task
+     */
+    public List<Task> getTasksAfterId(int afterId) {
+        List<Task> tasks = new ArrayList<>();
+        String query = "SELECT * FROM tasks WHERE id > ? ORDER BY id";
+        
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, afterId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    tasks.add(mapResultSetToTask(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return tasks;
+    }
+    
+    /**
+     * Counts the tasks with an ID up to the given one (inclusive)
+     */
+    public int countUpToId(int maxId) {
+        String query = "SELECT COUNT(*) FROM tasks WHERE id <= ?";
+        
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, maxId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+    
     public boolean createTask(Task task) {
         String query = "INSERT INTO tasks (title, description, project_id, assigned_user_id, status, due_date, estimated_hours) VALUES (?, ?, ?, ?, ?, ?, ?)";
         
         try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+             PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
             
             stmt.setString(1, task.getTitle());
             stmt.setString(2, task.getDescription());
@@ -61,13 +250,63 @@ public class TaskDAO {
             stmt.setDate(6, Date.valueOf(task.getDueDate()));
             stmt.setInt(7, task.getEstimatedHours());
             
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() > 0) {
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        task.setId(keys.getInt(1));
+                        HoursAggregator.getInstance().registerTask(task.getId(), task.getProjectId());
+                        SearchIndex.getInstance().indexTask(task);
+                        ChangeFeed.getInstance().publish(ChangeEvent.inserted(Task.class, task.getId(), task));
+                    }
+                }
+                return true;
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return false;
     }
     
+    /**
+     * Maps every task ID to its project ID, reading on the caller's connection
+     * @throws DatabaseException if database operation fails
+     */
+    public Map<Integer, Integer> getTaskProjectIds(Connection conn) throws DatabaseException {
+        Map<Integer, Integer> taskProjects = new HashMap<>();
+        String query = "SELECT id, project_id FROM tasks WHERE project_id IS NOT NULL";
+        
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            
+            while (rs.next()) {
+                taskProjects.put(rs.getInt(1), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to load task projects", e);
+        }
+        return taskProjects;
+    }
+    
+    public Integer getProjectIdForTask(int taskId) {
+        String query = "SELECT project_id FROM tasks WHERE id = ?";
+        
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            stmt.setInt(1, taskId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    int projectId = rs.getInt(1);
+                    return rs.wasNull() ? null : projectId;
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+    
     public boolean updateTaskStatus(int taskId, Task.TaskStatus status) {
         String query = "UPDATE tasks SET status = ? WHERE id = ?";
         
@@ -77,15 +316,43 @@ public class TaskDAO {
             stmt.setString(1, status.name());
             stmt.setInt(2, taskId);
             
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            Task task = findById(conn, taskId);
+            if (task != null) {
+                ChangeFeed.getInstance().publish(ChangeEvent.updated(Task.class, taskId, task, null));
+            }
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return false;
     }
     
+    private Task findById(Connection conn, int taskId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM tasks WHERE id = ?")) {
+            stmt.setInt(1, taskId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapResultSetToTask(rs) : null;
+            }
+        }
+    }
+    
+    private TaskSummary mapResultSetToTaskSummary(ResultSet rs) throws SQLException {
+        TaskSummary summary = new TaskSummary();
+        mapResultSetToTask(rs, summary);
+        summary.setProjectTitle(rs.getString("project_title"));
+        summary.setAssigneeName(rs.getString("assignee_name"));
+        summary.setActualHours(rs.getDouble("actual_hours"));
+        return summary;
+    }
+    
     private Task mapResultSetToTask(ResultSet rs) throws SQLException {
-        Task task = new Task();
+        return mapResultSetToTask(rs, new Task());
+    }
+    
+    private <T extends Task> T mapResultSetToTask(ResultSet rs, T task) throws SQLException {
         task.setId(rs.getInt("id"));
         task.setTitle(rs.getString("title"));
         task.setDescription(rs.getString("description"));
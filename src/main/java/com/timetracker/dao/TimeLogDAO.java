@@ -1,24 +1,54 @@
 package com.timetracker.dao;
 
+import com.timetracker.analytics.TimeLogStore;
+import com.timetracker.exception.DatabaseException;
 import com.timetracker.model.TimeLog;
+import com.timetracker.search.SearchIndex;
 import com.timetracker.util.DatabaseManager;
+import com.timetracker.util.ChangeEvent;
+import com.timetracker.util.ChangeFeed;
+import com.timetracker.util.HoursAggregator;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class TimeLogDAO {
     
+    private final TimeLogRollupDAO rollupDAO = new TimeLogRollupDAO();
+    
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    // Rows per query of a paged scan
+    public static final int SCAN_PAGE_SIZE = 10_000;
+    
+    private static final String INSERT_TIME_LOG =
+        "INSERT INTO time_logs (task_id, user_id, date, hours_spent, description) VALUES (?, ?, ?, ?, ?)";
+    
     public List<TimeLog> getTimeLogsByUserId(int userId) {
         List<TimeLog> timeLogs = new ArrayList<>();
-        String query = "SELECT * FROM time_logs WHERE user_id = ? ORDER BY date DESC";
+        try {
+            streamByUserId(userId, timeLogs::add);
+        } catch (DatabaseException e) {
+            e.printStackTrace();
+            timeLogs.clear();
+        }
+        return timeLogs;
+    }
+    
+    /**
+     * Time logs matching a query spec, read with one statement
+     */
+    public List<TimeLog> find(TimeLogQuery query) {
+        List<TimeLog> timeLogs = new ArrayList<>();
         
         try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+             PreparedStatement stmt = conn.prepareStatement(query.toSql("*"))) {
             
-            stmt.setInt(1, userId);
+            query.bind(stmt, 1, true);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -28,66 +58,620 @@ public class TimeLogDAO {
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return timeLogs;
+        return query.inDisplayOrder(timeLogs);
     }
     
-    public boolean createTimeLog(TimeLog timeLog) {
-        String query = "INSERT INTO time_logs (task_id, user_id, date, hours_spent, description) VALUES (?, ?, ?, ?, ?)";
-        
+    /**
+     * Streams the time logs matching a query spec, in its order and up to its limit,
+     * without materializing them; read in keyset pages like {@link #scanRows}
+     * @param consumer Receives each row as it is read
+     * @return Number of rows streamed
+     * @throws DatabaseException if database operation fails
+     */
+    public long stream(TimeLogQuery query, Consumer<TimeLog> consumer) throws DatabaseException {
+        return scanPages(query, "*", (rs, date) -> consumer.accept(mapResultSetToTimeLog(rs)));
+    }
+    
+    /**
+     * Total hours of the time logs matching a query spec, summed in the database
+     */
+    public double sumHours(TimeLogQuery query) {
         try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+             PreparedStatement stmt = conn.prepareStatement(query.toAggregateSql("SUM(hours_spent)"))) {
             
-            stmt.setInt(1, timeLog.getTaskId());
-            stmt.setInt(2, timeLog.getUserId());
-            stmt.setDate(3, Date.valueOf(timeLog.getDate()));
-            stmt.setDouble(4, timeLog.getHoursSpent());
-            stmt.setString(5, timeLog.getDescription());
+            query.bind(stmt, 1, false);
             
-            return stmt.executeUpdate() > 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getDouble(1);
+                }
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return false;
+        return 0.0;
     }
     
-    public List<TimeLog> getTimeLogsByDateRange(LocalDate startDate, LocalDate endDate) {
-        List<TimeLog> timeLogs = new ArrayList<>();
-        String query = "SELECT * FROM time_logs WHERE date BETWEEN ? AND ? ORDER BY date DESC";
+    /**
+     * Number of time logs matching a query spec; order, limit and page do not apply
+     * @throws DatabaseException if database operation fails
+     */
+    public long count(TimeLogQuery query) throws DatabaseException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query.toAggregateSql("COUNT(*)"))) {
+            
+            query.bind(stmt, 1, false);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to count time logs: " + query, e);
+        }
+    }
+    
+    /**
+     * Streams the columns of the time logs matching a query spec, in its order and up to
+     * its limit, without creating TimeLog objects; for exports of any size. Unlike
+     * {@link #scanColumns(int, ColumnConsumer)} the task's project is not joined in,
+     * which halves the cost per row; callers resolve it from the task if needed.
+     * Rows are read in keyset pages of {@link #SCAN_PAGE_SIZE}, each a short query, so
+     * no cursor stays open for the whole scan and rows written meanwhile may be included.
+     * Use Sort.ID for large scans: its pages are read in primary key order, while the
+     * date sorts sort every page.
+     * The consumer may throw an unchecked exception to stop the scan.
+     * @return Number of rows streamed
+     * @throws DatabaseException if database operation fails
+     */
+    public long scanRows(TimeLogQuery query, RowConsumer consumer) throws DatabaseException {
+        return scanPages(query, "id, task_id, user_id, date, hours_spent, description", (rs, date) ->
+            consumer.accept(rs.getInt(1), rs.getInt(2), rs.getInt(3), (int) date.toEpochDay(),
+                (int) Math.round(rs.getDouble(5) * 100), rs.getString(6)));
+    }
+    
+    /**
+     * Reads the rows of a query spec in keyset pages of {@link #SCAN_PAGE_SIZE}, starting
+     * at the query's page if it has one
+     * @param columns Selected columns; the first must be id and the fourth date
+     */
+    private long scanPages(TimeLogQuery query, String columns, PageReader reader) throws DatabaseException {
+        long limit = query.getLimit() > 0 ? query.getLimit() : Long.MAX_VALUE;
+        boolean byId = query.getSort() == TimeLogQuery.Sort.ID;
+        PageRequest<?> page = query.getPage() != null ? query.getPage()
+            : PageRequest.first((int) Math.min(SCAN_PAGE_SIZE, limit));
+        long rows = 0;
+        
+        while (true) {
+            TimeLogQuery pageQuery = query.withPage(page);
+            int pageRows = 0;
+            int lastId = 0;
+            LocalDate lastDate = null;
+            
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(pageQuery.toSql(columns))) {
+                
+                pageQuery.bind(stmt, 1, true);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        lastId = rs.getInt(1);
+                        // LocalDate directly; java.sql.Date would convert through the default time zone
+                        lastDate = rs.getObject(4, LocalDate.class);
+                        reader.read(rs, lastDate);
+                        pageRows++;
+                    }
+                }
+            } catch (SQLException e) {
+                throw new DatabaseException("Failed to scan time logs: " + query, e);
+            }
+            
+            rows += pageRows;
+            if (pageRows < page.getLimit() || rows >= limit) {
+                return rows;
+            }
+            int size = (int) Math.min(SCAN_PAGE_SIZE, limit - rows);
+            page = byId ? PageRequest.after(lastId, lastId, size) : PageRequest.after(lastDate, lastId, size);
+        }
+    }
+    
+    /**
+     * Streams a user's time logs, newest first, without materializing them
+     * @param userId The user ID
+     * @param consumer Receives each row as it is read
+     * @return Number of rows streamed
+     * @throws DatabaseException if database operation fails
+     */
+    public long streamByUserId(int userId, Consumer<TimeLog> consumer) throws DatabaseException {
+        return stream(TimeLogQuery.all().forUser(userId), consumer);
+    }
+    
+    /**
+     * Streams time logs with an ID above the given one, in ID order
+     * @param afterId Exclusive lower bound; 0 streams every row
+     * @param consumer Receives each row as it is read
+     * @return Number of rows streamed
+     * @throws DatabaseException if database operation fails
+     */
+    public long streamAfterId(int afterId, Consumer<TimeLog> consumer) throws DatabaseException {
+        return stream(TimeLogQuery.all().orderBy(TimeLogQuery.Sort.ID)
+            .page(PageRequest.after(afterId, afterId, SCAN_PAGE_SIZE)), consumer);
+    }
+    
+    /**
+     * Counts the time logs with an ID up to the given one (inclusive)
+     */
+    public int countUpToId(int maxId) {
+        String query = "SELECT COUNT(*) FROM time_logs WHERE id <= ?";
         
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             
-            stmt.setDate(1, Date.valueOf(startDate));
-            stmt.setDate(2, Date.valueOf(endDate));
+            stmt.setInt(1, maxId);
             
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    timeLogs.add(mapResultSetToTimeLog(rs));
+                if (rs.next()) {
+                    return rs.getInt(1);
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return timeLogs;
+        return 0;
     }
     
-    public double getTotalHoursByTaskId(int taskId) {
-        String query = "SELECT SUM(hours_spent) FROM time_logs WHERE task_id = ?";
-        
+    public boolean createTimeLog(TimeLog timeLog) {
         try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_TIME_LOG, Statement.RETURN_GENERATED_KEYS)) {
             
-            stmt.setInt(1, taskId);
+            conn.setAutoCommit(false);
+            try {
+                bindTimeLog(stmt, timeLog);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        timeLog.setId(keys.getInt(1));
+                    }
+                }
+                rollupDAO.applyDeltas(conn, List.of(timeLog), 1);
+                HoursAggregator.getInstance().commit(conn, List.of(), List.of(timeLog));
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
             
+            TimeLogStore.getInstance().recordTimeLog(timeLog);
+            SearchIndex.getInstance().indexTimeLog(timeLog);
+            ChangeFeed.getInstance().publish(ChangeEvent.inserted(TimeLog.class, timeLog.getId(), timeLog));
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+    
+    /**
+     * Updates an existing time log, moving its hours in the rollups and running totals
+     * @param timeLog Time log with a valid ID
+     * @return true if the row existed and was updated
+     */
+    public boolean updateTimeLog(TimeLog timeLog) {
+        try {
+            return update(timeLog, 0);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+    
+    /**
+     * Applies a journaled update, checkpointing its journal sequence in the same transaction
+     * @return true if the row existed and was updated
+     * @throws DatabaseException if the update could not be committed
+     */
+    public boolean updateJournaledTimeLog(TimeLog timeLog, long journalSequence) throws DatabaseException {
+        try {
+            return update(timeLog, journalSequence);
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to apply journaled update of time log " + timeLog.getId(), e);
+        }
+    }
+    
+    /**
+     * Deletes a time log and takes its hours out of the rollups and running totals
+     * @return true if the row existed and was deleted
+     */
+    public boolean deleteTimeLog(int id) {
+        try {
+            return delete(id, 0);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+    
+    /**
+     * Applies a journaled delete, checkpointing its journal sequence in the same transaction
+     * @return true if the row existed and was deleted
+     * @throws DatabaseException if the delete could not be committed
+     */
+    public boolean deleteJournaledTimeLog(int id, long journalSequence) throws DatabaseException {
+        try {
+            return delete(id, journalSequence);
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to apply journaled delete of time log " + id, e);
+        }
+    }
+    
+    private boolean update(TimeLog timeLog, long journalSequence) throws SQLException {
+        String query = "UPDATE time_logs SET task_id = ?, user_id = ?, date = ?, hours_spent = ?, description = ? WHERE id = ?";
+        
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                TimeLog previous = findByIdForUpdate(conn, timeLog.getId());
+                if (previous == null) {
+                    // Nothing to update, but a journaled update still counts as applied
+                    markJournalApplied(conn, journalSequence);
+                    conn.commit();
+                    return false;
+                }
+                
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    bindTimeLog(stmt, timeLog);
+                    stmt.setInt(6, timeLog.getId());
+                    stmt.executeUpdate();
+                }
+                rollupDAO.applyDeltas(conn, List.of(previous), -1);
+                rollupDAO.applyDeltas(conn, List.of(timeLog), 1);
+                markJournalApplied(conn, journalSequence);
+                HoursAggregator.getInstance().commit(conn, List.of(previous), List.of(timeLog));
+                
+                TimeLogStore.getInstance().recordTimeLog(timeLog);
+                SearchIndex.getInstance().indexTimeLog(timeLog);
+                ChangeFeed.getInstance().publish(ChangeEvent.updated(TimeLog.class, timeLog.getId(), timeLog, previous));
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+    
+    private boolean delete(int id, long journalSequence) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                TimeLog previous = findByIdForUpdate(conn, id);
+                if (previous != null) {
+                    try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM time_logs WHERE id = ?")) {
+                        stmt.setInt(1, id);
+                        stmt.executeUpdate();
+                    }
+                    rollupDAO.applyDeltas(conn, List.of(previous), -1);
+                }
+                markJournalApplied(conn, journalSequence);
+                HoursAggregator.getInstance().commit(conn, previous == null ? List.of() : List.of(previous), List.of());
+                if (previous == null) {
+                    return false;
+                }
+                
+                TimeLogStore.getInstance().removeTimeLog(id);
+                SearchIndex.getInstance().removeTimeLog(id);
+                ChangeFeed.getInstance().publish(ChangeEvent.deleted(TimeLog.class, id, previous));
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+    
+    private TimeLog findByIdForUpdate(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM time_logs WHERE id = ? FOR UPDATE")) {
+            stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble(1);
+                return rs.next() ? mapResultSetToTimeLog(rs) : null;
+            }
+        }
+    }
+    
+    public BatchInsertResult createTimeLogs(Iterable<TimeLog> timeLogs) {
+        return createTimeLogs(timeLogs, DEFAULT_BATCH_SIZE);
+    }
+    
+    /**
+     * Bulk insert using JDBC batching, one transaction per chunk.
+     * Rows failing TimeLog.isValid() are reported as rejected and skipped;
+     * if a chunk fails in the database only that chunk is rolled back.
+     * Generated ids are written back into the inserted TimeLog objects.
+     * @param timeLogs Rows to insert
+     * @param batchSize Rows per executeBatch/commit
+     * @return Inserted count plus the rejected rows with reasons
+     */
+    public BatchInsertResult createTimeLogs(Iterable<TimeLog> timeLogs, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        BatchInsertResult result = new BatchInsertResult();
+        try {
+            insertInChunks(timeLogs, batchSize, 0, result);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return result;
+    }
+    
+    /**
+     * Inserts one group-commit batch from the ingestion journal in a single transaction
+     * that also records the batch's last journal sequence, so replaying the journal
+     * after a crash never inserts a row twice.
+     * @param timeLogs Journaled rows, in journal order
+     * @param journalSequence Sequence of the last row in the batch
+     * @return Inserted count plus the rows the database refused outright (bad values, missing task or user)
+     * @throws DatabaseException if the batch could not be committed, e.g. on a lock timeout; nothing was applied
+     */
+    public BatchInsertResult createJournaledTimeLogs(List<TimeLog> timeLogs, long journalSequence) throws DatabaseException {
+        BatchInsertResult result = new BatchInsertResult();
+        try {
+            insertInChunks(timeLogs, Math.max(1, timeLogs.size()), journalSequence, result);
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to apply time log journal through sequence " + journalSequence, e);
+        }
+        return result;
+    }
+    
+    /**
+     * @return Sequence of the last journal entry committed to time_logs
+     * @throws DatabaseException if database operation fails
+     */
+    public long getAppliedJournalSequence() throws DatabaseException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT applied_sequence FROM time_log_journal_checkpoint WHERE id = 1")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to read the time log journal checkpoint", e);
+        }
+    }
+    
+    /**
+     * @param journalSequence Journal sequence to checkpoint with each chunk's commit, 0 for none
+     */
+    private void insertInChunks(Iterable<TimeLog> timeLogs, int batchSize, long journalSequence,
+                                BatchInsertResult result) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_TIME_LOG, Statement.RETURN_GENERATED_KEYS)) {
+            
+            conn.setAutoCommit(false);
+            List<TimeLog> chunk = new ArrayList<>(batchSize);
+            List<Integer> chunkRows = new ArrayList<>(batchSize);
+            int rowIndex = 0;
+            
+            for (TimeLog timeLog : timeLogs) {
+                if (timeLog == null || !timeLog.isValid()) {
+                    result.reject(rowIndex++, timeLog, "Failed validation");
+                    continue;
+                }
+                bindTimeLog(stmt, timeLog);
+                stmt.addBatch();
+                chunk.add(timeLog);
+                chunkRows.add(rowIndex++);
+                
+                if (chunk.size() == batchSize) {
+                    flushChunk(conn, stmt, chunk, chunkRows, journalSequence, result);
                 }
             }
+            if (!chunk.isEmpty() || journalSequence > 0) {
+                flushChunk(conn, stmt, chunk, chunkRows, journalSequence, result);
+            }
+        }
+    }
+    
+    private void markJournalApplied(Connection conn, long journalSequence) throws SQLException {
+        if (journalSequence <= 0) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE time_log_journal_checkpoint SET applied_sequence = ? WHERE id = 1 AND applied_sequence < ?")) {
+            stmt.setLong(1, journalSequence);
+            stmt.setLong(2, journalSequence);
+            stmt.executeUpdate();
+        }
+    }
+    
+    private void flushChunk(Connection conn, PreparedStatement stmt, List<TimeLog> chunk, List<Integer> chunkRows,
+                            long journalSequence, BatchInsertResult result) throws SQLException {
+        try {
+            // An empty chunk only commits the journal checkpoint
+            if (!chunk.isEmpty()) {
+                stmt.executeBatch();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < chunk.size()) {
+                        chunk.get(i++).setId(keys.getInt(1));
+                    }
+                }
+            }
+            rollupDAO.applyDeltas(conn, chunk, 1);
+            markJournalApplied(conn, journalSequence);
+            HoursAggregator.getInstance().commit(conn, List.of(), chunk);
+            result.inserted += chunk.size();
+            chunk.forEach(TimeLogStore.getInstance()::recordTimeLog);
+            chunk.forEach(SearchIndex.getInstance()::indexTimeLog);
+            publishInserted(chunk);
         } catch (SQLException e) {
+            conn.rollback();
+            stmt.clearBatch();
+            retryRowByRow(conn, stmt, chunk, chunkRows, journalSequence, result);
+        }
+        chunk.clear();
+        chunkRows.clear();
+    }
+    
+    /**
+     * Re-inserts a failed chunk one row at a time so that only the offending rows are rejected.
+     * For a journaled chunk only rows the database refuses outright (bad values, missing task
+     * or user) are rejected: any other failure, e.g. a lock timeout or deadlock, rolls the
+     * chunk back and is rethrown so the ingestion queue retries it, because a rejected row is
+     * checkpointed and dropped from the journal.
+     */
+    private void retryRowByRow(Connection conn, PreparedStatement stmt, List<TimeLog> chunk, List<Integer> chunkRows,
+                               long journalSequence, BatchInsertResult result) throws SQLException {
+        List<TimeLog> inserted = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            TimeLog timeLog = chunk.get(i);
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                bindTimeLog(stmt, timeLog);
+                stmt.executeUpdate();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    timeLog.setId(keys.next() ? keys.getInt(1) : 0);
+                }
+                rollupDAO.applyDeltas(conn, List.of(timeLog), 1);
+                inserted.add(timeLog);
+            } catch (SQLException e) {
+                conn.rollback(savepoint);
+                timeLog.setId(0);
+                if (journalSequence > 0 && !isPermanentFailure(e)) {
+                    conn.rollback();
+                    inserted.forEach(t -> t.setId(0));
+                    throw e;
+                }
+                result.reject(chunkRows.get(i), timeLog, e.getMessage());
+            }
+        }
+        markJournalApplied(conn, journalSequence);
+        HoursAggregator.getInstance().commit(conn, List.of(), inserted);
+        result.inserted += inserted.size();
+        inserted.forEach(TimeLogStore.getInstance()::recordTimeLog);
+        inserted.forEach(SearchIndex.getInstance()::indexTimeLog);
+        publishInserted(inserted);
+    }
+    
+    /**
+     * Whether a row fails however often it is retried: a data exception (SQLSTATE class 22)
+     * or a constraint violation (class 23). A duplicate key is the exception, as time_logs has
+     * no natural key and the rollups' one only collides with a concurrent writer.
+     */
+    private static boolean isPermanentFailure(SQLException e) {
+        String state = e.getSQLState();
+        if (state == null || TimeLogRollupDAO.DUPLICATE_KEY.equals(state)) {
+            return false;
+        }
+        return state.startsWith("22") || state.startsWith("23");
+    }
+    
+    private void publishInserted(List<TimeLog> inserted) {
+        List<ChangeEvent<TimeLog>> events = new ArrayList<>(inserted.size());
+        for (TimeLog timeLog : inserted) {
+            events.add(ChangeEvent.inserted(TimeLog.class, timeLog.getId(), timeLog));
+        }
+        ChangeFeed.getInstance().publishAll(events);
+    }
+    
+    private void bindTimeLog(PreparedStatement stmt, TimeLog timeLog) throws SQLException {
+        stmt.setInt(1, timeLog.getTaskId());
+        stmt.setInt(2, timeLog.getUserId());
+        stmt.setDate(3, Date.valueOf(timeLog.getDate()));
+        stmt.setDouble(4, timeLog.getHoursSpent());
+        stmt.setString(5, timeLog.getDescription());
+    }
+    
+    public List<TimeLog> getTimeLogsByDateRange(LocalDate startDate, LocalDate endDate) {
+        List<TimeLog> timeLogs = new ArrayList<>();
+        try {
+            streamByDateRange(startDate, endDate, timeLogs::add);
+        } catch (DatabaseException e) {
             e.printStackTrace();
+            timeLogs.clear();
         }
-        return 0.0;
+        return timeLogs;
+    }
+    
+    /**
+     * Streams time logs in a date range, newest first, without materializing them
+     * @param startDate First day (inclusive)
+     * @param endDate Last day (inclusive)
+     * @param consumer Receives each row as it is read
+     * @return Number of rows streamed
+     * @throws DatabaseException if database operation fails
+     */
+    public long streamByDateRange(LocalDate startDate, LocalDate endDate, Consumer<TimeLog> consumer)
+            throws DatabaseException {
+        return stream(TimeLogQuery.all().between(startDate, endDate), consumer);
+    }
+    
+    /**
+     * Streams time logs with an ID above the given one, in ID order, as primitive columns
+     * (with the task's project joined in) so bulk loads allocate nothing per row but the description.
+     * Read in ID pages of {@link #SCAN_PAGE_SIZE} like {@link #scanRows}.
+     * @param afterId Exclusive lower bound; 0 streams every row
+     * @param consumer Receives each row as it is read
+     * @return Number of rows streamed
+     * @throws DatabaseException if database operation fails; rows already passed to the consumer stay there
+     */
+    public long scanColumns(int afterId, ColumnConsumer consumer) throws DatabaseException {
+        String query = """
+            SELECT l.id, l.task_id, COALESCE(t.project_id, 0), l.user_id, l.date, l.hours_spent, l.description
+            FROM time_logs l LEFT JOIN tasks t ON t.id = l.task_id
+            WHERE l.id > ? ORDER BY l.id LIMIT ?
+            """;
+        long rows = 0;
+        int lastId = afterId;
+        
+        while (true) {
+            int pageRows = 0;
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(query)) {
+                
+                stmt.setInt(1, lastId);
+                stmt.setInt(2, SCAN_PAGE_SIZE);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        lastId = rs.getInt(1);
+                        consumer.accept(lastId, rs.getInt(2), rs.getInt(3), rs.getInt(4),
+                            (int) rs.getObject(5, LocalDate.class).toEpochDay(),
+                            (int) Math.round(rs.getDouble(6) * 100), rs.getString(7));
+                        pageRows++;
+                    }
+                }
+            } catch (SQLException e) {
+                throw new DatabaseException("Failed to scan time logs after ID " + lastId, e);
+            }
+            
+            rows += pageRows;
+            if (pageRows < SCAN_PAGE_SIZE) {
+                return rows;
+            }
+        }
+    }
+    
+    public double getTotalHoursByTaskId(int taskId) {
+        return sumHours(TimeLogQuery.all().forTask(taskId));
+    }
+    
+    /**
+     * Summed hours for every (task, user) pair, in one GROUP BY query on the caller's connection
+     * @throws DatabaseException if database operation fails
+     */
+    public List<HoursTotal> getHoursTotals(Connection conn) throws DatabaseException {
+        List<HoursTotal> totals = new ArrayList<>();
+        String query = "SELECT task_id, user_id, SUM(hours_spent) FROM time_logs GROUP BY task_id, user_id";
+        
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            
+            while (rs.next()) {
+                totals.add(new HoursTotal(rs.getInt(1), rs.getInt(2), rs.getDouble(3)));
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to sum time log hours", e);
+        }
+        return totals;
     }
     
     private TimeLog mapResultSetToTimeLog(ResultSet rs) throws SQLException {
@@ -111,4 +695,73 @@ public class TimeLogDAO {
         
         return timeLog;
     }
+    
+    /**
+     * Receives one time log row from {@link #scanColumns}
+     */
+    @FunctionalInterface
+    public interface ColumnConsumer {
+        void accept(int id, int taskId, int projectId, int userId, int epochDay, int hundredths, String description);
+    }
+    
+    /**
+     * Receives one time log row from {@link #scanRows}
+     */
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(int id, int taskId, int userId, int epochDay, int hundredths, String description);
+    }
+    
+    /**
+     * Outcome of a bulk insert
+     */
+    public static class BatchInsertResult {
+        private int inserted;
+        private final List<RejectedRow> rejected = new ArrayList<>();
+        
+        private void reject(int rowIndex, TimeLog timeLog, String reason) {
+            rejected.add(new RejectedRow(rowIndex, timeLog, reason));
+        }
+        
+        public int getInsertedCount() { return inserted; }
+        public List<RejectedRow> getRejectedRows() { return Collections.unmodifiableList(rejected); }
+        public boolean hasRejections() { return !rejected.isEmpty(); }
+    }
+    
+    public static class HoursTotal {
+        private final int taskId;
+        private final int userId;
+        private final double hours;
+        
+        public HoursTotal(int taskId, int userId, double hours) {
+            this.taskId = taskId;
+            this.userId = userId;
+            this.hours = hours;
+        }
+        
+        public int getTaskId() { return taskId; }
+        public int getUserId() { return userId; }
+        public double getHours() { return hours; }
+    }
+    
+    public static class RejectedRow {
+        private final int rowIndex;
+        private final TimeLog timeLog;
+        private final String reason;
+        
+        public RejectedRow(int rowIndex, TimeLog timeLog, String reason) {
+            this.rowIndex = rowIndex;
+            this.timeLog = timeLog;
+            this.reason = reason;
+        }
+        
+        public int getRowIndex() { return rowIndex; }
+        public TimeLog getTimeLog() { return timeLog; }
+        public String getReason() { return reason; }
+    }
+    
+    @FunctionalInterface
+    private interface PageReader {
+        void read(ResultSet rs, LocalDate date) throws SQLException;
+    }
 }
\ No newline at end of file
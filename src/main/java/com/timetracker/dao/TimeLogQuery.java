@@ -0,0 +1,214 @@
+package com.timetracker.dao;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Time log query spec for {@link TimeLogDAO}. Criteria are combined with AND
+ * and compiled into a single statement with bound parameters, so filtering by
+ * user, task, project or date range happens in the database on its indexes.
+ */
+public class TimeLogQuery {
+
+    /**
+     * Listing order; ties are broken by ID so keyset pages are stable
+     */
+    public enum Sort {
+        NEWEST_FIRST("date", true),
+        OLDEST_FIRST("date", false),
+        ID("id", false);
+
+        private final String column;
+        private final boolean descending;
+
+        Sort(String column, boolean descending) {
+            this.column = column;
+            this.descending = descending;
+        }
+    }
+
+    private Integer userId;
+    private Integer taskId;
+    private Integer projectId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Sort sort = Sort.NEWEST_FIRST;
+    private int limit;
+    private PageRequest<?> page;
+
+    public static TimeLogQuery all() {
+        return new TimeLogQuery();
+    }
+
+    public TimeLogQuery forUser(int userId) {
+        this.userId = userId;
+        return this;
+    }
+
+    public TimeLogQuery forTask(int taskId) {
+        this.taskId = taskId;
+        return this;
+    }
+
+    public TimeLogQuery forProject(int projectId) {
+        this.projectId = projectId;
+        return this;
+    }
+
+    /**
+     * @param startDate First day (inclusive), or null for no lower bound
+     * @param endDate Last day (inclusive), or null for no upper bound
+     */
+    public TimeLogQuery between(LocalDate startDate, LocalDate endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        return this;
+    }
+
+    public TimeLogQuery orderBy(Sort sort) {
+        this.sort = sort;
+        return this;
+    }
+
+    /**
+     * @param limit Maximum rows returned, 0 for no limit
+     */
+    public TimeLogQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Restricts the listing to one keyset page, whose size replaces the limit
+     * @param page Keyed by date for the date sorts, by ID (Integer) for Sort.ID
+     */
+    public TimeLogQuery page(PageRequest<?> page) {
+        this.page = page;
+        return this;
+    }
+
+    /**
+     * @return Copy of this spec restricted to one keyset page
+     */
+    TimeLogQuery withPage(PageRequest<?> page) {
+        TimeLogQuery copy = new TimeLogQuery();
+        copy.userId = userId;
+        copy.taskId = taskId;
+        copy.projectId = projectId;
+        copy.startDate = startDate;
+        copy.endDate = endDate;
+        copy.sort = sort;
+        copy.limit = limit;
+        copy.page = page;
+        return copy;
+    }
+
+    PageRequest<?> getPage() {
+        return page;
+    }
+
+    Sort getSort() {
+        return sort;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return SELECT of the given columns with the criteria, order and limit
+     */
+    String toSql(String columns) {
+        List<String> conditions = conditions();
+        if (page != null) {
+            conditions.add(page.seekCondition(sort.column, "id", sort.descending));
+        }
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns).append(" FROM time_logs")
+            .append(where(conditions));
+        if (page != null) {
+            sql.append(' ').append(page.orderAndLimit(sort.column, "id", sort.descending));
+        } else {
+            String direction = sort.descending ? " DESC" : " ASC";
+            sql.append(" ORDER BY ").append(sort.column).append(direction);
+            if (sort != Sort.ID) {
+                sql.append(", id").append(direction);
+            }
+            if (limit > 0) {
+                sql.append(" LIMIT ").append(limit);
+            }
+        }
+        return sql.toString();
+    }
+
+    /**
+     * @return SELECT of an aggregate over every matching row; order, limit and page do not apply
+     */
+    String toAggregateSql(String aggregate) {
+        return "SELECT " + aggregate + " FROM time_logs" + where(conditions());
+    }
+
+    /**
+     * Binds the criteria's parameters (and the page's, for {@link #toSql})
+     * @return Index of the next parameter
+     */
+    int bind(PreparedStatement stmt, int index, boolean withPage) throws SQLException {
+        if (userId != null) {
+            stmt.setInt(index++, userId);
+        }
+        if (taskId != null) {
+            stmt.setInt(index++, taskId);
+        }
+        if (projectId != null) {
+            stmt.setInt(index++, projectId);
+        }
+        if (startDate != null) {
+            stmt.setDate(index++, Date.valueOf(startDate));
+        }
+        if (endDate != null) {
+            stmt.setDate(index++, Date.valueOf(endDate));
+        }
+        return withPage && page != null ? page.bind(stmt, index) : index;
+    }
+
+    <T> List<T> inDisplayOrder(List<T> rows) {
+        return page != null ? page.inDisplayOrder(rows) : rows;
+    }
+
+    private List<String> conditions() {
+        List<String> conditions = new ArrayList<>();
+        if (userId != null) {
+            conditions.add("user_id = ?");
+        }
+        if (taskId != null) {
+            conditions.add("task_id = ?");
+        }
+        if (projectId != null) {
+            // Resolved through idx_tasks_project, then idx_time_logs_task
+            conditions.add("task_id IN (SELECT id FROM tasks WHERE project_id = ?)");
+        }
+        if (startDate != null) {
+            conditions.add("date >= ?");
+        }
+        if (endDate != null) {
+            conditions.add("date <= ?");
+        }
+        return conditions;
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    @Override
+    public String toString() {
+        return "TimeLogQuery{user=" + userId + ", task=" + taskId + ", project=" + projectId
+            + ", from=" + startDate + ", to=" + endDate + ", sort=" + sort + ", limit=" + limit + "}";
+    }
+}
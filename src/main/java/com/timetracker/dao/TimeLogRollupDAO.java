@@ -0,0 +1,398 @@
+package com.timetracker.dao;
+
+import com.timetracker.exception.DatabaseException;
+import com.timetracker.jfr.ReportRunEvent;
+import com.timetracker.model.TimeLog;
+import com.timetracker.util.DatabaseManager;
+
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pre-aggregated time log totals keyed by (level, period, user, task).
+ * DAY rows are maintained from every time log write in the writer's
+ * transaction; WEEK and MONTH rows are derived from the same deltas.
+ * Range queries are answered from the coarsest periods that fit inside the range.
+ */
+public class TimeLogRollupDAO {
+
+    public enum RollupLevel { DAY, WEEK, MONTH }
+
+    private static final String MERGE_DELTA = """
+        MERGE INTO time_log_rollups r
+        USING (VALUES (CAST(? AS VARCHAR(5)), CAST(? AS DATE), CAST(? AS INT), CAST(? AS INT),
+                       CAST(? AS DECIMAL(12,2)), CAST(? AS INT)))
+            AS s(level, period_start, user_id, task_id, hours, log_count)
+        ON r.level = s.level AND r.period_start = s.period_start
+           AND r.user_id = s.user_id AND r.task_id = s.task_id
+        WHEN MATCHED THEN UPDATE SET hours = r.hours + s.hours, log_count = r.log_count + s.log_count
+        WHEN NOT MATCHED THEN INSERT (level, period_start, user_id, task_id, project_id, hours, log_count)
+            VALUES (s.level, s.period_start, s.user_id, s.task_id,
+                    (SELECT project_id FROM tasks WHERE id = s.task_id), s.hours, s.log_count)
+        """;
+
+    private static final String[] BACKFILL = {
+        "DELETE FROM time_log_rollups",
+        """
+        INSERT INTO time_log_rollups (level, period_start, user_id, task_id, project_id, hours, log_count)
+        SELECT 'DAY', l.date, COALESCE(l.user_id, 0), COALESCE(l.task_id, 0), MAX(t.project_id),
+               SUM(l.hours_spent), COUNT(*)
+        FROM time_logs l LEFT JOIN tasks t ON t.id = l.task_id
+        GROUP BY l.date, COALESCE(l.user_id, 0), COALESCE(l.task_id, 0)
+        """,
+        """
+        INSERT INTO time_log_rollups (level, period_start, user_id, task_id, project_id, hours, log_count)
+        SELECT 'WEEK', CAST(DATEADD(DAY, 1 - ISO_DAY_OF_WEEK(period_start), period_start) AS DATE),
+               user_id, task_id, MAX(project_id), SUM(hours), SUM(log_count)
+        FROM time_log_rollups WHERE level = 'DAY'
+        GROUP BY CAST(DATEADD(DAY, 1 - ISO_DAY_OF_WEEK(period_start), period_start) AS DATE), user_id, task_id
+        """,
+        """
+        INSERT INTO time_log_rollups (level, period_start, user_id, task_id, project_id, hours, log_count)
+        SELECT 'MONTH', CAST(DATEADD(DAY, 1 - DAY_OF_MONTH(period_start), period_start) AS DATE),
+               user_id, task_id, MAX(project_id), SUM(hours), SUM(log_count)
+        FROM time_log_rollups WHERE level = 'DAY'
+        GROUP BY CAST(DATEADD(DAY, 1 - DAY_OF_MONTH(period_start), period_start) AS DATE), user_id, task_id
+        """
+    };
+
+    /** SQLSTATE of a unique key violation */
+    static final String DUPLICATE_KEY = "23505";
+    private static final int MERGE_ATTEMPTS = 5;
+
+    /**
+     * Adds (sign = 1) or removes (sign = -1) time logs from every rollup level.
+     * Runs on the caller's connection so it commits or rolls back with the time log write.
+     *
+     * Deltas are summed per rollup row and merged in key order, so concurrent writers
+     * lock shared rows in the same order. Two writers adding the first entry for the
+     * same row both take the MERGE's insert branch; the second fails with a duplicate
+     * key once the first commits. Only that statement is rolled back, so it is merged
+     * again and now updates the row.
+     */
+    void applyDeltas(Connection conn, List<TimeLog> timeLogs, int sign) throws SQLException {
+        Map<RollupKey, double[]> deltas = new TreeMap<>();
+        for (TimeLog timeLog : timeLogs) {
+            for (RollupLevel level : RollupLevel.values()) {
+                RollupKey key = new RollupKey(level, periodStart(level, timeLog.getDate()),
+                    timeLog.getUserId(), timeLog.getTaskId());
+                double[] delta = deltas.computeIfAbsent(key, k -> new double[2]);
+                delta[0] += sign * timeLog.getHoursSpent();
+                delta[1] += sign;
+            }
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(MERGE_DELTA)) {
+            for (Map.Entry<RollupKey, double[]> entry : deltas.entrySet()) {
+                RollupKey key = entry.getKey();
+                stmt.setString(1, key.level.name());
+                stmt.setDate(2, Date.valueOf(key.periodStart));
+                stmt.setInt(3, key.userId);
+                stmt.setInt(4, key.taskId);
+                stmt.setDouble(5, entry.getValue()[0]);
+                stmt.setInt(6, (int) entry.getValue()[1]);
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        stmt.executeUpdate();
+                        break;
+                    } catch (SQLException e) {
+                        if (attempt == MERGE_ATTEMPTS || !DUPLICATE_KEY.equals(e.getSQLState())) {
+                            throw e;
+                        }
+                    }
+                }
+            }
+        }
+        if (sign < 0) {
+            removeEmptyRollups(conn, timeLogs);
+        }
+    }
+
+    private void removeEmptyRollups(Connection conn, List<TimeLog> timeLogs) throws SQLException {
+        String query = "DELETE FROM time_log_rollups WHERE level = ? AND period_start = ? "
+            + "AND user_id = ? AND task_id = ? AND log_count <= 0";
+
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (TimeLog timeLog : timeLogs) {
+                for (RollupLevel level : RollupLevel.values()) {
+                    stmt.setString(1, level.name());
+                    stmt.setDate(2, Date.valueOf(periodStart(level, timeLog.getDate())));
+                    stmt.setInt(3, timeLog.getUserId());
+                    stmt.setInt(4, timeLog.getTaskId());
+                    stmt.addBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Hours per project for a date range, read from the rollups
+     * @param startDate First day (inclusive)
+     * @param endDate Last day (inclusive)
+     * @return Map of project ID to hours
+     * @throws DatabaseException if database operation fails
+     */
+    public Map<Integer, Double> getProjectHours(LocalDate startDate, LocalDate endDate) throws DatabaseException {
+        return runReport("project-hours-range", "project_id", startDate, endDate);
+    }
+
+    /**
+     * Hours per user for a date range, read from the rollups
+     * @param startDate First day (inclusive)
+     * @param endDate Last day (inclusive)
+     * @return Map of user ID to hours
+     * @throws DatabaseException if database operation fails
+     */
+    public Map<Integer, Double> getUserHours(LocalDate startDate, LocalDate endDate) throws DatabaseException {
+        return runReport("user-hours-range", "user_id", startDate, endDate);
+    }
+
+    private Map<Integer, Double> runReport(String reportName, String column, LocalDate startDate, LocalDate endDate)
+            throws DatabaseException {
+        ReportRunEvent event = new ReportRunEvent();
+        event.begin();
+        Map<Integer, Double> hours = sumHoursBy(column, startDate, endDate);
+        event.end();
+        if (event.shouldCommit()) {
+            event.report = reportName;
+            event.entries = hours.size();
+            event.commit();
+        }
+        return hours;
+    }
+
+    private Map<Integer, Double> sumHoursBy(String column, LocalDate startDate, LocalDate endDate)
+            throws DatabaseException {
+        Map<Integer, Double> hours = new HashMap<>();
+        List<PeriodRun> runs = planRuns(startDate, endDate);
+        if (runs.isEmpty()) {
+            return hours;
+        }
+
+        StringBuilder query = new StringBuilder("SELECT " + column + ", SUM(hours) FROM time_log_rollups WHERE ");
+        for (int i = 0; i < runs.size(); i++) {
+            query.append(i == 0 ? "" : " OR ").append("(level = ? AND period_start BETWEEN ? AND ?)");
+        }
+        query.append(" GROUP BY ").append(column);
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+
+            int index = 1;
+            for (PeriodRun run : runs) {
+                stmt.setString(index++, run.level.name());
+                stmt.setDate(index++, Date.valueOf(run.firstPeriod));
+                stmt.setDate(index++, Date.valueOf(run.lastPeriod));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int key = rs.getInt(1);
+                    if (!rs.wasNull()) {
+                        hours.put(key, rs.getDouble(2));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to sum rollup hours by " + column + " for " + startDate
+                + ".." + endDate, e);
+        }
+        return hours;
+    }
+
+    /**
+     * Covers [startDate, endDate] with the coarsest whole periods that fit:
+     * whole months where possible, then whole weeks, then single days.
+     * Consecutive periods of the same level are merged into one run.
+     */
+    List<PeriodRun> planRuns(LocalDate startDate, LocalDate endDate) {
+        List<PeriodRun> runs = new ArrayList<>();
+        LocalDate day = startDate;
+
+        while (!day.isAfter(endDate)) {
+            RollupLevel level;
+            LocalDate next;
+            LocalDate monthEnd = day.with(TemporalAdjusters.lastDayOfMonth());
+            LocalDate weekEnd = day.plusDays(6);
+
+            if (day.getDayOfMonth() == 1 && !monthEnd.isAfter(endDate)) {
+                level = RollupLevel.MONTH;
+                next = monthEnd.plusDays(1);
+            } else if (day.getDayOfWeek() == DayOfWeek.MONDAY && !weekEnd.isAfter(endDate)
+                    && !swallowsWholeMonth(weekEnd, endDate)) {
+                level = RollupLevel.WEEK;
+                next = weekEnd.plusDays(1);
+            } else {
+                level = RollupLevel.DAY;
+                next = day.plusDays(1);
+            }
+
+            PeriodRun last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+            if (last != null && last.level == level) {
+                last.lastPeriod = day;
+            } else {
+                runs.add(new PeriodRun(level, day));
+            }
+            day = next;
+        }
+        return runs;
+    }
+
+    /**
+     * True if a week ending on weekEnd crosses into a month that would
+     * otherwise be covered whole by a MONTH rollup
+     */
+    private boolean swallowsWholeMonth(LocalDate weekEnd, LocalDate endDate) {
+        if (weekEnd.getDayOfMonth() >= 7) {
+            return false;
+        }
+        LocalDate monthEnd = weekEnd.with(TemporalAdjusters.lastDayOfMonth());
+        return !monthEnd.isAfter(endDate);
+    }
+
+    /**
+     * Rebuilds all rollups from the raw time_logs table in one transaction
+     * @return true if successful
+     */
+    public boolean backfill() {
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : BACKFILL) {
+                    stmt.executeUpdate(sql);
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Compares the rollups with the raw table: DAY rows against time_logs,
+     * WEEK and MONTH rows against the DAY rows they are derived from
+     * @return Descriptions of mismatched rows; empty if consistent
+     * @throws DatabaseException if database operation fails
+     */
+    public List<String> checkConsistency() throws DatabaseException {
+        List<String> problems = new ArrayList<>();
+        String raw = """
+            SELECT 'DAY', date, COALESCE(user_id, 0), COALESCE(task_id, 0), SUM(hours_spent), COUNT(*)
+            FROM time_logs GROUP BY date, COALESCE(user_id, 0), COALESCE(task_id, 0)
+            """;
+        String week = """
+            SELECT 'WEEK', CAST(DATEADD(DAY, 1 - ISO_DAY_OF_WEEK(period_start), period_start) AS DATE),
+                   user_id, task_id, SUM(hours), SUM(log_count)
+            FROM time_log_rollups WHERE level = 'DAY'
+            GROUP BY CAST(DATEADD(DAY, 1 - ISO_DAY_OF_WEEK(period_start), period_start) AS DATE), user_id, task_id
+            """;
+        String month = """
+            SELECT 'MONTH', CAST(DATEADD(DAY, 1 - DAY_OF_MONTH(period_start), period_start) AS DATE),
+                   user_id, task_id, SUM(hours), SUM(log_count)
+            FROM time_log_rollups WHERE level = 'DAY'
+            GROUP BY CAST(DATEADD(DAY, 1 - DAY_OF_MONTH(period_start), period_start) AS DATE), user_id, task_id
+            """;
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            compare(conn, RollupLevel.DAY, raw, problems);
+            compare(conn, RollupLevel.WEEK, week, problems);
+            compare(conn, RollupLevel.MONTH, month, problems);
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to check time log rollups", e);
+        }
+        return problems;
+    }
+
+    private void compare(Connection conn, RollupLevel level, String expected, List<String> problems)
+            throws SQLException {
+        String stored = "SELECT level, period_start, user_id, task_id, hours, log_count "
+            + "FROM time_log_rollups WHERE level = '" + level.name() + "'";
+
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(expected + " EXCEPT " + stored)) {
+                while (rs.next()) {
+                    problems.add(describe("Missing or wrong rollup", rs));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(stored + " EXCEPT " + expected)) {
+                while (rs.next()) {
+                    problems.add(describe("Unexpected rollup", rs));
+                }
+            }
+        }
+    }
+
+    private String describe(String prefix, ResultSet rs) throws SQLException {
+        return String.format("%s: level=%s period=%s user=%d task=%d hours=%s count=%d",
+            prefix, rs.getString(1), rs.getDate(2), rs.getInt(3), rs.getInt(4),
+            rs.getBigDecimal(5), rs.getInt(6));
+    }
+
+    static LocalDate periodStart(RollupLevel level, LocalDate date) {
+        return switch (level) {
+            case DAY -> date;
+            case WEEK -> date.with(DayOfWeek.MONDAY);
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    private static final class RollupKey implements Comparable<RollupKey> {
+        private final RollupLevel level;
+        private final LocalDate periodStart;
+        private final int userId;
+        private final int taskId;
+
+        private RollupKey(RollupLevel level, LocalDate periodStart, int userId, int taskId) {
+            this.level = level;
+            this.periodStart = periodStart;
+            this.userId = userId;
+            this.taskId = taskId;
+        }
+
+        @Override
+        public int compareTo(RollupKey other) {
+            int result = level.compareTo(other.level);
+            if (result == 0) {
+                result = periodStart.compareTo(other.periodStart);
+            }
+            if (result == 0) {
+                result = Integer.compare(userId, other.userId);
+            }
+            return result != 0 ? result : Integer.compare(taskId, other.taskId);
+        }
+    }
+
+    static final class PeriodRun {
+        private final RollupLevel level;
+        private final LocalDate firstPeriod;
+        private LocalDate lastPeriod;
+
+        private PeriodRun(RollupLevel level, LocalDate firstPeriod) {
+            this.level = level;
+            this.firstPeriod = firstPeriod;
+            this.lastPeriod = firstPeriod;
+        }
+
+        RollupLevel getLevel() { return level; }
+        LocalDate getFirstPeriod() { return firstPeriod; }
+        LocalDate getLastPeriod() { return lastPeriod; }
+
+        @Override
+        public String toString() {
+            return level + "[" + firstPeriod + ".." + lastPeriod + "]";
+        }
+    }
+}
@@ -3,11 +3,19 @@ package com.timetracker.dao;
 import com.timetracker.exception.DatabaseException;
 import com.timetracker.model.User;
 import com.timetracker.model.UserRole;
+import com.timetracker.util.ChangeEvent;
+import com.timetracker.util.ChangeFeed;
+import com.timetracker.util.EntityCache;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * UserDAO class demonstrating:
@@ -18,6 +26,14 @@ import java.util.Optional;
  */
 public class UserDAO extends BaseDAO implements DAO<User, Integer> {
     
+    // Shared by all UserDAO instances; invalidated by every update and delete below
+    private static final EntityCache<Integer, User> USER_CACHE = new EntityCache<>("User",
+        Integer.getInteger("timetracker.cache.maxSize", 1000), Long.getLong("timetracker.cache.ttlSeconds", 0L));
+    
+    public static EntityCache.Stats getCacheStats() {
+        return USER_CACHE.getStats();
+    }
+    
     // Interface implementation methods
     @Override
     public List<User> findAll() throws DatabaseException {
@@ -36,9 +52,77 @@ public class UserDAO extends BaseDAO implements DAO<User, Integer> {
         }
         return users;
     }
-    
+
+    /**
+     * One page of all users ordered by full name, then ID (keyset pagination)
+     * @param page Page position, keyed by full name (empty for users without one)
+     * @throws DatabaseException if database operation fails
+     */
+    public List<User> findPage(PageRequest<String> page) throws DatabaseException {
+        List<User> users = new ArrayList<>();
+        String sortColumn = "COALESCE(full_name, '')";
+        String query = "SELECT * FROM users WHERE " + page.seekCondition(sortColumn, "id", false) + " "
+            + page.orderAndLimit(sortColumn, "id", false);
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            page.bind(stmt, 1);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    users.add(mapResultSetToUser(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to retrieve users page", e);
+        }
+        return page.inDisplayOrder(users);
+    }
+
     @Override
     public Optional<User> findById(Integer id) throws DatabaseException {
+        return Optional.ofNullable(USER_CACHE.get(id, this::loadById));
+    }
+    
+    /**
+     * Looks up several users, loading all cache misses with one IN query
+     * @param ids User IDs
+     * @return Map of ID to user for the IDs that exist
+     * @throws DatabaseException if database operation fails
+     */
+    public Map<Integer, User> findByIds(Collection<Integer> ids) throws DatabaseException {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return USER_CACHE.getMany(ids, this::loadByIds);
+    }
+    
+    private Map<Integer, User> loadByIds(Set<Integer> ids) throws DatabaseException {
+        Map<Integer, User> users = new HashMap<>();
+        String query = "SELECT * FROM users WHERE id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            int index = 1;
+            for (Integer id : ids) {
+                stmt.setInt(index++, id);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    User user = mapResultSetToUser(rs);
+                    users.put(user.getId(), user);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to find users by IDs: " + ids, e);
+        }
+        return users;
+    }
+    
+    private User loadById(Integer id) throws DatabaseException {
         String query = "SELECT * FROM users WHERE id = ?";
         
         try (Connection conn = getConnection();
@@ -48,13 +132,13 @@ public class UserDAO extends BaseDAO implements DAO<User, Integer> {
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapResultSetToUser(rs));
+                    return mapResultSetToUser(rs);
                 }
             }
         } catch (SQLException e) {
             throw new DatabaseException("Failed to find user by ID: " + id, e);
         }
-        return Optional.empty();
+        return null;
     }
     
     @Override
@@ -74,10 +158,16 @@ public class UserDAO extends BaseDAO implements DAO<User, Integer> {
              PreparedStatement stmt = conn.prepareStatement(query)) {
             
             stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
         } catch (SQLException e) {
             throw new DatabaseException("Failed to delete user with ID: " + id, e);
+        } finally {
+            USER_CACHE.invalidate(id);
         }
+        ChangeFeed.getInstance().publish(ChangeEvent.deleted(User.class, id, null));
+        return true;
     }
     
     // Additional methods
@@ -119,18 +209,30 @@ public class UserDAO extends BaseDAO implements DAO<User, Integer> {
             stmt.setString(1, newRole.name());
             stmt.setInt(2, userId);
             
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
         } catch (SQLException | DatabaseException e) {
             e.printStackTrace();
+            return false;
+        } finally {
+            USER_CACHE.invalidate(userId);
         }
-        return false;
+        try {
+            // Re-read (and re-cache) the row for the change event
+            findById(userId).ifPresent(user ->
+                ChangeFeed.getInstance().publish(ChangeEvent.updated(User.class, userId, user, null)));
+        } catch (DatabaseException e) {
+            e.printStackTrace();
+        }
+        return true;
     }
     
     public boolean createUser(User user) {
         String query = "INSERT INTO users (username, password, role, email, full_name) VALUES (?, ?, ?, ?, ?)";
         
         try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+             PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
             
             stmt.setString(1, user.getUsername());
             stmt.setString(2, user.getPassword());
@@ -138,7 +240,16 @@ public class UserDAO extends BaseDAO implements DAO<User, Integer> {
             stmt.setString(4, user.getEmail());
             stmt.setString(5, user.getFullName());
             
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    user.setId(keys.getInt(1));
+                    ChangeFeed.getInstance().publish(ChangeEvent.inserted(User.class, user.getId(), user));
+                }
+            }
+            return true;
         } catch (SQLException | DatabaseException e) {
             e.printStackTrace();
         }
@@ -158,10 +269,16 @@ public class UserDAO extends BaseDAO implements DAO<User, Integer> {
             stmt.setString(5, user.getFullName());
             stmt.setInt(6, user.getId());
             
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
         } catch (SQLException e) {
             throw new DatabaseException("Failed to update user", e);
+        } finally {
+            USER_CACHE.invalidate(user.getId());
         }
+        ChangeFeed.getInstance().publish(ChangeEvent.updated(User.class, user.getId(), user, null));
+        return true;
     }
     
     private User mapResultSetToUser(ResultSet rs) throws SQLException {
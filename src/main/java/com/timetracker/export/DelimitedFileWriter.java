@@ -0,0 +1,337 @@
+package com.timetracker.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes CSV or TSV rows as UTF-8 straight into a reusable byte buffer, which is
+ * handed to the FileChannel (or the gzip stream over it) in one write whenever it
+ * fills, so no per-row Strings are built. Repeated values such as names can be
+ * encoded once with {@link #encode} and written as bytes.
+ *
+ * Rows go to a "*.part" file beside the target, which {@link #commit} moves into
+ * place; closing without a commit (e.g. a cancelled export) deletes it.
+ */
+public class DelimitedFileWriter implements Closeable {
+
+    public static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+
+    // Longest UTF-8 sequence for one char (a surrogate pair takes 4 bytes over 2 chars)
+    private static final int MAX_CHAR_BYTES = 3;
+    private static final byte QUOTE = '"';
+    private static final byte[] LINE_END = {'\r', '\n'};
+
+    private final ExportFormat format;
+    private final Path target;
+    private final Path partFile;
+    private final FileChannel channel;
+    private final OutputStream gzip;
+    private final byte[] buffer;
+    private int position;
+    private boolean rowStarted;
+    private long bytesWritten;
+    private boolean committed;
+
+    // Last date written, as "yyyy-MM-dd"
+    private int cachedEpochDay = Integer.MIN_VALUE;
+    private final byte[] cachedDate = new byte[10];
+
+    /**
+     * Format and compression follow the file name, see {@link ExportFormat#forFile}
+     */
+    public DelimitedFileWriter(Path target) throws IOException {
+        this(target, ExportFormat.forFile(target), ExportFormat.isGzip(target), DEFAULT_BUFFER_BYTES);
+    }
+
+    public DelimitedFileWriter(Path target, ExportFormat format, boolean gzip, int bufferBytes) throws IOException {
+        if (bufferBytes < 64) {
+            throw new IllegalArgumentException("Buffer too small: " + bufferBytes);
+        }
+        this.format = format;
+        this.target = target.toAbsolutePath();
+        this.partFile = this.target.resolveSibling(this.target.getFileName() + ".part");
+        this.channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        this.gzip = gzip ? new FastGzipOutputStream(Channels.newOutputStream(channel)) : null;
+        this.buffer = new byte[bufferBytes];
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Escapes and encodes a value once so it can be written any number of times
+     * with {@link #field(byte[])}
+     */
+    public byte[] encode(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        boolean quote = false;
+        StringBuilder escaped = new StringBuilder(value.length() + 2);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (format.needsReplacing(c)) {
+                c = ' ';
+            } else if (format.needsQuoting(c)) {
+                quote = true;
+                if (c == '"') {
+                    escaped.append('"');
+                }
+            }
+            escaped.append(c);
+        }
+        String field = quote ? "\"" + escaped + "\"" : escaped.toString();
+        return field.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes bytes from {@link #encode} as one field
+     */
+    public DelimitedFileWriter field(byte[] encoded) throws IOException {
+        separate(encoded.length);
+        if (encoded.length > buffer.length) {
+            flushBuffer();
+            write(encoded, encoded.length);
+        } else {
+            System.arraycopy(encoded, 0, buffer, position, encoded.length);
+            position += encoded.length;
+        }
+        return this;
+    }
+
+    public DelimitedFileWriter field(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            return field(encode(Long.toString(value)));
+        }
+        separate(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        digits(value);
+        return this;
+    }
+
+    /**
+     * Writes a fixed-point value in hundredths, e.g. 750 as "7.50"
+     */
+    public DelimitedFileWriter hundredths(int hundredths) throws IOException {
+        separate(14);
+        long value = hundredths;
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        digits(value / 100);
+        buffer[position++] = '.';
+        buffer[position++] = (byte) ('0' + value % 100 / 10);
+        buffer[position++] = (byte) ('0' + value % 10);
+        return this;
+    }
+
+    /**
+     * Writes a day as ISO "yyyy-MM-dd"; consecutive rows of the same day reuse its bytes
+     */
+    public DelimitedFileWriter date(int epochDay) throws IOException {
+        if (epochDay != cachedEpochDay) {
+            byte[] encoded = LocalDate.ofEpochDay(epochDay).toString().getBytes(StandardCharsets.US_ASCII);
+            if (encoded.length != cachedDate.length) {
+                // Years beyond 9999 or before 0
+                return field(encoded);
+            }
+            System.arraycopy(encoded, 0, cachedDate, 0, cachedDate.length);
+            cachedEpochDay = epochDay;
+        }
+        return field(cachedDate);
+    }
+
+    /**
+     * Escapes and encodes free text directly into the buffer
+     */
+    public DelimitedFileWriter text(String value) throws IOException {
+        separate(0);
+        if (value == null || value.isEmpty()) {
+            return this;
+        }
+        int length = value.length();
+        boolean quote = false;
+        boolean replace = format == ExportFormat.TSV;
+        if (format == ExportFormat.CSV) {
+            for (int i = 0; i < length && !quote; i++) {
+                quote = format.needsQuoting(value.charAt(i));
+            }
+        }
+        if (quote) {
+            ensure(1);
+            buffer[position++] = QUOTE;
+        }
+        for (int i = 0; i < length; i++) {
+            if (position + MAX_CHAR_BYTES + 1 > buffer.length) {
+                flushBuffer();
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' && quote) {
+                    buffer[position++] = QUOTE;
+                } else if (replace && format.needsReplacing(c)) {
+                    c = ' ';
+                }
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, as String.getBytes would write it
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        if (quote) {
+            ensure(1);
+            buffer[position++] = QUOTE;
+        }
+        return this;
+    }
+
+    /**
+     * Writes a header or other row of plain values
+     */
+    public DelimitedFileWriter row(String... values) throws IOException {
+        for (String value : values) {
+            text(value);
+        }
+        return endRow();
+    }
+
+    public DelimitedFileWriter endRow() throws IOException {
+        ensure(LINE_END.length);
+        buffer[position++] = LINE_END[0];
+        buffer[position++] = LINE_END[1];
+        rowStarted = false;
+        return this;
+    }
+
+    /**
+     * @return Bytes handed to the file (before compression) so far
+     */
+    public long getBytesWritten() {
+        return bytesWritten + position;
+    }
+
+    /**
+     * Flushes everything written and moves the finished file into place
+     */
+    public void commit() throws IOException {
+        flushBuffer();
+        if (gzip != null) {
+            gzip.close();
+        } else {
+            channel.close();
+        }
+        try {
+            Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+    }
+
+    /**
+     * Deletes the partial file unless {@link #commit} was called
+     */
+    @Override
+    public void close() throws IOException {
+        if (committed) {
+            return;
+        }
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(partFile);
+        }
+    }
+
+    private void digits(long value) {
+        int count = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            count++;
+        }
+        for (int i = position + count - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += count;
+    }
+
+    /**
+     * Starts a field, with the delimiter unless it is the first in its row,
+     * and makes room for the given number of bytes after it
+     */
+    private void separate(int fieldBytes) throws IOException {
+        ensure(Math.min(fieldBytes, buffer.length - 1) + 1);
+        if (rowStarted) {
+            buffer[position++] = format.getDelimiter();
+        }
+        rowStarted = true;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            write(buffer, position);
+            position = 0;
+        }
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        bytesWritten += length;
+        if (gzip != null) {
+            gzip.write(bytes, 0, length);
+            return;
+        }
+        ByteBuffer data = ByteBuffer.wrap(bytes, 0, length);
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    /**
+     * Gzip at the fastest level: the default one compresses delimited text only
+     * slightly better but is several times slower than the database can supply rows
+     */
+    private static final class FastGzipOutputStream extends GZIPOutputStream {
+        private FastGzipOutputStream(OutputStream out) throws IOException {
+            super(out, 1 << 16);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+}
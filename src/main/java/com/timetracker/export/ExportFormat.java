@@ -0,0 +1,53 @@
+package com.timetracker.export;
+
+import java.nio.file.Path;
+
+/**
+ * Delimited text formats for exports
+ */
+public enum ExportFormat {
+    /**
+     * RFC 4180: fields holding a comma, quote or line break are quoted, quotes doubled
+     */
+    CSV((byte) ','),
+    /**
+     * Tab separated: tabs and line breaks inside a field become spaces
+     */
+    TSV((byte) '\t');
+
+    private final byte delimiter;
+
+    ExportFormat(byte delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    public byte getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * @return TSV for *.tsv and *.tsv.gz, CSV otherwise
+     */
+    public static ExportFormat forFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        return name.endsWith(".tsv") ? TSV : CSV;
+    }
+
+    /**
+     * Whether a file name asks for gzip compression (*.gz)
+     */
+    public static boolean isGzip(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".gz");
+    }
+
+    boolean needsQuoting(char c) {
+        return this == CSV && (c == ',' || c == '"' || c == '\r' || c == '\n');
+    }
+
+    boolean needsReplacing(char c) {
+        return this == TSV && (c == '\t' || c == '\r' || c == '\n');
+    }
+}
@@ -0,0 +1,211 @@
+package com.timetracker.export;
+
+import com.timetracker.dao.ProjectDAO;
+import com.timetracker.dao.TaskDAO;
+import com.timetracker.dao.TimeLogDAO;
+import com.timetracker.dao.TimeLogQuery;
+import com.timetracker.dao.UserDAO;
+import com.timetracker.exception.DatabaseException;
+import com.timetracker.model.BaseEntity;
+import com.timetracker.model.Project;
+import com.timetracker.model.Task;
+import com.timetracker.model.User;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+
+/**
+ * Exports time logs (e.g. for payroll) as CSV or TSV, optionally gzipped.
+ *
+ * Rows are streamed from TimeLogDAO's paged row scan into a
+ * {@link DelimitedFileWriter}, so memory stays flat for any row count. Task
+ * names (and each task's project) are encoded ahead of the scan, project names
+ * through ProjectDAO's entity cache; user names are looked up through UserDAO's
+ * entity cache the first time a user appears, so an export only loads the users
+ * it contains. Each row then only copies their bytes and formats its numbers in place.
+ * Use one exporter per export; it can be cancelled from any thread.
+ */
+public class TimeLogExporter {
+
+    /**
+     * Progress of a running export, reported on the exporting thread
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param total Rows matching the query when the export started
+         */
+        void progress(long rows, long total);
+    }
+
+    private static final String[] HEADER = {"id", "date", "user", "project", "task", "hours", "description"};
+    private static final int PROGRESS_INTERVAL = 1 << 16;
+    private static final byte[] UNKNOWN = new byte[0];
+
+    private final TimeLogDAO timeLogDAO = new TimeLogDAO();
+    private final UserDAO userDAO = new UserDAO();
+    private final ProjectDAO projectDAO = new ProjectDAO();
+    private final TaskDAO taskDAO = new TaskDAO();
+    private volatile boolean cancelled;
+
+    /**
+     * Writes the matching time logs to a file; see {@link DelimitedFileWriter#DelimitedFileWriter(Path)}
+     * for the format. Nothing is left at the target if the export fails or is cancelled.
+     * @return Number of rows exported
+     * @throws CancellationException if {@link #cancel} was called
+     * @throws DatabaseException if the time logs cannot be read
+     * @throws IOException if the file cannot be written
+     */
+    public long export(TimeLogQuery query, Path target, ProgressListener listener)
+            throws DatabaseException, IOException {
+        long total = timeLogDAO.count(query);
+        listener.progress(0, total);
+
+        try (DelimitedFileWriter writer = new DelimitedFileWriter(target)) {
+            List<Task> tasks = taskDAO.getAllTasks();
+            Set<Integer> projectIds = new HashSet<>();
+            for (Task task : tasks) {
+                projectIds.add(task.getProjectId());
+            }
+            Map<Integer, Project> projects = projectDAO.getProjectsByIds(projectIds);
+            byte[][] projectNames = encodeNames(writer, List.copyOf(projects.values()), Project::getTitle);
+            byte[][] taskNames = encodeNames(writer, tasks, Task::getTitle);
+            NameLookup userNames = new NameLookup(writer,
+                id -> userDAO.findById(id).map(User::getFullName).orElse(null));
+            // Project names by task ID
+            byte[][] taskProjectNames = new byte[taskNames.length][];
+            for (Task task : tasks) {
+                taskProjectNames[task.getId()] = name(projectNames, task.getProjectId());
+            }
+            writer.row(HEADER);
+
+            long[] written = new long[1];
+            try {
+                timeLogDAO.scanRows(query, (id, taskId, userId, epochDay, hundredths, description) -> {
+                    try {
+                        writer.field(id)
+                            .date(epochDay)
+                            .field(userNames.get(userId))
+                            .field(name(taskProjectNames, taskId))
+                            .field(name(taskNames, taskId))
+                            .hundredths(hundredths)
+                            .text(description)
+                            .endRow();
+                    } catch (IOException e) {
+                        // Unwound through the cursor, which closes on the way out
+                        throw new UncheckedIOException(e);
+                    } catch (DatabaseException e) {
+                        throw new UncheckedDatabaseException(e);
+                    }
+                    if (++written[0] % PROGRESS_INTERVAL == 0) {
+                        if (cancelled) {
+                            throw new CancellationException("Export cancelled");
+                        }
+                        listener.progress(written[0], total);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (UncheckedDatabaseException e) {
+                throw e.getCause();
+            }
+            if (cancelled) {
+                throw new CancellationException("Export cancelled");
+            }
+            writer.commit();
+            listener.progress(written[0], Math.max(total, written[0]));
+            return written[0];
+        }
+    }
+
+    /**
+     * Stops the running export at its next progress report; the partial file is deleted
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return Encoded names indexed by entity ID
+     */
+    private static <T extends BaseEntity> byte[][] encodeNames(DelimitedFileWriter writer, List<T> entities,
+            Function<T, String> name) {
+        int maxId = 0;
+        for (T entity : entities) {
+            maxId = Math.max(maxId, entity.getId());
+        }
+        byte[][] names = new byte[maxId + 1][];
+        for (T entity : entities) {
+            names[entity.getId()] = writer.encode(name.apply(entity));
+        }
+        return names;
+    }
+
+    private static byte[] name(byte[][] names, int id) {
+        if (id <= 0 || id >= names.length || names[id] == null) {
+            return UNKNOWN;
+        }
+        return names[id];
+    }
+
+    @FunctionalInterface
+    private interface NameLoader {
+        /**
+         * @return The name, or null if there is no such entity
+         */
+        String load(int id) throws DatabaseException;
+    }
+
+    /**
+     * Encoded names by entity ID, loaded on first use; IDs without an entity are remembered too
+     */
+    private static final class NameLookup {
+        private final DelimitedFileWriter writer;
+        private final NameLoader loader;
+        private byte[][] names = new byte[64][];
+
+        private NameLookup(DelimitedFileWriter writer, NameLoader loader) {
+            this.writer = writer;
+            this.loader = loader;
+        }
+
+        private byte[] get(int id) throws DatabaseException {
+            if (id <= 0) {
+                return UNKNOWN;
+            }
+            if (id >= names.length) {
+                names = Arrays.copyOf(names, Math.max(id + 1, names.length * 2));
+            }
+            byte[] name = names[id];
+            if (name == null) {
+                String value = loader.load(id);
+                name = value == null ? UNKNOWN : writer.encode(value);
+                names[id] = name;
+            }
+            return name;
+        }
+    }
+
+    private static final class UncheckedDatabaseException extends RuntimeException {
+        private UncheckedDatabaseException(DatabaseException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized DatabaseException getCause() {
+            return (DatabaseException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.timetracker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One SQL execution issued by a DAO. For queries the event lasts until
+ * the result set is closed, so it includes the time spent reading rows.
+ */
+@Name("com.timetracker.DaoQuery")
+@Label("DAO Query")
+@Category({"TimeTracker", "Database"})
+@Description("SQL statement executed on behalf of a DAO method")
+public class DaoQueryEvent extends Event {
+
+    @Label("Query")
+    @Description("DAO method that issued the statement")
+    public String queryName;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Parameters")
+    public String parameters;
+
+    @Label("Rows")
+    @Description("Rows read, or rows changed by an update")
+    public long rows;
+
+    @Label("Batch Size")
+    public int batchSize;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,38 @@
+package com.timetracker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A dashboard view loading its data: from the request on the FX thread
+ * until the result has been applied to the UI.
+ */
+@Name("com.timetracker.DashboardLoad")
+@Label("Dashboard Load")
+@Category({"TimeTracker", "UI"})
+@Description("Data load for a dashboard view, from request until the UI is updated")
+public class DashboardLoadEvent extends Event {
+
+    @Label("Controller")
+    public String controller;
+
+    @Label("View")
+    @Description("Load key of the tab or table being filled, e.g. member-tasks")
+    public String view;
+
+    @Label("Items")
+    @Description("Number of rows or entries delivered")
+    public int items;
+
+    @Label("UI Time")
+    @Description("Time spent applying the result on the FX application thread")
+    @Timespan(Timespan.NANOSECONDS)
+    public long uiTime;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,38 @@
+package com.timetracker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Lifecycle of one AsyncDataLoader task: begins when it is queued and
+ * ends when it finishes, with the queueing and permit wait split out.
+ */
+@Name("com.timetracker.LoaderTask")
+@Label("Loader Task")
+@Category({"TimeTracker", "Loader"})
+@Description("Background load from queued to finished")
+public class LoaderTaskEvent extends Event {
+
+    @Label("Owner")
+    @Description("Controller that owns the loader")
+    public String owner;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Strategy")
+    public String strategy;
+
+    @Label("Wait Time")
+    @Description("Time between queueing and starting to run, including the wait for a database permit")
+    @Timespan(Timespan.NANOSECONDS)
+    public long waitTime;
+
+    @Label("Outcome")
+    @Description("COMPLETED, FAILED, CANCELLED or COALESCED")
+    public String outcome;
+}
@@ -0,0 +1,23 @@
+package com.timetracker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One report computation
+ */
+@Name("com.timetracker.ReportRun")
+@Label("Report Run")
+@Category({"TimeTracker", "Reports"})
+@Description("Report generated from the running totals or the rollup tables")
+public class ReportRunEvent extends Event {
+
+    @Label("Report")
+    public String report;
+
+    @Label("Entries")
+    public int entries;
+}
@@ -0,0 +1,44 @@
+package com.timetracker.journal;
+
+/**
+ * When {@link TimeLogJournal} forces appended records to the storage device.
+ * Records are in the OS page cache as soon as they are appended, so every
+ * policy survives a crash of the application; the policy decides how much
+ * a power loss or kernel crash can take.
+ */
+public enum FsyncPolicy {
+
+    /**
+     * Force after every record; slowest, loses nothing
+     */
+    ALWAYS,
+
+    /**
+     * Force when the writer calls {@link TimeLogJournal#sync()}, once per
+     * group-commit batch; loses at most the batch being gathered
+     */
+    BATCH,
+
+    /**
+     * Force from a background thread every {@code timetracker.journal.fsyncIntervalMs}
+     */
+    INTERVAL,
+
+    /**
+     * Leave flushing to the operating system
+     */
+    NEVER;
+
+    /**
+     * Policy named by -Dtimetracker.journal.fsync, defaulting to BATCH
+     */
+    public static FsyncPolicy fromSystemProperty() {
+        String name = System.getProperty("timetracker.journal.fsync", BATCH.name());
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown journal fsync policy '" + name + "', using " + BATCH);
+            return BATCH;
+        }
+    }
+}
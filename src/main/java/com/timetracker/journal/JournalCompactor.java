@@ -0,0 +1,43 @@
+package com.timetracker.journal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Deletes journal segments once every record in them has been applied to the
+ * database. The active segment is kept until the journal rolls past it.
+ */
+public final class JournalCompactor {
+
+    private final TimeLogJournal journal;
+    private long deletedSegments;
+
+    public JournalCompactor(TimeLogJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @param appliedSequence Last sequence committed to the database
+     * @return Number of segments deleted
+     */
+    public int compact(long appliedSequence) {
+        int deleted = 0;
+        for (Path segment : journal.segmentsAppliedThrough(appliedSequence)) {
+            try {
+                Files.deleteIfExists(segment);
+                journal.forgetSegment(segment);
+                deleted++;
+            } catch (IOException e) {
+                // E.g. still mapped on Windows; tried again after the next batch
+                System.err.println("Could not delete journal segment " + segment + ": " + e.getMessage());
+            }
+        }
+        deletedSegments += deleted;
+        return deleted;
+    }
+
+    public long getDeletedSegments() {
+        return deletedSegments;
+    }
+}
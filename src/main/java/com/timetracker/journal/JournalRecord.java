@@ -0,0 +1,41 @@
+package com.timetracker.journal;
+
+import com.timetracker.model.TimeLog;
+
+/**
+ * One time log write in the {@link TimeLogJournal}
+ */
+public final class JournalRecord {
+
+    public enum Type { CREATE, UPDATE, DELETE }
+
+    private final long sequence;
+    private final Type type;
+    private final int timeLogId;
+    private final TimeLog timeLog;
+
+    JournalRecord(long sequence, Type type, int timeLogId, TimeLog timeLog) {
+        this.sequence = sequence;
+        this.type = type;
+        this.timeLogId = timeLogId;
+        this.timeLog = timeLog;
+    }
+
+    public long getSequence() { return sequence; }
+    public Type getType() { return type; }
+
+    /**
+     * @return ID of the updated or deleted time log; 0 for creates, whose ID the database assigns
+     */
+    public int getTimeLogId() { return timeLogId; }
+
+    /**
+     * @return The new or updated time log; null for deletes
+     */
+    public TimeLog getTimeLog() { return timeLog; }
+
+    @Override
+    public String toString() {
+        return type + " #" + sequence + (timeLogId > 0 ? " time log " + timeLogId : "");
+    }
+}
@@ -0,0 +1,168 @@
+package com.timetracker.journal;
+
+import com.timetracker.dao.TimeLogDAO;
+import com.timetracker.exception.DatabaseException;
+import com.timetracker.model.TimeLog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies journal records to time_logs. Runs of creates go in as one batch;
+ * updates and deletes one at a time. Each commit also records the last journal
+ * sequence it applied, and records at or below that checkpoint are skipped, so
+ * applying the same records again (a retry, or a replay after a crash) never
+ * writes them twice.
+ */
+public final class JournalReplayer {
+
+    /**
+     * Outcome of each applied record
+     */
+    public interface ApplyListener {
+        /**
+         * @param changed false for an update or delete whose time log no longer exists
+         */
+        void applied(JournalRecord record, boolean changed);
+
+        void rejected(JournalRecord record, String reason);
+
+        /**
+         * The record was committed by an earlier attempt that failed before reporting it
+         * (e.g. the commit went through but its connection broke), so its outcome is
+         * unknown: a create may have been rejected, an update or delete may have found
+         * no time log
+         */
+        void committedEarlier(JournalRecord record);
+    }
+
+    private static final ApplyListener IGNORE = new ApplyListener() {
+        @Override
+        public void applied(JournalRecord record, boolean changed) {}
+
+        @Override
+        public void rejected(JournalRecord record, String reason) {
+            System.err.println("Journaled time log write rejected (" + record + "): " + reason);
+        }
+
+        @Override
+        public void committedEarlier(JournalRecord record) {}
+    };
+
+    private final TimeLogJournal journal;
+    private final TimeLogDAO timeLogDAO;
+    private final int batchSize;
+    // Last sequence known to be committed; -1 when it must be read from the database
+    private long appliedSequence = -1;
+    // Last sequence whose outcome a listener was given; retries do not report those again
+    private long reportedSequence;
+
+    public JournalReplayer(TimeLogJournal journal, TimeLogDAO timeLogDAO, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.journal = journal;
+        this.timeLogDAO = timeLogDAO;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Applies the journaled records the database has not seen yet, e.g. on startup
+     * @param throughSequence Last record to apply; later ones belong to the caller
+     * @return Number of records applied
+     * @throws DatabaseException if the journal cannot be read or a batch cannot be committed
+     */
+    public int replay(long throughSequence) throws DatabaseException {
+        List<JournalRecord> records;
+        try {
+            records = journal.read(getAppliedSequence(), throughSequence);
+        } catch (IOException e) {
+            throw new DatabaseException("Failed to read the time log journal", e);
+        }
+        for (int from = 0; from < records.size(); from += batchSize) {
+            apply(records.subList(from, Math.min(records.size(), from + batchSize)), IGNORE);
+        }
+        return records.size();
+    }
+
+    /**
+     * Applies records in journal order, skipping those already committed. Each record
+     * is reported to the listener once, even when a failed call is retried with the
+     * same records.
+     * @throws DatabaseException if a run cannot be committed; runs before it stay applied
+     */
+    public void apply(List<JournalRecord> records, ApplyListener listener) throws DatabaseException {
+        long applied = getAppliedSequence();
+        try {
+            int i = 0;
+            while (i < records.size()) {
+                JournalRecord record = records.get(i);
+                if (record.getSequence() <= applied) {
+                    // Committed by an earlier attempt, which reported it unless its commit failed
+                    if (record.getSequence() > reportedSequence) {
+                        listener.committedEarlier(record);
+                        reportedSequence = record.getSequence();
+                    }
+                    i++;
+                    continue;
+                }
+                if (record.getType() == JournalRecord.Type.CREATE) {
+                    int end = i + 1;
+                    while (end < records.size() && records.get(end).getType() == JournalRecord.Type.CREATE) {
+                        end++;
+                    }
+                    applyCreates(records.subList(i, end), listener);
+                    i = end;
+                } else if (record.getType() == JournalRecord.Type.UPDATE) {
+                    listener.applied(record, timeLogDAO.updateJournaledTimeLog(record.getTimeLog(), record.getSequence()));
+                    i++;
+                } else {
+                    listener.applied(record, timeLogDAO.deleteJournaledTimeLog(record.getTimeLogId(), record.getSequence()));
+                    i++;
+                }
+                applied = records.get(i - 1).getSequence();
+                appliedSequence = applied;
+                reportedSequence = applied;
+            }
+        } catch (DatabaseException e) {
+            // The failed commit may have gone through; read the checkpoint again before retrying
+            appliedSequence = -1;
+            throw e;
+        }
+    }
+
+    /**
+     * @return Last journal sequence committed to the database
+     */
+    public long getAppliedSequence() throws DatabaseException {
+        if (appliedSequence < 0) {
+            appliedSequence = timeLogDAO.getAppliedJournalSequence();
+        }
+        return appliedSequence;
+    }
+
+    private void applyCreates(List<JournalRecord> creates, ApplyListener listener) throws DatabaseException {
+        List<TimeLog> timeLogs = new ArrayList<>(creates.size());
+        for (JournalRecord record : creates) {
+            timeLogs.add(record.getTimeLog());
+        }
+        TimeLogDAO.BatchInsertResult result = timeLogDAO.createJournaledTimeLogs(timeLogs,
+            creates.get(creates.size() - 1).getSequence());
+
+        Map<TimeLog, String> rejected = new IdentityHashMap<>();
+        for (TimeLogDAO.RejectedRow row : result.getRejectedRows()) {
+            rejected.put(row.getTimeLog(), row.getReason());
+        }
+        for (JournalRecord record : creates) {
+            String reason = rejected.get(record.getTimeLog());
+            if (reason == null) {
+                listener.applied(record, true);
+            } else {
+                listener.rejected(record, reason);
+            }
+        }
+    }
+}
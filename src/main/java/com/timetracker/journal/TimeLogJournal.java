@@ -0,0 +1,390 @@
+package com.timetracker.journal;
+
+import com.timetracker.model.TimeLog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped journal of time log creates, updates and deletes.
+ *
+ * The journal is a directory of segment files named after the sequence of their
+ * first record. The newest segment is mapped read-write and records are copied
+ * straight into the mapping, so an append is a few memory writes with no system
+ * call; the kernel writes the pages back, and the {@link FsyncPolicy} decides
+ * when that is forced. When a record does not fit, the segment is forced and a
+ * new one rolled. Segments whose records have all been applied to the database
+ * are deleted by the {@link JournalCompactor}.
+ *
+ * Segment layout: magic, format version, first sequence (16 bytes), then records.
+ * Every record starts with a fixed 56-byte header (length, CRC32 of the rest of
+ * the record, sequence, type, time log ID, task ID, user ID, epoch day, hours,
+ * description length) followed by the UTF-8 description, padded to 8 bytes.
+ * A zero length marks the end of a segment; a record with a bad length or CRC,
+ * left by a crash mid-append, ends it too.
+ */
+public final class TimeLogJournal implements Closeable {
+
+    public static final int DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+
+    private static final int MAGIC = 0x54544A4C; // "TTJL"
+    private static final int FORMAT_VERSION = 1;
+    private static final int SEGMENT_HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 56;
+    private static final int ALIGNMENT = 8;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final JournalRecord.Type[] TYPES = JournalRecord.Type.values();
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService syncer;
+    // First sequence -> segment file, oldest first; the last one is the active segment once appending starts
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+
+    private MappedByteBuffer active;
+    private Path activePath;
+    // Start of the records appended since the last force
+    private int unforcedFrom;
+    private long lastSequence;
+    private long appendedBytes;
+    private boolean closed;
+
+    /**
+     * Opens (or creates) the journal in a directory. Appends go to a new segment;
+     * segments from earlier runs are only read.
+     * @param segmentBytes Size of each segment file
+     * @param fsyncIntervalMillis Force interval for {@link FsyncPolicy#INTERVAL}
+     */
+    public TimeLogJournal(Path directory, int segmentBytes, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis)
+            throws IOException {
+        if (segmentBytes < SEGMENT_HEADER_BYTES + RECORD_HEADER_BYTES) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsyncPolicy = fsyncPolicy;
+        Files.createDirectories(directory);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                    name.length() - SEGMENT_SUFFIX.length())), file);
+            }
+        }
+        recoverLastSequence();
+
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "time-log-journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::syncQuietly, fsyncIntervalMillis, fsyncIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        } else {
+            syncer = null;
+        }
+    }
+
+    /**
+     * Sequence numbers continue after the larger of the journal's last record and the given one
+     * @param sequence Last sequence already applied, which outlives the journal once it is compacted
+     */
+    public synchronized void advanceTo(long sequence) {
+        lastSequence = Math.max(lastSequence, sequence);
+    }
+
+    public JournalRecord appendCreate(TimeLog timeLog) throws IOException {
+        return append(JournalRecord.Type.CREATE, 0, timeLog);
+    }
+
+    public JournalRecord appendUpdate(TimeLog timeLog) throws IOException {
+        return append(JournalRecord.Type.UPDATE, timeLog.getId(), timeLog);
+    }
+
+    public JournalRecord appendDelete(int timeLogId) throws IOException {
+        return append(JournalRecord.Type.DELETE, timeLogId, null);
+    }
+
+    /**
+     * Forces the records appended since the last force, under {@link FsyncPolicy#BATCH};
+     * the other policies force on their own schedule
+     */
+    public void sync() throws IOException {
+        if (fsyncPolicy == FsyncPolicy.BATCH) {
+            force();
+        }
+    }
+
+    /**
+     * Reads the records in a sequence range, oldest first
+     * @param afterSequence Records after this one
+     * @param throughSequence Up to and including this one
+     */
+    public List<JournalRecord> read(long afterSequence, long throughSequence) throws IOException {
+        List<Path> files;
+        synchronized (this) {
+            Long from = segments.floorKey(afterSequence + 1);
+            files = new ArrayList<>((from == null ? segments : segments.tailMap(from, true)).values());
+        }
+        List<JournalRecord> records = new ArrayList<>();
+        for (Path file : files) {
+            for (JournalRecord record : readSegment(file)) {
+                if (record.getSequence() > throughSequence) {
+                    return records;
+                }
+                if (record.getSequence() > afterSequence) {
+                    records.add(record);
+                }
+            }
+        }
+        return records;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * @return Segments other than the active one whose records are all at or below the sequence
+     */
+    synchronized List<Path> segmentsAppliedThrough(long appliedSequence) {
+        List<Path> applied = new ArrayList<>();
+        Long next = null;
+        for (Map.Entry<Long, Path> segment : segments.descendingMap().entrySet()) {
+            // A segment ends just before the next one starts
+            if (next != null && next - 1 <= appliedSequence) {
+                applied.add(0, segment.getValue());
+            }
+            next = segment.getKey();
+        }
+        return applied;
+    }
+
+    synchronized void forgetSegment(Path file) {
+        segments.values().remove(file);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            force();
+        }
+        active = null;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("TimeLogJournal[segments=%d, lastSequence=%d, appended=%d KB, fsync=%s]",
+            segments.size(), lastSequence, appendedBytes / 1024, fsyncPolicy);
+    }
+
+    private synchronized JournalRecord append(JournalRecord.Type type, int timeLogId, TimeLog timeLog) throws IOException {
+        if (closed) {
+            throw new IOException("Time log journal is closed");
+        }
+        byte[] description = timeLog == null || timeLog.getDescription() == null ? null
+            : timeLog.getDescription().getBytes(StandardCharsets.UTF_8);
+        int length = align(RECORD_HEADER_BYTES + (description == null ? 0 : description.length));
+        long sequence = lastSequence + 1;
+        if (active == null || active.remaining() < length) {
+            roll(sequence, length);
+        }
+
+        int start = active.position();
+        ByteBuffer record = active.slice(start, length);
+        record.putLong(8, sequence)
+            .put(16, (byte) type.ordinal())
+            .putInt(20, timeLogId);
+        if (timeLog != null) {
+            record.putInt(24, timeLog.getTaskId())
+                .putInt(28, timeLog.getUserId())
+                .putLong(32, timeLog.getDate().toEpochDay())
+                .putDouble(40, timeLog.getHoursSpent());
+        }
+        record.putInt(48, description == null ? -1 : description.length);
+        if (description != null) {
+            record.put(RECORD_HEADER_BYTES, description);
+        }
+        crc.reset();
+        crc.update(record.slice(8, length - 8));
+        // The length goes in last: until then a reader sees the end of the segment
+        record.putInt(4, (int) crc.getValue());
+        record.putInt(0, length);
+        active.position(start + length);
+
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            active.force(start, length);
+            unforcedFrom = active.position();
+        }
+        lastSequence = sequence;
+        appendedBytes += length;
+        return new JournalRecord(sequence, type, timeLogId, timeLog);
+    }
+
+    /**
+     * Closes off the active segment and maps a new one starting at the given sequence
+     */
+    private void roll(long firstSequence, int recordLength) throws IOException {
+        if (active != null && fsyncPolicy != FsyncPolicy.NEVER) {
+            force();
+        }
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        int size = Math.max(segmentBytes, SEGMENT_HEADER_BYTES + recordLength);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            active = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        active.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(firstSequence);
+        activePath = file;
+        // The header is forced with the first records
+        unforcedFrom = 0;
+        segments.put(firstSequence, file);
+    }
+
+    /**
+     * Forces outside the lock, so appends do not wait for the device
+     */
+    private void force() {
+        MappedByteBuffer buffer;
+        int from;
+        int to;
+        synchronized (this) {
+            if (active == null || active.position() <= unforcedFrom) {
+                return;
+            }
+            buffer = active;
+            from = unforcedFrom;
+            to = active.position();
+            unforcedFrom = to;
+        }
+        buffer.force(from, to - from);
+    }
+
+    private void syncQuietly() {
+        try {
+            force();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Finds the last sequence written by earlier runs and drops segments without
+     * a single intact record, whose names the next segment may need
+     */
+    private void recoverLastSequence() throws IOException {
+        while (!segments.isEmpty()) {
+            Map.Entry<Long, Path> last = segments.lastEntry();
+            List<JournalRecord> records = readSegment(last.getValue());
+            if (!records.isEmpty()) {
+                lastSequence = records.get(records.size() - 1).getSequence();
+                return;
+            }
+            Files.deleteIfExists(last.getValue());
+            segments.remove(last.getKey());
+            lastSequence = last.getKey() - 1;
+        }
+    }
+
+    private List<JournalRecord> readSegment(Path file) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        ByteBuffer segment;
+        if (file.equals(activePath)) {
+            synchronized (this) {
+                segment = active == null ? null : active.duplicate().flip();
+            }
+            if (segment == null) {
+                return records;
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        if (segment.limit() < SEGMENT_HEADER_BYTES || segment.getInt(0) != MAGIC) {
+            return records;
+        }
+        if (segment.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported journal format " + segment.getInt(4) + " in " + file);
+        }
+
+        CRC32 checksum = new CRC32();
+        int position = SEGMENT_HEADER_BYTES;
+        while (position + RECORD_HEADER_BYTES <= segment.limit()) {
+            int length = segment.getInt(position);
+            if (length < RECORD_HEADER_BYTES || length % ALIGNMENT != 0 || position + length > segment.limit()) {
+                break;
+            }
+            ByteBuffer record = segment.slice(position, length);
+            checksum.reset();
+            checksum.update(record.slice(8, length - 8));
+            if ((int) checksum.getValue() != record.getInt(4)) {
+                break;
+            }
+            records.add(decode(record));
+            position += length;
+        }
+        return records;
+    }
+
+    private static JournalRecord decode(ByteBuffer record) {
+        JournalRecord.Type type = TYPES[record.get(16)];
+        int timeLogId = record.getInt(20);
+        TimeLog timeLog = null;
+        if (type != JournalRecord.Type.DELETE) {
+            int descriptionLength = record.getInt(48);
+            String description = null;
+            if (descriptionLength >= 0) {
+                byte[] bytes = new byte[descriptionLength];
+                record.get(RECORD_HEADER_BYTES, bytes);
+                description = new String(bytes, StandardCharsets.UTF_8);
+            }
+            timeLog = new TimeLog(record.getInt(24), record.getInt(28), LocalDate.ofEpochDay(record.getLong(32)),
+                record.getDouble(40), description);
+            timeLog.setId(timeLogId);
+        }
+        return new JournalRecord(record.getLong(8), type, timeLogId, timeLog);
+    }
+
+    private static int align(int length) {
+        return (length + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
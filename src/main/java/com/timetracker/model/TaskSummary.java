@@ -0,0 +1,22 @@
+package com.timetracker.model;
+
+/**
+ * Read model for dashboard task tables: a task together with its
+ * project title, assignee name and total logged hours
+ */
+public class TaskSummary extends Task {
+    private String projectTitle;
+    private String assigneeName;
+    private double actualHours;
+
+    public TaskSummary() {}
+
+    public String getProjectTitle() { return projectTitle; }
+    public void setProjectTitle(String projectTitle) { this.projectTitle = projectTitle; }
+
+    public String getAssigneeName() { return assigneeName; }
+    public void setAssigneeName(String assigneeName) { this.assigneeName = assigneeName; }
+
+    public double getActualHours() { return actualHours; }
+    public void setActualHours(double actualHours) { this.actualHours = actualHours; }
+}
@@ -0,0 +1,642 @@
+package com.timetracker.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Positional inverted index over task and time-log text. Not thread-safe; SearchIndex guards it.
+ *
+ * Documents get ascending internal IDs, so every postings list is sorted and can be
+ * binary searched. Per-document fields (type, entity, user, date) live in parallel
+ * primitive arrays so filters cost one array read, and each user's documents are listed
+ * so a user filter can drive the scan when it is more selective than the text. Re-indexing an entity marks its
+ * old document deleted rather than rewriting postings.
+ */
+final class InvertedIndex {
+
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int NO_DOC = -1;
+
+    private byte[] types = new byte[1024];
+    private int[] entityIds = new int[1024];
+    private int[] userIds = new int[1024];
+    private int[] dates = new int[1024];
+    private int docCount;
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    // Entity ID -> current document, one dense array per document type
+    private final int[][] docsByEntity = { new int[0], new int[0] };
+
+    // User ID -> that user's documents, ascending; rebuilt from userIds on load
+    private final Map<Integer, IntList> docsByUser = new HashMap<>();
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final List<String> termsById = new ArrayList<>();
+
+    // Forward index: the distinct term IDs of document d are docTerms[docTermStarts[d]..docTermStarts[d + 1])
+    private final IntList docTerms = new IntList();
+    private final IntList docTermStarts = new IntList();
+
+    /**
+     * Indexes the text of an entity, replacing any earlier version of it
+     */
+    void add(SearchHit.DocumentType type, int entityId, int userId, LocalDate date, String text) {
+        int previous = docFor(type, entityId);
+        if (previous != NO_DOC) {
+            deleted.set(previous);
+            deletedCount++;
+        }
+
+        int doc = docCount++;
+        ensureDocCapacity(docCount);
+        types[doc] = (byte) type.ordinal();
+        entityIds[doc] = entityId;
+        userIds[doc] = userId;
+        dates[doc] = date == null ? NO_DATE : (int) date.toEpochDay();
+        setDocFor(type, entityId, doc);
+        docsByUser.computeIfAbsent(userId, u -> new IntList()).add(doc);
+
+        Map<String, IntList> positions = new LinkedHashMap<>();
+        List<String> tokens = Tokenizer.tokenize(text);
+        for (int i = 0; i < tokens.size(); i++) {
+            positions.computeIfAbsent(tokens.get(i), t -> new IntList()).add(i);
+        }
+        positions.forEach((term, termPositions) -> {
+            Postings postings = terms.computeIfAbsent(term, this::newPostings);
+            postings.add(doc, termPositions);
+            docTerms.add(postings.id);
+        });
+        docTermStarts.add(docTerms.size);
+    }
+
+    /**
+     * Marks the entity's document deleted
+     */
+    void remove(SearchHit.DocumentType type, int entityId) {
+        int doc = docFor(type, entityId);
+        if (doc != NO_DOC) {
+            deleted.set(doc);
+            deletedCount++;
+            setDocFor(type, entityId, NO_DOC);
+        }
+    }
+
+    private Postings newPostings(String term) {
+        Postings postings = new Postings(termsById.size());
+        termsById.add(term);
+        return postings;
+    }
+
+    /**
+     * @return Whether any term of the document starts with the prefix
+     */
+    private boolean hasTermWithPrefix(int doc, String prefix) {
+        int start = doc == 0 ? 0 : docTermStarts.values[doc - 1];
+        for (int i = start; i < docTermStarts.values[doc]; i++) {
+            if (termsById.get(docTerms.values[i]).startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean contains(SearchHit.DocumentType type, int entityId) {
+        return docFor(type, entityId) != NO_DOC;
+    }
+
+    /**
+     * @return Number of current (not replaced) documents of the given type
+     */
+    int liveCount(SearchHit.DocumentType type) {
+        int count = 0;
+        for (int entity : docsByEntity[type.ordinal()]) {
+            if (entity != NO_DOC) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Highest indexed entity ID of the given type, or 0 if none
+     */
+    int maxEntityId(SearchHit.DocumentType type) {
+        int[] entityDocs = docsByEntity[type.ordinal()];
+        for (int id = entityDocs.length - 1; id > 0; id--) {
+            if (entityDocs[id] != NO_DOC) {
+                return id;
+            }
+        }
+        return 0;
+    }
+
+    int getDocumentCount() { return docCount - deletedCount; }
+    int getTermCount() { return terms.size(); }
+
+    /**
+     * Finds matching documents, most recently indexed first
+     */
+    List<SearchHit> search(SearchQuery query) {
+        List<SearchHit> hits = new ArrayList<>();
+        if (query.isEmpty()) {
+            return hits;
+        }
+
+        IntList userDocs = null;
+        int cheapest = Integer.MAX_VALUE;
+        if (query.getUserId() != null) {
+            userDocs = docsByUser.get(query.getUserId());
+            if (userDocs == null) {
+                return hits;
+            }
+            cheapest = userDocs.size;
+        }
+
+        // Prefix clauses are sized last: a wide prefix stops counting once it is
+        // known not to be the cheapest way in, instead of walking every expansion
+        List<Matcher> matchers = new ArrayList<>();
+        for (SearchQuery.Clause clause : query.getClauses()) {
+            if (clause.type != SearchQuery.ClauseType.PREFIX) {
+                Matcher matcher = matcherFor(clause, Integer.MAX_VALUE);
+                if (matcher.estimate() == 0) {
+                    return hits;
+                }
+                cheapest = Math.min(cheapest, matcher.estimate());
+                matchers.add(matcher);
+            }
+        }
+        for (SearchQuery.Clause clause : query.getClauses()) {
+            if (clause.type == SearchQuery.ClauseType.PREFIX) {
+                Matcher matcher = matcherFor(clause, cheapest);
+                if (matcher.estimate() == 0) {
+                    return hits;
+                }
+                matchers.add(matcher);
+            }
+        }
+
+        // Drive the scan from the rarest clause (or the user's documents) and probe the others
+        Matcher driver = matchers.get(0);
+        for (Matcher matcher : matchers) {
+            if (matcher.estimate() < driver.estimate()) {
+                driver = matcher;
+            }
+        }
+        if (userDocs != null && userDocs.size < driver.estimate()) {
+            driver = new UserMatcher(userDocs);
+        }
+
+        int typeFilter = query.getType() == null ? -1 : query.getType().ordinal();
+        int startDay = query.getStartDate() == null ? NO_DATE : (int) query.getStartDate().toEpochDay();
+        int endDay = query.getEndDate() == null ? Integer.MAX_VALUE : (int) query.getEndDate().toEpochDay();
+        boolean dateFiltered = query.getStartDate() != null || query.getEndDate() != null;
+
+        DocCursor cursor = driver.descending();
+        for (int doc = cursor.next(); doc != NO_DOC && hits.size() < query.getLimit(); doc = cursor.next()) {
+            if (deleted.get(doc)
+                || (typeFilter >= 0 && types[doc] != typeFilter)
+                || (query.getUserId() != null && userIds[doc] != query.getUserId())
+                || (dateFiltered && (dates[doc] == NO_DATE || dates[doc] < startDay || dates[doc] > endDay))) {
+                continue;
+            }
+            if (matchesAll(matchers, doc)) {
+                hits.add(toHit(doc));
+            }
+        }
+        return hits;
+    }
+
+    private boolean matchesAll(List<Matcher> matchers, int doc) {
+        for (Matcher matcher : matchers) {
+            if (!matcher.matches(doc)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private SearchHit toHit(int doc) {
+        SearchHit.DocumentType type = SearchHit.DocumentType.values()[types[doc]];
+        LocalDate date = dates[doc] == NO_DATE ? null : LocalDate.ofEpochDay(dates[doc]);
+        return new SearchHit(type, entityIds[doc], userIds[doc], date);
+    }
+
+    /**
+     * @param sizeLimit Size past which a prefix need not be counted exactly
+     */
+    private Matcher matcherFor(SearchQuery.Clause clause, int sizeLimit) {
+        switch (clause.type) {
+            case TERM:
+                return new TermMatcher(terms.get(clause.terms.get(0)));
+            case PREFIX:
+                String prefix = clause.terms.get(0);
+                return new PrefixMatcher(this, prefix, terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false), sizeLimit);
+            default:
+                List<Postings> phrase = new ArrayList<>();
+                for (String term : clause.terms) {
+                    phrase.add(terms.get(term));
+                }
+                return new PhraseMatcher(phrase);
+        }
+    }
+
+    // Persistence
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(docCount);
+        out.write(types, 0, docCount);
+        writeInts(out, entityIds, docCount);
+        writeInts(out, userIds, docCount);
+        writeInts(out, dates, docCount);
+        long[] deletedWords = deleted.toLongArray();
+        out.writeInt(deletedWords.length);
+        for (long word : deletedWords) {
+            out.writeLong(word);
+        }
+        for (int[] entityDocs : docsByEntity) {
+            writeInts(out, entityDocs, entityDocs.length);
+        }
+
+        out.writeInt(terms.size());
+        for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+            Postings postings = entry.getValue();
+            out.writeUTF(entry.getKey());
+            writeInts(out, postings.docs, postings.size);
+            writeInts(out, postings.offsets, postings.size);
+            writeInts(out, postings.positions, postings.positionCount);
+        }
+    }
+
+    static InvertedIndex read(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported search index format " + version);
+        }
+        InvertedIndex index = new InvertedIndex();
+        index.docCount = in.readInt();
+        int capacity = Math.max(index.docCount, 1024);
+        index.types = new byte[capacity];
+        in.readFully(index.types, 0, index.docCount);
+        index.entityIds = readInts(in, in.readInt(), capacity);
+        index.userIds = readInts(in, in.readInt(), capacity);
+        index.dates = readInts(in, in.readInt(), capacity);
+        long[] deletedWords = new long[in.readInt()];
+        for (int i = 0; i < deletedWords.length; i++) {
+            deletedWords[i] = in.readLong();
+        }
+        index.deleted.or(BitSet.valueOf(deletedWords));
+        index.deletedCount = index.deleted.cardinality();
+        for (int doc = 0; doc < index.docCount; doc++) {
+            index.docsByUser.computeIfAbsent(index.userIds[doc], u -> new IntList()).add(doc);
+        }
+        for (int i = 0; i < index.docsByEntity.length; i++) {
+            index.docsByEntity[i] = readInts(in, in.readInt(), 0);
+        }
+
+        int termCount = in.readInt();
+        for (int i = 0; i < termCount; i++) {
+            String term = in.readUTF();
+            Postings postings = index.newPostings(term);
+            postings.size = in.readInt();
+            postings.docs = readInts(in, postings.size, 4);
+            postings.offsets = readInts(in, in.readInt(), 4);
+            postings.positionCount = in.readInt();
+            postings.positions = readInts(in, postings.positionCount, 4);
+            index.terms.put(term, postings);
+        }
+        index.rebuildForwardIndex();
+        return index;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, int count) throws IOException {
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in, int count, int minCapacity) throws IOException {
+        int[] values = new int[Math.max(count, minCapacity)];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    /**
+     * Recreates docTerms/docTermStarts from the postings rather than storing them twice on disk
+     */
+    private void rebuildForwardIndex() {
+        int[] counts = new int[docCount];
+        for (Postings postings : terms.values()) {
+            for (int i = 0; i < postings.size; i++) {
+                counts[postings.docs[i]]++;
+            }
+        }
+        int[] next = new int[docCount];
+        int total = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            next[doc] = total;
+            total += counts[doc];
+            docTermStarts.add(total);
+        }
+        docTerms.values = new int[Math.max(total, 4)];
+        docTerms.size = total;
+        for (Postings postings : terms.values()) {
+            for (int i = 0; i < postings.size; i++) {
+                docTerms.values[next[postings.docs[i]]++] = postings.id;
+            }
+        }
+    }
+
+    // Document bookkeeping
+
+    private int docFor(SearchHit.DocumentType type, int entityId) {
+        int[] entityDocs = docsByEntity[type.ordinal()];
+        return entityId >= 0 && entityId < entityDocs.length ? entityDocs[entityId] : NO_DOC;
+    }
+
+    private void setDocFor(SearchHit.DocumentType type, int entityId, int doc) {
+        int[] entityDocs = docsByEntity[type.ordinal()];
+        if (entityId >= entityDocs.length) {
+            int oldLength = entityDocs.length;
+            entityDocs = Arrays.copyOf(entityDocs, Math.max(entityId + 1, oldLength + (oldLength >> 1)));
+            Arrays.fill(entityDocs, oldLength, entityDocs.length, NO_DOC);
+            docsByEntity[type.ordinal()] = entityDocs;
+        }
+        entityDocs[entityId] = doc;
+    }
+
+    private void ensureDocCapacity(int capacity) {
+        if (capacity > entityIds.length) {
+            int newLength = Math.max(capacity, entityIds.length + (entityIds.length >> 1));
+            types = Arrays.copyOf(types, newLength);
+            entityIds = Arrays.copyOf(entityIds, newLength);
+            userIds = Arrays.copyOf(userIds, newLength);
+            dates = Arrays.copyOf(dates, newLength);
+        }
+    }
+
+    /**
+     * Sorted document IDs for one term, each with its sorted token positions
+     */
+    private static final class Postings {
+        private final int id;
+        private int[] docs = new int[4];
+        private int[] offsets = new int[4];
+        private int size;
+        private int[] positions = new int[4];
+        private int positionCount;
+
+        private Postings(int id) {
+            this.id = id;
+        }
+
+        private void add(int doc, IntList termPositions) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            docs[size] = doc;
+            offsets[size] = positionCount;
+            size++;
+            if (positionCount + termPositions.size > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(positionCount + termPositions.size, positions.length * 2));
+            }
+            System.arraycopy(termPositions.values, 0, positions, positionCount, termPositions.size);
+            positionCount += termPositions.size;
+        }
+
+        private int indexOf(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc);
+        }
+
+        private int positionsStart(int index) {
+            return offsets[index];
+        }
+
+        private int positionsEnd(int index) {
+            return index + 1 < size ? offsets[index + 1] : positionCount;
+        }
+
+        private boolean hasPosition(int index, int position) {
+            return Arrays.binarySearch(positions, positionsStart(index), positionsEnd(index), position) >= 0;
+        }
+    }
+
+    private interface DocCursor {
+        /**
+         * @return The next document, descending, or NO_DOC when exhausted
+         */
+        int next();
+    }
+
+    private interface Matcher {
+        int estimate();
+        DocCursor descending();
+        boolean matches(int doc);
+    }
+
+    private static final class TermMatcher implements Matcher {
+        private final Postings postings;
+
+        private TermMatcher(Postings postings) {
+            this.postings = postings;
+        }
+
+        @Override
+        public int estimate() {
+            return postings == null ? 0 : postings.size;
+        }
+
+        @Override
+        public DocCursor descending() {
+            int[] index = { postings.size };
+            return () -> --index[0] >= 0 ? postings.docs[index[0]] : NO_DOC;
+        }
+
+        @Override
+        public boolean matches(int doc) {
+            return postings.indexOf(doc) >= 0;
+        }
+    }
+
+    /**
+     * Union of all terms sharing a prefix. When it drives the scan the union is materialized
+     * as a bit set; when probed, narrow prefixes search each term's postings and wide ones
+     * check the document's own terms instead.
+     */
+    private static final class PrefixMatcher implements Matcher {
+        private static final int MAX_PROBED_TERMS = 16;
+
+        private final InvertedIndex index;
+        private final String prefix;
+        private final NavigableMap<String, Postings> matchingTerms;
+        private final boolean narrow;
+        private final int estimate;
+
+        private PrefixMatcher(InvertedIndex index, String prefix, NavigableMap<String, Postings> matchingTerms, int sizeLimit) {
+            this.index = index;
+            this.prefix = prefix;
+            this.matchingTerms = matchingTerms;
+            // Upper bound: a document containing two of the terms is counted twice
+            long total = 0;
+            int termCount = 0;
+            for (Postings postings : matchingTerms.values()) {
+                total += postings.size;
+                termCount++;
+                if (total > sizeLimit && termCount > MAX_PROBED_TERMS) {
+                    break;
+                }
+            }
+            narrow = termCount <= MAX_PROBED_TERMS;
+            estimate = (int) Math.min(total, index.docCount);
+        }
+
+        @Override
+        public int estimate() {
+            return estimate;
+        }
+
+        @Override
+        public DocCursor descending() {
+            BitSet union = new BitSet(index.docCount);
+            for (Postings postings : matchingTerms.values()) {
+                for (int i = 0; i < postings.size; i++) {
+                    union.set(postings.docs[i]);
+                }
+            }
+            int[] current = { union.length() };
+            return () -> {
+                current[0] = current[0] <= 0 ? NO_DOC : union.previousSetBit(current[0] - 1);
+                return current[0];
+            };
+        }
+
+        @Override
+        public boolean matches(int doc) {
+            if (!narrow) {
+                return index.hasTermWithPrefix(doc, prefix);
+            }
+            for (Postings postings : matchingTerms.values()) {
+                if (postings.indexOf(doc) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * All documents of one user; only ever used to drive the scan, the user filter does the matching
+     */
+    private static final class UserMatcher implements Matcher {
+        private final IntList userDocs;
+
+        private UserMatcher(IntList userDocs) {
+            this.userDocs = userDocs;
+        }
+
+        @Override
+        public int estimate() {
+            return userDocs.size;
+        }
+
+        @Override
+        public DocCursor descending() {
+            int[] index = { userDocs.size };
+            return () -> --index[0] >= 0 ? userDocs.values[index[0]] : NO_DOC;
+        }
+
+        @Override
+        public boolean matches(int doc) {
+            return true;
+        }
+    }
+
+    /**
+     * Terms at consecutive positions in the same document
+     */
+    private static final class PhraseMatcher implements Matcher {
+        private final List<Postings> phrase;
+        private final Postings rarest;
+
+        private PhraseMatcher(List<Postings> phrase) {
+            this.phrase = phrase;
+            Postings smallest = null;
+            for (Postings postings : phrase) {
+                if (postings == null) {
+                    smallest = null;
+                    break;
+                }
+                if (smallest == null || postings.size < smallest.size) {
+                    smallest = postings;
+                }
+            }
+            this.rarest = smallest;
+        }
+
+        @Override
+        public int estimate() {
+            return rarest == null ? 0 : rarest.size;
+        }
+
+        @Override
+        public DocCursor descending() {
+            return new TermMatcher(rarest).descending();
+        }
+
+        @Override
+        public boolean matches(int doc) {
+            int[] indexes = new int[phrase.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = phrase.get(i).indexOf(doc);
+                if (indexes[i] < 0) {
+                    return false;
+                }
+            }
+            Postings first = phrase.get(0);
+            for (int p = first.positionsStart(indexes[0]); p < first.positionsEnd(indexes[0]); p++) {
+                int start = first.positions[p];
+                boolean match = true;
+                for (int i = 1; i < indexes.length && match; i++) {
+                    match = phrase.get(i).hasPosition(indexes[i], start + i);
+                }
+                if (match) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Growable int array, to avoid boxing positions while indexing
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
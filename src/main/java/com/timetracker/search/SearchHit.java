@@ -0,0 +1,41 @@
+package com.timetracker.search;
+
+import java.time.LocalDate;
+
+/**
+ * A task or time log matching a search. Load the entity itself through its DAO if needed.
+ */
+public class SearchHit {
+
+    public enum DocumentType { TIME_LOG, TASK }
+
+    private final DocumentType type;
+    private final int entityId;
+    private final int userId;
+    private final LocalDate date;
+
+    public SearchHit(DocumentType type, int entityId, int userId, LocalDate date) {
+        this.type = type;
+        this.entityId = entityId;
+        this.userId = userId;
+        this.date = date;
+    }
+
+    public DocumentType getType() { return type; }
+    public int getEntityId() { return entityId; }
+
+    /**
+     * @return The logging user for time logs, the assignee for tasks
+     */
+    public int getUserId() { return userId; }
+
+    /**
+     * @return The log date for time logs, the due date (possibly null) for tasks
+     */
+    public LocalDate getDate() { return date; }
+
+    @Override
+    public String toString() {
+        return type + "#" + entityId + " (user " + userId + ", " + date + ")";
+    }
+}
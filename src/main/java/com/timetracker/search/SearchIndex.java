@@ -0,0 +1,315 @@
+package com.timetracker.search;
+
+import com.timetracker.dao.TaskDAO;
+import com.timetracker.dao.TimeLogDAO;
+import com.timetracker.exception.DatabaseException;
+import com.timetracker.model.Task;
+import com.timetracker.model.TimeLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Full-text search over task titles/descriptions and time log descriptions.
+ *
+ * The index is kept in memory and saved to disk on shutdown, with a marker
+ * file saying the save completed. On startup the marker is removed and the
+ * saved index is loaded and caught up with the rows added since (everything
+ * with a higher ID), so only new rows are indexed. Without the marker (the
+ * last run did not shut down cleanly, so edits it made may be missing) or when
+ * the row counts no longer match the database, the index is rebuilt. The DAOs
+ * report every committed task and time log write; writes reported while the
+ * index is opening are queued and applied once it is in place. Searches run
+ * under a read lock and never touch the database.
+ */
+public class SearchIndex {
+    private static SearchIndex instance;
+
+    private static final int FILE_MAGIC = 0x54545349; // "TTSI"
+
+    private final Path indexFile;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private InvertedIndex index = new InvertedIndex();
+    // Guarded by lock: writes reported while open() builds the index, or null once it is in place
+    private List<Consumer<InvertedIndex>> pendingWrites;
+    private volatile boolean opened;
+    private volatile boolean ready;
+    // Set when the catch-up failed, so the saved index is not trusted next time
+    private volatile boolean incomplete;
+
+    private SearchIndex(Path indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    public static synchronized SearchIndex getInstance() {
+        if (instance == null) {
+            instance = new SearchIndex(Paths.get(System.getProperty("timetracker.search.file", "timetracker-search.idx")));
+        }
+        return instance;
+    }
+
+    /**
+     * Opens the index on a background thread; searches return nothing until it is ready
+     */
+    public void openInBackground() {
+        Thread loader = new Thread(this::open, "search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Loads the saved index (or starts empty) and indexes the rows added since it was saved
+     */
+    public synchronized void open() {
+        if (ready) {
+            return;
+        }
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        opened = true;
+
+        InvertedIndex loaded = load();
+        if (loaded != null && !matchesDatabase(loaded)) {
+            System.out.println("Search index is out of date, rebuilding");
+            loaded = null;
+        }
+        if (loaded == null) {
+            loaded = new InvertedIndex();
+        }
+        int caughtUp = 0;
+        try {
+            caughtUp = catchUp(loaded);
+        } catch (DatabaseException e) {
+            e.printStackTrace();
+            incomplete = true;
+        }
+
+        lock.writeLock().lock();
+        try {
+            index = loaded;
+            // Applied in the order reported, after the catch-up read, so the newest state wins
+            for (Consumer<InvertedIndex> write : pendingWrites) {
+                write.accept(index);
+            }
+            pendingWrites = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        System.out.printf("Search index ready: %d documents, %d terms (%d indexed now) in %.0f ms%n",
+            getDocumentCount(), getTermCount(), caughtUp, (System.nanoTime() - started) / 1e6);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Indexes (or re-indexes) a committed time log
+     */
+    public void indexTimeLog(TimeLog timeLog) {
+        if (!opened || timeLog.getId() <= 0) {
+            return;
+        }
+        write(target -> addTimeLog(target, timeLog));
+    }
+
+    /**
+     * Drops a deleted time log from the index
+     */
+    public void removeTimeLog(int timeLogId) {
+        if (!opened) {
+            return;
+        }
+        write(target -> target.remove(SearchHit.DocumentType.TIME_LOG, timeLogId));
+    }
+
+    /**
+     * Indexes (or re-indexes) a committed task
+     */
+    public void indexTask(Task task) {
+        if (!opened || task.getId() <= 0) {
+            return;
+        }
+        write(target -> addTask(target, task));
+    }
+
+    /**
+     * Applies a write to the index, or queues it while {@link #open} is building the index
+     */
+    private void write(Consumer<InvertedIndex> change) {
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                pendingWrites.add(change);
+            } else {
+                change.accept(index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a search; see SearchQuery for the syntax
+     * @return Matches, most recently indexed first, or an empty list while the index is opening
+     */
+    public List<SearchHit> search(SearchQuery query) {
+        if (!ready) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            return index.search(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<SearchHit> search(String query) {
+        return search(SearchQuery.parse(query));
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return index.getDocumentCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return index.getTermCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the index to disk (via a temporary file, so a crash never leaves a torn index)
+     */
+    public void save() {
+        if (!ready) {
+            return;
+        }
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(FILE_MAGIC);
+            index.write(out);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (!incomplete) {
+                Files.write(cleanMarker(), new byte[0]);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private InvertedIndex load() {
+        boolean clean;
+        try {
+            // Gone until the next save, so a crash from here on forces a rebuild
+            clean = Files.deleteIfExists(cleanMarker());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        if (!clean) {
+            System.out.println("Search index was not saved at the last shutdown, rebuilding");
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a search index file: " + indexFile);
+            }
+            return InvertedIndex.read(in);
+        } catch (IOException e) {
+            System.out.println("Could not load search index, rebuilding: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Path cleanMarker() {
+        return indexFile.resolveSibling(indexFile.getFileName() + ".clean");
+    }
+
+    /**
+     * Checks that every row up to the saved watermarks is still in the index,
+     * which catches rows deleted by other tools and a database replaced behind
+     * the index's back. Edits this application made are covered by the clean-shutdown
+     * marker; edits other tools made in place are not detected.
+     */
+    private boolean matchesDatabase(InvertedIndex saved) {
+        int logWatermark = saved.maxEntityId(SearchHit.DocumentType.TIME_LOG);
+        int taskWatermark = saved.maxEntityId(SearchHit.DocumentType.TASK);
+        return new TimeLogDAO().countUpToId(logWatermark) == saved.liveCount(SearchHit.DocumentType.TIME_LOG)
+            && new TaskDAO().countUpToId(taskWatermark) == saved.liveCount(SearchHit.DocumentType.TASK);
+    }
+
+    /**
+     * Indexes rows added after the index's watermarks into an index not yet in use
+     * @return Number of rows indexed
+     * @throws DatabaseException if the time logs cannot be read; some may have been indexed
+     */
+    private int catchUp(InvertedIndex target) throws DatabaseException {
+        int logWatermark = target.maxEntityId(SearchHit.DocumentType.TIME_LOG);
+        int taskWatermark = target.maxEntityId(SearchHit.DocumentType.TASK);
+
+        int[] indexed = new int[1];
+        for (Task task : new TaskDAO().getTasksAfterId(taskWatermark)) {
+            addTask(target, task);
+            indexed[0]++;
+        }
+        new TimeLogDAO().streamAfterId(logWatermark, timeLog -> {
+            addTimeLog(target, timeLog);
+            indexed[0]++;
+        });
+        return indexed[0];
+    }
+
+    private static void addTimeLog(InvertedIndex target, TimeLog timeLog) {
+        target.add(SearchHit.DocumentType.TIME_LOG, timeLog.getId(), timeLog.getUserId(),
+            timeLog.getDate(), timeLog.getDescription());
+    }
+
+    private static void addTask(InvertedIndex target, Task task) {
+        target.add(SearchHit.DocumentType.TASK, task.getId(), task.getAssignedUserId(),
+            task.getDueDate(), taskText(task));
+    }
+
+    private static String taskText(Task task) {
+        String title = task.getTitle() == null ? "" : task.getTitle();
+        return task.getDescription() == null ? title : title + "\n" + task.getDescription();
+    }
+}
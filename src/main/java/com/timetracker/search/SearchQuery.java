@@ -0,0 +1,129 @@
+package com.timetracker.search;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A parsed search. All clauses must match:
+ * <ul>
+ *   <li>{@code oauth} - the term</li>
+ *   <li>{@code auth*} - any term starting with the prefix</li>
+ *   <li>{@code "token refresh"} - the terms next to each other, in order</li>
+ * </ul>
+ * Results can be narrowed to one user, a date range and a document type.
+ */
+public class SearchQuery {
+
+    public static final int DEFAULT_LIMIT = 100;
+
+    private final List<Clause> clauses;
+    private Integer userId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private SearchHit.DocumentType type;
+    private int limit = DEFAULT_LIMIT;
+
+    private SearchQuery(List<Clause> clauses) {
+        this.clauses = clauses;
+    }
+
+    public static SearchQuery parse(String text) {
+        List<Clause> clauses = new ArrayList<>();
+        String remaining = text == null ? "" : text;
+        int quote;
+        while ((quote = remaining.indexOf('"')) >= 0) {
+            int closing = remaining.indexOf('"', quote + 1);
+            if (closing < 0) {
+                closing = remaining.length();
+            }
+            parseWords(remaining.substring(0, quote), clauses);
+            List<String> phrase = Tokenizer.tokenize(remaining.substring(quote + 1, closing));
+            if (!phrase.isEmpty()) {
+                clauses.add(new Clause(ClauseType.PHRASE, phrase));
+            }
+            remaining = closing < remaining.length() ? remaining.substring(closing + 1) : "";
+        }
+        parseWords(remaining, clauses);
+        return new SearchQuery(clauses);
+    }
+
+    private static void parseWords(String text, List<Clause> clauses) {
+        for (String word : text.trim().split("\\s+")) {
+            boolean prefix = word.endsWith("*");
+            List<String> terms = Tokenizer.tokenize(word);
+            if (terms.isEmpty()) {
+                continue;
+            }
+            if (prefix && terms.size() == 1) {
+                clauses.add(new Clause(ClauseType.PREFIX, terms));
+            } else if (terms.size() == 1) {
+                clauses.add(new Clause(ClauseType.TERM, terms));
+            } else {
+                // "oauth2-login" tokenizes to two terms that must appear together
+                clauses.add(new Clause(ClauseType.PHRASE, terms));
+            }
+        }
+    }
+
+    public SearchQuery forUser(Integer userId) {
+        this.userId = userId;
+        return this;
+    }
+
+    /**
+     * @param startDate First day (inclusive), or null for no lower bound
+     * @param endDate Last day (inclusive), or null for no upper bound
+     */
+    public SearchQuery between(LocalDate startDate, LocalDate endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        return this;
+    }
+
+    public SearchQuery ofType(SearchHit.DocumentType type) {
+        this.type = type;
+        return this;
+    }
+
+    public SearchQuery limit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public List<Clause> getClauses() { return Collections.unmodifiableList(clauses); }
+    public Integer getUserId() { return userId; }
+    public LocalDate getStartDate() { return startDate; }
+    public LocalDate getEndDate() { return endDate; }
+    public SearchHit.DocumentType getType() { return type; }
+    public int getLimit() { return limit; }
+    public boolean isEmpty() { return clauses.isEmpty(); }
+
+    enum ClauseType { TERM, PREFIX, PHRASE }
+
+    /**
+     * One required term, prefix or phrase
+     */
+    static final class Clause {
+        final ClauseType type;
+        final List<String> terms;
+
+        Clause(ClauseType type, List<String> terms) {
+            this.type = type;
+            this.terms = List.copyOf(terms);
+        }
+
+        @Override
+        public String toString() {
+            return switch (type) {
+                case TERM -> terms.get(0);
+                case PREFIX -> terms.get(0) + "*";
+                case PHRASE -> "\"" + String.join(" ", terms) + "\"";
+            };
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.timetracker.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into lower-case terms: runs of letters and digits, so
+ * "OAuth2-login" becomes [oauth2, login]. Terms are not stemmed.
+ */
+public final class Tokenizer {
+
+    static final int MAX_TERM_LENGTH = 40;
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(normalize(text.substring(start, Math.min(i, start + MAX_TERM_LENGTH))));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    static String normalize(String term) {
+        return term.toLowerCase(Locale.ROOT);
+    }
+}
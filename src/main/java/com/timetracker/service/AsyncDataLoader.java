@@ -1,7 +1,14 @@
 package com.timetracker.service;
 
+import com.timetracker.jfr.DashboardLoadEvent;
+import com.timetracker.jfr.LoaderTaskEvent;
+import com.timetracker.util.DatabaseManager;
 import javafx.application.Platform;
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 /**
@@ -12,12 +19,66 @@ import java.util.function.Consumer;
  */
 public class AsyncDataLoader {
     
+    private static final String ANONYMOUS_KEY_PREFIX = "anonymous-";
+    
+    private final String owner;
     private final ExecutorService executorService;
-    private final ConcurrentHashMap<String, Future<?>> runningTasks = new ConcurrentHashMap<>();
+    private final ExecutorStrategy strategy;
+    private final Semaphore databaseLimiter;
+    private final ConcurrentHashMap<String, InFlightLoad<?>> runningTasks = new ConcurrentHashMap<>();
+    private final AtomicLong anonymousKeys = new AtomicLong();
+    
+    // Load counters
+    private final AtomicLong coalescedLoads = new AtomicLong();
+    private final AtomicLong cancelledLoads = new AtomicLong();
+    private final AtomicLong completedLoads = new AtomicLong();
+    private final AtomicLong failedLoads = new AtomicLong();
     
     public AsyncDataLoader() {
-        // Create a thread pool for async operations
-        this.executorService = Executors.newFixedThreadPool(5);
+        this(ExecutorStrategy.fromSystemProperty());
+    }
+    
+    /**
+     * @param owner Name of the controller using this loader, reported in flight recorder events
+     */
+    public AsyncDataLoader(String owner) {
+        this(owner, ExecutorStrategy.fromSystemProperty(), DatabaseManager.getInstance().getConnectionPool().getMaxSize());
+    }
+    
+    public AsyncDataLoader(ExecutorStrategy strategy) {
+        this(strategy, DatabaseManager.getInstance().getConnectionPool().getMaxSize());
+    }
+    
+    /**
+     * @param strategy How loads are executed
+     * @param maxConcurrentLoads Loads allowed to run at once; sized to the connection
+     *                           pool so virtual threads cannot stampede the database
+     */
+    public AsyncDataLoader(ExecutorStrategy strategy, int maxConcurrentLoads) {
+        this(AsyncDataLoader.class.getSimpleName(), strategy, maxConcurrentLoads);
+    }
+    
+    public AsyncDataLoader(String owner, ExecutorStrategy strategy, int maxConcurrentLoads) {
+        this.owner = owner;
+        this.strategy = strategy;
+        this.executorService = strategy.createExecutor();
+        this.databaseLimiter = new Semaphore(maxConcurrentLoads, true);
+    }
+    
+    public ExecutorStrategy getStrategy() {
+        return strategy;
+    }
+    
+    /**
+     * Runs a loader while holding a database permit
+     */
+    private <T> T callLimited(Callable<T> dataLoader) throws Exception {
+        databaseLimiter.acquire();
+        try {
+            return dataLoader.call();
+        } finally {
+            databaseLimiter.release();
+        }
     }
     
     /**
@@ -28,20 +89,166 @@ public class AsyncDataLoader {
      * @param <T> The type of data to load
      */
     public <T> void loadAsync(Callable<T> dataLoader, Consumer<T> onSuccess, Consumer<Exception> onError) {
-        String taskId = Thread.currentThread().getName() + "-" + System.currentTimeMillis();
+        loadAsync(ANONYMOUS_KEY_PREFIX + anonymousKeys.incrementAndGet(), dataLoader, onSuccess, onError);
+    }
+    
+    /**
+     * Loads data asynchronously, coalescing identical requests.
+     * If a load with the same key is still running, no new load is started:
+     * the callbacks are attached to the running one and receive its result.
+     * @param key Identifies the data being loaded, e.g. "member-tasks:42"
+     * @param dataLoader The function that loads data
+     * @param onSuccess Callback for successful load
+     * @param onError Callback for errors
+     * @param <T> The type of data to load
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void loadAsync(String key, Callable<T> dataLoader, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        AtomicReference<InFlightLoad<T>> created = new AtomicReference<>();
+        InFlightLoad<T> load = (InFlightLoad<T>) runningTasks.compute(key, (k, existing) -> {
+            if (existing != null && !existing.result.isDone()) {
+                return existing;
+            }
+            created.set(new InFlightLoad<>(k));
+            return created.get();
+        });
         
-        Future<T> future = executorService.submit(() -> {
-            try {
-                T result = dataLoader.call();
-                Platform.runLater(() -> onSuccess.accept(result));
-                return result;
-            } catch (Exception e) {
-                Platform.runLater(() -> onError.accept(e));
-                throw new RuntimeException(e);
+        if (created.get() == null) {
+            coalescedLoads.incrementAndGet();
+            LoaderTaskEvent event = new LoaderTaskEvent();
+            if (event.isEnabled()) {
+                event.owner = owner;
+                event.key = key;
+                event.strategy = strategy.name();
+                event.outcome = "COALESCED";
+                event.commit();
+            }
+        }
+        deliver(load, onSuccess, onError);
+        if (created.get() != null) {
+            start(created.get(), dataLoader);
+        }
+    }
+    
+    /**
+     * Loads data asynchronously where only the newest request matters (latest wins).
+     * A running load with the same key is cancelled and its callbacks are never called;
+     * use this when the request parameters change, e.g. a date filter.
+     * @param key Identifies the slot being loaded, e.g. "member-log-filter"
+     * @param dataLoader The function that loads data
+     * @param onSuccess Callback for successful load
+     * @param onError Callback for errors
+     * @param <T> The type of data to load
+     */
+    public <T> void loadLatestAsync(String key, Callable<T> dataLoader, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        InFlightLoad<T> load = new InFlightLoad<>(key);
+        InFlightLoad<?> superseded = runningTasks.put(key, load);
+        if (superseded != null) {
+            superseded.cancel();
+        }
+        deliver(load, onSuccess, onError);
+        start(load, dataLoader);
+    }
+    
+    private <T> void start(InFlightLoad<T> load, Callable<T> dataLoader) {
+        LoaderTaskEvent event = new LoaderTaskEvent();
+        event.begin();
+        long queuedAt = System.nanoTime();
+        load.result.whenComplete((result, error) -> {
+            runningTasks.remove(load.key, load);
+            String outcome;
+            if (error == null) {
+                completedLoads.incrementAndGet();
+                outcome = "COMPLETED";
+            } else if (!(error instanceof CancellationException)) {
+                failedLoads.incrementAndGet();
+                outcome = "FAILED";
+            } else {
+                outcome = "CANCELLED";
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.owner = owner;
+                event.key = load.key;
+                event.strategy = strategy.name();
+                event.outcome = outcome;
+                event.commit();
             }
         });
         
-        runningTasks.put(taskId, future);
+        try {
+            load.task = executorService.submit(() -> {
+                if (load.result.isDone()) {
+                    return;
+                }
+                try {
+                    load.result.complete(callLimited(() -> {
+                        event.waitTime = System.nanoTime() - queuedAt;
+                        return dataLoader.call();
+                    }));
+                } catch (InterruptedException e) {
+                    load.result.cancel(false);
+                } catch (Exception e) {
+                    load.result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            load.result.completeExceptionally(e);
+        }
+        if (load.result.isCancelled()) {
+            // Cancelled before the task was submitted
+            load.cancel();
+        }
+    }
+    
+    private <T> void deliver(InFlightLoad<T> load, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        // Named loads fill dashboard views; anonymous ones are writes and are not reported as view loads
+        DashboardLoadEvent event = new DashboardLoadEvent();
+        boolean viewLoad = !load.key.startsWith(ANONYMOUS_KEY_PREFIX);
+        event.begin();
+        load.result.whenComplete((result, error) -> {
+            if (error == null) {
+                Platform.runLater(() -> {
+                    long uiStart = System.nanoTime();
+                    onSuccess.accept(result);
+                    if (viewLoad) {
+                        event.uiTime = System.nanoTime() - uiStart;
+                        event.items = countItems(result);
+                        commitDashboardLoad(event, load.key, "LOADED");
+                    }
+                });
+            } else if (!(error instanceof CancellationException)) {
+                Exception cause = error instanceof Exception ? (Exception) error : new ExecutionException(error);
+                Platform.runLater(() -> {
+                    onError.accept(cause);
+                    if (viewLoad) {
+                        commitDashboardLoad(event, load.key, "FAILED");
+                    }
+                });
+            } else if (viewLoad) {
+                commitDashboardLoad(event, load.key, "CANCELLED");
+            }
+        });
+    }
+    
+    private void commitDashboardLoad(DashboardLoadEvent event, String key, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.controller = owner;
+            event.view = key;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+    
+    private static int countItems(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        return 0;
     }
     
     /**
@@ -56,7 +263,7 @@ public class AsyncDataLoader {
                                           Consumer<T> onSuccess, Consumer<Exception> onError) {
         CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
             try {
-                return dataLoader.call();
+                return callLimited(dataLoader);
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -74,27 +281,79 @@ public class AsyncDataLoader {
      * Cancels a running task
      * @param taskId The task ID
      */
-    public synchronized void cancelTask(String taskId) {
-        Future<?> future = runningTasks.get(taskId);
-        if (future != null && !future.isDone()) {
-            future.cancel(true);
-            runningTasks.remove(taskId);
+    public void cancelTask(String taskId) {
+        InFlightLoad<?> load = runningTasks.remove(taskId);
+        if (load != null) {
+            load.cancel();
+        }
+    }
+    
+    /**
+     * Cancels every running load, e.g. when the user leaves a dashboard
+     */
+    public void cancelAll() {
+        for (String key : runningTasks.keySet()) {
+            cancelTask(key);
         }
     }
     
+    public long getCoalescedCount() { return coalescedLoads.get(); }
+    public long getCancelledCount() { return cancelledLoads.get(); }
+    public long getCompletedCount() { return completedLoads.get(); }
+    public long getFailedCount() { return failedLoads.get(); }
+    public int getInFlightCount() { return runningTasks.size(); }
+    
+    /**
+     * Cancels the view loads and stops accepting new ones without waiting, for use
+     * on the FX thread when a dashboard is closed. Anonymous loads (writes, exports)
+     * run to completion; nothing is interrupted.
+     */
+    public void dispose() {
+        for (String key : runningTasks.keySet()) {
+            if (!key.startsWith(ANONYMOUS_KEY_PREFIX)) {
+                cancelTask(key);
+            }
+        }
+        executorService.shutdown();
+    }
+    
     /**
-     * Shuts down the executor service
+     * Shuts down the executor service, waiting up to 5 seconds for running loads.
+     * Loads still running after that are left to finish, not interrupted.
      */
     public void shutdown() {
         executorService.shutdown();
         try {
             if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                executorService.shutdownNow();
+                System.err.println(owner + ": loads still running at shutdown");
             }
         } catch (InterruptedException e) {
-            executorService.shutdownNow();
             Thread.currentThread().interrupt();
         }
     }
+    
+    /**
+     * A running load; the result future is shared by every coalesced caller.
+     * Cancelling drops its callbacks and skips it if it has not started, but never
+     * interrupts it: an interrupt inside H2 JDBC can break the store for every connection.
+     */
+    private final class InFlightLoad<T> {
+        private final String key;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile Future<?> task;
+        
+        private InFlightLoad(String key) {
+            this.key = key;
+        }
+        
+        private void cancel() {
+            if (result.cancel(false)) {
+                cancelledLoads.incrementAndGet();
+            }
+            Future<?> running = task;
+            if (running != null) {
+                running.cancel(false);
+            }
+        }
+    }
 }
-
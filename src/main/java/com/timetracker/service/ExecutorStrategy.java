@@ -0,0 +1,54 @@
+package com.timetracker.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How AsyncDataLoader runs its background loads
+ */
+public enum ExecutorStrategy {
+
+    /**
+     * A small fixed pool of platform threads; loads queue once all threads are busy
+     */
+    FIXED_POOL {
+        @Override
+        public ExecutorService createExecutor() {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(FIXED_POOL_SIZE, r -> {
+                Thread thread = new Thread(r, "data-loader-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    },
+
+    /**
+     * One virtual thread per load; blocking JDBC calls park the virtual thread
+     * instead of tying up a platform thread
+     */
+    VIRTUAL_THREAD_PER_TASK {
+        @Override
+        public ExecutorService createExecutor() {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("data-loader-", 1).factory());
+        }
+    };
+
+    public static final int FIXED_POOL_SIZE = 5;
+
+    public abstract ExecutorService createExecutor();
+
+    /**
+     * Strategy named by -Dtimetracker.loader.strategy, defaulting to virtual threads
+     */
+    public static ExecutorStrategy fromSystemProperty() {
+        String name = System.getProperty("timetracker.loader.strategy", VIRTUAL_THREAD_PER_TASK.name());
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown loader strategy '" + name + "', using " + FIXED_POOL);
+            return FIXED_POOL;
+        }
+    }
+}
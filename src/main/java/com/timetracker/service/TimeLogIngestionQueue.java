@@ -0,0 +1,447 @@
+package com.timetracker.service;
+
+import com.timetracker.dao.TimeLogDAO;
+import com.timetracker.exception.DatabaseException;
+import com.timetracker.exception.ValidationException;
+import com.timetracker.journal.FsyncPolicy;
+import com.timetracker.journal.JournalCompactor;
+import com.timetracker.journal.JournalRecord;
+import com.timetracker.journal.JournalReplayer;
+import com.timetracker.journal.TimeLogJournal;
+import com.timetracker.model.TimeLog;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind ingestion of time log creates, updates and deletes.
+ *
+ * {@link #submit} appends the write to the memory-mapped {@link TimeLogJournal}
+ * and queues it, which takes microseconds, so logging time never waits on the
+ * database. Its {@link Submission} is journaled once the write is as durable as
+ * the {@link FsyncPolicy} makes it; under BATCH a force thread forces everything
+ * appended since its last force at once, independently of the database, so that
+ * takes one fsync even while the database is down. A single writer thread commits the queue in group-commit batches (up
+ * to {@code timetracker.ingest.batchSize} writes, gathered for at most
+ * {@code timetracker.ingest.flushIntervalMs}), retrying with backoff while the
+ * database is unavailable. The {@link JournalReplayer} records each batch's last
+ * journal sequence in the same transaction, so writes left in the journal by a
+ * crash are applied exactly once on the next {@link #start}, and the
+ * {@link JournalCompactor} deletes segments once they are applied. Committed rows
+ * reach the dashboards through the ChangeFeed like any other write.
+ */
+public final class TimeLogIngestionQueue {
+
+    private static final int QUEUE_CAPACITY = Integer.getInteger("timetracker.ingest.queueCapacity", 10_000);
+    private static final int BATCH_SIZE = Integer.getInteger("timetracker.ingest.batchSize", 500);
+    private static final long FLUSH_INTERVAL_MS = Long.getLong("timetracker.ingest.flushIntervalMs", 50L);
+    private static final String JOURNAL_DIRECTORY = System.getProperty("timetracker.journal.dir", "timetracker-journal");
+    private static final int JOURNAL_SEGMENT_BYTES =
+        Integer.getInteger("timetracker.journal.segmentBytes", TimeLogJournal.DEFAULT_SEGMENT_BYTES);
+    private static final long JOURNAL_FSYNC_INTERVAL_MS = Long.getLong("timetracker.journal.fsyncIntervalMs", 1000L);
+    private static final long INITIAL_RETRY_MS = 100;
+    private static final long MAX_RETRY_MS = 5_000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private static TimeLogIngestionQueue instance;
+
+    private final BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // Writes appended under FsyncPolicy.BATCH and not yet acknowledged as journaled
+    private final BlockingQueue<Pending> unforced = new LinkedBlockingQueue<>();
+    private final TimeLogDAO timeLogDAO = new TimeLogDAO();
+    private TimeLogJournal journal;
+    private JournalReplayer replayer;
+    private JournalCompactor compactor;
+    private Thread writer;
+    private Thread forcer;
+    private volatile boolean accepting;
+    private volatile boolean retrying;
+
+    // Ingestion metrics
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong appliedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+
+    private TimeLogIngestionQueue() {}
+
+    public static synchronized TimeLogIngestionQueue getInstance() {
+        if (instance == null) {
+            instance = new TimeLogIngestionQueue();
+        }
+        return instance;
+    }
+
+    /**
+     * Opens the journal and starts the writer thread, which first applies any
+     * writes a previous run journaled but did not commit
+     * @throws DatabaseException if the journal or its checkpoint cannot be read
+     */
+    public synchronized void start() throws DatabaseException {
+        if (writer != null) {
+            return;
+        }
+        try {
+            journal = new TimeLogJournal(Paths.get(JOURNAL_DIRECTORY), JOURNAL_SEGMENT_BYTES,
+                FsyncPolicy.fromSystemProperty(), JOURNAL_FSYNC_INTERVAL_MS);
+        } catch (IOException e) {
+            throw new DatabaseException("Failed to open time log journal " + JOURNAL_DIRECTORY, e);
+        }
+        replayer = new JournalReplayer(journal, timeLogDAO, BATCH_SIZE);
+        compactor = new JournalCompactor(journal);
+        journal.advanceTo(replayer.getAppliedSequence());
+        long replayThrough = journal.getLastSequence();
+
+        accepting = true;
+        writer = new Thread(() -> run(replayThrough), "time-log-ingest");
+        writer.setDaemon(true);
+        writer.start();
+        forcer = new Thread(this::forceJournaled, "time-log-journal-force");
+        forcer.setDaemon(true);
+        forcer.start();
+    }
+
+    /**
+     * Whether {@link #submit} accepts time logs, i.e. the queue was started and not shut down
+     */
+    public boolean isRunning() {
+        return accepting;
+    }
+
+    /**
+     * Journals and queues a new time log. Callers can report it saved once the submission
+     * is journaled; it survives a crash from then on and is committed once the database
+     * takes it, however long that is unavailable.
+     * @return Submission whose committed result is true once committed (the time log's ID
+     *         is then set, unless the commit went through but failed to report back); both
+     *         results fail if it is invalid, the queue is full or the journal cannot be written,
+     *         and the committed one also if the database rejects it
+     */
+    public Submission submit(TimeLog timeLog) {
+        if (timeLog == null || !timeLog.isValid()) {
+            return Submission.failed(new ValidationException("Invalid time log"));
+        }
+        return enqueue(current -> current.appendCreate(timeLog));
+    }
+
+    /**
+     * Journals and queues an update of an existing time log
+     * @return Submission whose committed result is whether the time log still existed; true
+     *         if that is unknown because the commit went through but failed to report back
+     */
+    public Submission submitUpdate(TimeLog timeLog) {
+        if (timeLog == null || timeLog.getId() <= 0 || !timeLog.isValid()) {
+            return Submission.failed(new ValidationException("Invalid time log"));
+        }
+        return enqueue(current -> current.appendUpdate(timeLog));
+    }
+
+    /**
+     * Journals and queues the deletion of a time log
+     * @return Submission whose committed result is whether the time log still existed; true
+     *         if that is unknown because the commit went through but failed to report back
+     */
+    public Submission submitDelete(int timeLogId) {
+        if (timeLogId <= 0) {
+            return Submission.failed(new ValidationException("Invalid time log ID: " + timeLogId));
+        }
+        return enqueue(current -> current.appendDelete(timeLogId));
+    }
+
+    private Submission enqueue(JournalAppend append) {
+        TimeLogJournal current = journal;
+        if (!accepting || current == null) {
+            return Submission.failed(new DatabaseException("Time log ingestion is not running"));
+        }
+        Pending pending;
+        // Held so that journal order and queue order are the same
+        synchronized (current) {
+            if (queue.remainingCapacity() == 0) {
+                return Submission.failed(new DatabaseException(
+                    "Time log ingestion queue is full (" + QUEUE_CAPACITY + " pending)"));
+            }
+            try {
+                pending = new Pending(append.append(current), new Submission());
+            } catch (IOException e) {
+                return Submission.failed(new DatabaseException("Failed to journal time log", e));
+            }
+            queue.add(pending);
+        }
+        submittedCount.incrementAndGet();
+        if (current.getFsyncPolicy() == FsyncPolicy.BATCH) {
+            unforced.add(pending);
+        } else {
+            // ALWAYS forced it while appending; INTERVAL and NEVER promise no force per write
+            pending.submission.journaled.complete(null);
+        }
+        return pending.submission;
+    }
+
+    /**
+     * Stops accepting writes and commits the queued ones. Whatever cannot be
+     * committed before the timeout stays in the journal for the next start.
+     */
+    public synchronized void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        accepting = false;
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Not interrupted: an interrupt inside H2's JDBC calls can break the store.
+        // A writer still retrying gives up at its next backoff, as accepting is false.
+        writer = null;
+        try {
+            forcer.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        forcer = null;
+        try {
+            journal.close();
+            // Closing forced whatever the force thread had not acknowledged yet
+            List<Pending> remaining = new ArrayList<>();
+            unforced.drainTo(remaining);
+            for (Pending pending : remaining) {
+                pending.submission.journaled.complete(null);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Forces the BATCH journal for the writes appended since the last force, all
+     * at once, and acknowledges them as journaled
+     */
+    private void forceJournaled() {
+        List<Pending> forced = new ArrayList<>();
+        try {
+            while (accepting || !unforced.isEmpty()) {
+                Pending first = unforced.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                forced.add(first);
+                unforced.drainTo(forced);
+                try {
+                    journal.sync();
+                    for (Pending pending : forced) {
+                        pending.submission.journaled.complete(null);
+                    }
+                } catch (IOException e) {
+                    // Still queued; the commit acknowledges them instead
+                    e.printStackTrace();
+                }
+                forced.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(long replayThrough) {
+        try {
+            long backoff = INITIAL_RETRY_MS;
+            while (true) {
+                try {
+                    int replayed = replayer.replay(replayThrough);
+                    if (replayed > 0) {
+                        System.out.println("Replayed " + replayed + " journaled time log writes");
+                    }
+                    compactor.compact(replayer.getAppliedSequence());
+                    break;
+                } catch (DatabaseException e) {
+                    if (!accepting) {
+                        return;
+                    }
+                    retryCount.incrementAndGet();
+                    System.err.println("Retrying time log journal replay in " + backoff + " ms: " + e.getMessage());
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, MAX_RETRY_MS);
+                }
+            }
+
+            List<Pending> batch = new ArrayList<>(BATCH_SIZE);
+            while (accepting || !queue.isEmpty()) {
+                Pending first = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Group commit: gather whatever else arrives within the flush interval
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS);
+                while (batch.size() < BATCH_SIZE) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                if (!commit(batch)) {
+                    return;
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Commits one batch, retrying until it succeeds or the queue shuts down
+     * @return false if the queue shut down first; the batch stays journaled
+     */
+    private boolean commit(List<Pending> batch) throws InterruptedException {
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        List<JournalRecord> records = new ArrayList<>(batch.size());
+        Map<JournalRecord, Submission> submissions = new IdentityHashMap<>();
+        for (Pending pending : batch) {
+            records.add(pending.record);
+            submissions.put(pending.record, pending.submission);
+        }
+        JournalReplayer.ApplyListener listener = new JournalReplayer.ApplyListener() {
+            @Override
+            public void applied(JournalRecord record, boolean changed) {
+                appliedCount.incrementAndGet();
+                submissions.get(record).commit(changed);
+            }
+
+            @Override
+            public void rejected(JournalRecord record, String reason) {
+                rejectedCount.incrementAndGet();
+                submissions.get(record).reject(new DatabaseException("Time log rejected: " + reason));
+            }
+
+            @Override
+            public void committedEarlier(JournalRecord record) {
+                // The write is durable but its outcome was lost with the failed commit
+                appliedCount.incrementAndGet();
+                submissions.get(record).commit(true);
+            }
+        };
+
+        long backoff = INITIAL_RETRY_MS;
+        while (true) {
+            try {
+                replayer.apply(records, listener);
+                break;
+            } catch (DatabaseException e) {
+                if (!accepting) {
+                    System.err.println("Leaving " + batch.size() + " time log writes in the journal: " + e.getMessage());
+                    return false;
+                }
+                retrying = true;
+                retryCount.incrementAndGet();
+                System.err.println("Retrying time log batch in " + backoff + " ms: " + e.getMessage());
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_RETRY_MS);
+            }
+        }
+        retrying = false;
+        batchCount.incrementAndGet();
+        try {
+            compactor.compact(replayer.getAppliedSequence());
+        } catch (DatabaseException e) {
+            e.printStackTrace();
+        }
+        return true;
+    }
+
+    // Metrics
+
+    public int getPendingCount() { return queue.size(); }
+    /** Whether the writer is backing off because the database did not take its last batch */
+    public boolean isRetrying() { return retrying; }
+    public long getSubmittedCount() { return submittedCount.get(); }
+    public long getAppliedCount() { return appliedCount.get(); }
+    public long getRejectedCount() { return rejectedCount.get(); }
+    public long getBatchCount() { return batchCount.get(); }
+    public long getRetryCount() { return retryCount.get(); }
+
+    @Override
+    public String toString() {
+        return String.format("TimeLogIngestionQueue[pending=%d, submitted=%d, applied=%d, rejected=%d, "
+                + "batches=%d, retries=%d, %s]",
+            getPendingCount(), getSubmittedCount(), getAppliedCount(), getRejectedCount(),
+            getBatchCount(), getRetryCount(), journal);
+    }
+
+    @FunctionalInterface
+    private interface JournalAppend {
+        JournalRecord append(TimeLogJournal journal) throws IOException;
+    }
+
+    /**
+     * Progress of one submitted write: journaled, then committed
+     */
+    public static final class Submission {
+        private final CompletableFuture<Void> journaled = new CompletableFuture<>();
+        private final CompletableFuture<Boolean> committed = new CompletableFuture<>();
+
+        private static Submission failed(Exception e) {
+            Submission submission = new Submission();
+            submission.reject(e);
+            return submission;
+        }
+
+        /**
+         * Completes once the write is as durable as the journal's {@link FsyncPolicy} makes it,
+         * or exceptionally if it was never journaled
+         */
+        public CompletableFuture<Void> journaled() {
+            return journaled;
+        }
+
+        /**
+         * Completes with the write's result once the database committed it,
+         * or exceptionally if it was never journaled or the database rejected it
+         */
+        public CompletableFuture<Boolean> committed() {
+            return committed;
+        }
+
+        private void commit(boolean changed) {
+            // A committed write is durable even if its journal force was not acknowledged
+            journaled.complete(null);
+            committed.complete(changed);
+        }
+
+        private void reject(Exception e) {
+            journaled.completeExceptionally(e);
+            committed.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * A journaled write waiting to be committed
+     */
+    private static final class Pending {
+        private final JournalRecord record;
+        private final Submission submission;
+
+        private Pending(JournalRecord record, Submission submission) {
+            this.record = record;
+            this.submission = submission;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.timetracker.util;
+
+/**
+ * One committed row change, published by the DAOs on the {@link ChangeFeed}.
+ * @param <T> Entity type: TimeLog, Task, Project or User
+ */
+public final class ChangeEvent<T> {
+
+    public enum Type { INSERT, UPDATE, DELETE }
+
+    private final Type type;
+    private final Class<T> entityType;
+    private final int id;
+    private final T row;
+    private final T previous;
+
+    private ChangeEvent(Type type, Class<T> entityType, int id, T row, T previous) {
+        this.type = type;
+        this.entityType = entityType;
+        this.id = id;
+        this.row = row;
+        this.previous = previous;
+    }
+
+    public static <T> ChangeEvent<T> inserted(Class<T> entityType, int id, T row) {
+        return new ChangeEvent<>(Type.INSERT, entityType, id, row, null);
+    }
+
+    /**
+     * @param previous The row before the update, or null when the DAO did not read it
+     */
+    public static <T> ChangeEvent<T> updated(Class<T> entityType, int id, T row, T previous) {
+        return new ChangeEvent<>(Type.UPDATE, entityType, id, row, previous);
+    }
+
+    /**
+     * @param previous The deleted row, or null when the DAO did not read it
+     */
+    public static <T> ChangeEvent<T> deleted(Class<T> entityType, int id, T previous) {
+        return new ChangeEvent<>(Type.DELETE, entityType, id, null, previous);
+    }
+
+    public Type getType() { return type; }
+    public Class<T> getEntityType() { return entityType; }
+    public int getId() { return id; }
+
+    /**
+     * @return The row as committed; null for deletes
+     */
+    public T getRow() { return row; }
+
+    public T getPrevious() { return previous; }
+
+    public boolean isDelete() { return type == Type.DELETE; }
+
+    @Override
+    public String toString() {
+        return type + " " + entityType.getSimpleName() + " " + id;
+    }
+}
@@ -0,0 +1,122 @@
+package com.timetracker.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * In-process change data capture: the DAOs publish a typed event for every
+ * row they insert, update or delete, once the transaction has committed, and
+ * open dashboards subscribe to apply just those rows to their tables.
+ *
+ * Each subscriber has its own queue and executor (Platform::runLater for
+ * controllers). Events that arrive while a delivery is pending are batched
+ * into it, so a bulk import reaches a dashboard as a few large batches rather
+ * than one UI task per row, and publishers never wait on subscribers.
+ */
+public final class ChangeFeed {
+
+    private static ChangeFeed instance;
+
+    private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+
+    private ChangeFeed() {}
+
+    public static synchronized ChangeFeed getInstance() {
+        if (instance == null) {
+            instance = new ChangeFeed();
+        }
+        return instance;
+    }
+
+    /**
+     * @param entityType Entity whose changes are wanted
+     * @param executor Runs the listener, e.g. Platform::runLater
+     * @param listener Receives the events in commit order, batched
+     * @return Handle to close when the subscriber goes away
+     */
+    public <T> Subscription<T> subscribe(Class<T> entityType, Executor executor, Consumer<List<ChangeEvent<T>>> listener) {
+        Subscription<T> subscription = new Subscription<>(entityType, executor, listener);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public <T> void publish(ChangeEvent<T> event) {
+        for (Subscription<?> subscription : subscriptions) {
+            if (subscription.entityType == event.getEntityType()) {
+                subscription.offer(event);
+            }
+        }
+    }
+
+    public <T> void publishAll(List<ChangeEvent<T>> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Class<T> entityType = events.get(0).getEntityType();
+        for (Subscription<?> subscription : subscriptions) {
+            if (subscription.entityType == entityType) {
+                events.forEach(subscription::offer);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public final class Subscription<T> implements AutoCloseable {
+        private final Class<T> entityType;
+        private final Executor executor;
+        private final Consumer<List<ChangeEvent<T>>> listener;
+        private final Queue<ChangeEvent<?>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscription(Class<T> entityType, Executor executor, Consumer<List<ChangeEvent<T>>> listener) {
+            this.entityType = entityType;
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        private void offer(ChangeEvent<?> event) {
+            if (closed) {
+                return;
+            }
+            pending.add(event);
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void drain() {
+            // Cleared before polling, so an event added after the last poll schedules another drain
+            scheduled.set(false);
+            List<ChangeEvent<T>> batch = new ArrayList<>();
+            ChangeEvent<?> event;
+            while ((event = pending.poll()) != null) {
+                batch.add((ChangeEvent<T>) event);
+            }
+            if (!batch.isEmpty() && !closed) {
+                try {
+                    listener.accept(batch);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,632 @@
+package com.timetracker.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded JDBC connection pool used by DatabaseManager.
+ * Connections handed out are proxies: calling close() returns the
+ * physical connection to the pool instead of closing it, so existing
+ * try-with-resources blocks in the DAOs keep working unchanged.
+ * Likewise each physical connection keeps an LRU cache of the statements
+ * prepared on it, keyed by SQL text: closing a cached statement resets it
+ * for the next prepare of the same SQL, so hot queries are parsed and
+ * planned once per connection rather than once per DAO call.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionReturned = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private int totalConnections;
+    private boolean closed;
+    private volatile QueryMetrics queryMetrics;
+    private volatile int statementCacheSize;
+
+    // Pool-wait metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    // Statement cache metrics
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long leakThresholdMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkEvery = leakThresholdMillis > 0 ? Math.min(idleTimeoutMillis, leakThresholdMillis) : idleTimeoutMillis;
+        long period = Math.max(1000, checkEvery / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the minimum number of connections up front
+     * @throws SQLException if a connection cannot be opened
+     */
+    public void warmUp() throws SQLException {
+        lock.lock();
+        try {
+            while (totalConnections < minSize) {
+                idle.push(new PooledConnection(openPhysical()));
+                totalConnections++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout if the pool is exhausted
+     * @return Connection whose close() returns it to the pool
+     * @throws SQLException if the pool is closed, exhausted or the database is unreachable
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        boolean waited = false;
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean openNew = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    candidate = idle.poll();
+                    if (candidate != null) {
+                        break;
+                    }
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        openNew = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount.incrementAndGet();
+                        throw new SQLException("Timed out after " + borrowTimeoutMillis
+                            + " ms waiting for a database connection (pool size " + maxSize + ")");
+                    }
+                    waited = true;
+                    try {
+                        connectionReturned.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (openNew) {
+                try {
+                    candidate = new PooledConnection(openPhysical());
+                } catch (SQLException e) {
+                    discard(null);
+                    throw e;
+                }
+            } else if (!isUsable(candidate)) {
+                // Validation on borrow failed: drop it and try again
+                discard(candidate);
+                continue;
+            }
+
+            recordBorrow(start, waited);
+            QueryMetrics metrics = queryMetrics;
+            if (metrics != null) {
+                metrics.recordAcquire(metrics.currentQueryName(), System.nanoTime() - start);
+            }
+            return candidate.lease(leakThresholdMillis > 0);
+        }
+    }
+
+    /**
+     * Enables per-query instrumentation of every statement created on leased connections
+     * @param queryMetrics Metrics to record into, or null to disable
+     */
+    public void setQueryMetrics(QueryMetrics queryMetrics) {
+        this.queryMetrics = queryMetrics;
+    }
+
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * Sets how many prepared statements each connection keeps open for reuse
+     * @param statementCacheSize Statements per connection, 0 to disable caching
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Invalid statement cache size: " + statementCacheSize);
+        }
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Closes all idle connections and refuses further borrows.
+     * Borrowed connections are closed when they are returned.
+     */
+    public void close() {
+        housekeeper.shutdownNow();
+        lock.lock();
+        try {
+            closed = true;
+            for (PooledConnection pooled : idle) {
+                closeQuietly(pooled.physical);
+                totalConnections--;
+            }
+            idle.clear();
+            connectionReturned.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        boolean reusable = resetState(pooled.physical);
+
+        lock.lock();
+        try {
+            if (closed || !reusable) {
+                closeQuietly(pooled.physical);
+                totalConnections--;
+            } else {
+                pooled.lastReturned = System.currentTimeMillis();
+                idle.push(pooled);
+            }
+            connectionReturned.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        if (pooled != null) {
+            closeQuietly(pooled.physical);
+        }
+        lock.lock();
+        try {
+            totalConnections--;
+            connectionReturned.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Idle eviction, keeping at least minSize connections open
+        lock.lock();
+        try {
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections > minSize) {
+                PooledConnection pooled = it.next();
+                if (now - pooled.lastReturned >= idleTimeoutMillis) {
+                    it.remove();
+                    closeQuietly(pooled.physical);
+                    totalConnections--;
+                    evictedCount.incrementAndGet();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Leak detection: report each long-held connection once, with the borrowing stack
+        if (leakThresholdMillis > 0) {
+            for (PooledConnection pooled : borrowed) {
+                BorrowTrace trace = pooled.borrowTrace;
+                if (trace != null && !pooled.leakReported && now - pooled.borrowedAt >= leakThresholdMillis) {
+                    pooled.leakReported = true;
+                    leakCount.incrementAndGet();
+                    System.err.println("Possible connection leak: connection held for "
+                        + (now - pooled.borrowedAt) + " ms by " + trace.threadName);
+                    trace.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            return !pooled.physical.isClosed() && pooled.physical.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean resetState(Connection physical) {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    private void recordBorrow(long startNanos, boolean waited) {
+        borrowCount.incrementAndGet();
+        if (waited) {
+            long waitNanos = System.nanoTime() - startNanos;
+            waitCount.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Metrics
+
+    public int getTotalConnections() {
+        lock.lock();
+        try {
+            return totalConnections;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveConnections() { return borrowed.size(); }
+    public int getMinSize() { return minSize; }
+    public int getMaxSize() { return maxSize; }
+    public long getBorrowCount() { return borrowCount.get(); }
+    public long getWaitCount() { return waitCount.get(); }
+    public long getTimeoutCount() { return timeoutCount.get(); }
+    public long getEvictedCount() { return evictedCount.get(); }
+    public long getLeakCount() { return leakCount.get(); }
+    public long getStatementCacheHits() { return statementHits.get(); }
+    public long getStatementCacheMisses() { return statementMisses.get(); }
+    public long getStatementCacheEvictions() { return statementEvictions.get(); }
+
+    /**
+     * @return Share of prepareStatement calls served from a connection's cache, 0.0 to 1.0
+     */
+    public double getStatementCacheHitRate() {
+        long hits = statementHits.get();
+        long total = hits + statementMisses.get();
+        return total == 0 ? 0.0 : hits / (double) total;
+    }
+
+    public double getAverageWaitMillis() {
+        long waits = waitCount.get();
+        return waits == 0 ? 0.0 : totalWaitNanos.get() / (double) waits / 1_000_000.0;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[total=%d, idle=%d, active=%d, borrows=%d, waits=%d, "
+                + "avgWait=%.2fms, maxWait=%.2fms, timeouts=%d, evicted=%d, leaks=%d, "
+                + "stmtCache=%d/conn, stmtHitRate=%.1f%%, stmtHits=%d, stmtMisses=%d, stmtEvictions=%d]",
+            getTotalConnections(), getIdleConnections(), getActiveConnections(), getBorrowCount(),
+            getWaitCount(), getAverageWaitMillis(), getMaxWaitMillis(), getTimeoutCount(),
+            getEvictedCount(), getLeakCount(), getStatementCacheSize(), getStatementCacheHitRate() * 100,
+            getStatementCacheHits(), getStatementCacheMisses(), getStatementCacheEvictions());
+    }
+
+    /**
+     * Physical connection plus its borrow bookkeeping
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements = new StatementCache();
+        private volatile long borrowedAt;
+        private volatile BorrowTrace borrowTrace;
+        private volatile boolean leakReported;
+        private long lastReturned = System.currentTimeMillis();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection lease(boolean captureStack) {
+            borrowedAt = System.currentTimeMillis();
+            borrowTrace = captureStack ? new BorrowTrace() : null;
+            leakReported = false;
+            borrowed.add(this);
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * Handler for a single lease. Once closed, the proxy no longer
+     * touches the physical connection, which may already be leased again.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean released;
+
+        private LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (released ? ", released]" : "]");
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            Object result;
+            String cacheKey = method.getName().equals("prepareStatement") ? StatementCache.keyOf(args) : null;
+            if (cacheKey != null && statementCacheSize > 0) {
+                result = pooled.statements.prepare(pooled.physical, cacheKey, method, args);
+            } else {
+                result = invokeOn(pooled.physical, method, args);
+            }
+
+            QueryMetrics metrics = queryMetrics;
+            if (metrics != null && result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                return metrics.instrument(statement, sql, metrics.currentQueryName());
+            }
+            return result;
+        }
+    }
+
+    private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Prepared statements kept open on one physical connection, least recently
+     * used first. Only the thread holding the connection's lease touches it.
+     */
+    private final class StatementCache {
+        private final LinkedHashMap<String, CachedStatement> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        /**
+         * @return Cache key for prepareStatement arguments, or null for the
+         *         overloads taking generated-key column arrays, which are not cached
+         */
+        private static String keyOf(Object[] args) {
+            if (args == null || !(args[0] instanceof String sql)) {
+                return null;
+            }
+            StringBuilder key = new StringBuilder(sql);
+            for (int i = 1; i < args.length; i++) {
+                if (!(args[i] instanceof Integer option)) {
+                    return null;
+                }
+                key.append('\u0000').append(option);
+            }
+            return key.toString();
+        }
+
+        private PreparedStatement prepare(Connection physical, String key, Method method, Object[] args) throws Throwable {
+            CachedStatement cached = entries.get(key);
+            if (cached != null && !cached.inUse) {
+                statementHits.incrementAndGet();
+                cached.inUse = true;
+                return cached.proxy;
+            }
+            statementMisses.incrementAndGet();
+            PreparedStatement statement = (PreparedStatement) invokeOn(physical, method, args);
+            if (cached != null) {
+                // The same SQL is already open on this connection (nested use): hand out a plain statement
+                return statement;
+            }
+            cached = new CachedStatement(key, statement);
+            entries.put(key, cached);
+            while (entries.size() > statementCacheSize) {
+                Iterator<CachedStatement> eldest = entries.values().iterator();
+                CachedStatement evicted = eldest.next();
+                eldest.remove();
+                evicted.evict();
+            }
+            cached.inUse = true;
+            return cached.proxy;
+        }
+
+        /**
+         * Statement handle whose close() resets it for reuse rather than closing it
+         */
+        private final class CachedStatement implements InvocationHandler {
+            private final String key;
+            private final PreparedStatement statement;
+            private final PreparedStatement proxy;
+            private final int initialFetchSize;
+            private boolean inUse;
+            private boolean evicted;
+
+            private CachedStatement(String key, PreparedStatement statement) throws SQLException {
+                this.key = key;
+                this.statement = statement;
+                this.initialFetchSize = statement.getFetchSize();
+                this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    this);
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (inUse) {
+                            inUse = false;
+                            recycle();
+                        }
+                        return null;
+                    case "isClosed":
+                        return !inUse || statement.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "CachedStatement[" + statement + "]";
+                    default:
+                        break;
+                }
+                if (!inUse) {
+                    throw new SQLException("Statement has already been closed");
+                }
+                return invokeOn(statement, method, args);
+            }
+
+            private void recycle() {
+                if (evicted) {
+                    closeQuietly(statement);
+                    return;
+                }
+                try {
+                    statement.clearParameters();
+                    statement.clearBatch();
+                    statement.clearWarnings();
+                    if (statement.getFetchSize() != initialFetchSize) {
+                        statement.setFetchSize(initialFetchSize);
+                    }
+                } catch (SQLException e) {
+                    // Not reusable (e.g. the connection broke): drop it from the cache
+                    entries.remove(key, this);
+                    evicted = true;
+                    closeQuietly(statement);
+                }
+            }
+
+            /**
+             * Closes the statement now, or when its holder closes it
+             */
+            private void evict() {
+                statementEvictions.incrementAndGet();
+                evicted = true;
+                if (!inUse) {
+                    closeQuietly(statement);
+                }
+            }
+        }
+    }
+
+    /**
+     * Captures the stack of the code that borrowed a connection
+     */
+    private static final class BorrowTrace extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final String threadName = Thread.currentThread().getName();
+
+        private BorrowTrace() {
+            super("Connection borrowed here");
+        }
+    }
+}
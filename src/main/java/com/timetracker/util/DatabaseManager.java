@@ -1,101 +1,110 @@
 package com.timetracker.util;
 
+import com.timetracker.dao.TimeLogRollupDAO;
 import com.timetracker.model.UserRole;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.time.LocalDate;
 
 public class DatabaseManager {
     private static DatabaseManager instance;
-    private static final String DB_URL = "jdbc:h2:./timetracker;AUTO_SERVER=TRUE";
+    // Overridable so benchmarks and load tests can point at their own database files
+    private static final String DB_URL = System.getProperty("timetracker.db.url", "jdbc:h2:./timetracker;AUTO_SERVER=TRUE");
     private static final String DB_USER = "sa";
     private static final String DB_PASSWORD = "";
 
-    private DatabaseManager() {}
+    // Pool settings, overridable with -Dtimetracker.pool.* system properties
+    private static final int POOL_MIN_SIZE = Integer.getInteger("timetracker.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("timetracker.pool.maxSize", 10);
+    private static final long POOL_BORROW_TIMEOUT_MS = Long.getLong("timetracker.pool.borrowTimeoutMs", 10_000L);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("timetracker.pool.idleTimeoutMs", 300_000L);
+    // Leak detection captures a stack trace on every borrow, so it is opt-in
+    private static final long POOL_LEAK_THRESHOLD_MS = Long.getLong("timetracker.pool.leakThresholdMs", 0L);
+    private static final int POOL_STATEMENT_CACHE_SIZE = Integer.getInteger("timetracker.pool.statementCacheSize", 64);
 
-    public static DatabaseManager getInstance() {
+    // Query instrumentation, overridable with -Dtimetracker.query.* system properties
+    private static final boolean QUERY_METRICS_ENABLED =
+        Boolean.parseBoolean(System.getProperty("timetracker.query.metrics", "true"));
+    private static final long SLOW_QUERY_THRESHOLD_MS = Long.getLong("timetracker.query.slowThresholdMs", 200L);
+    private static final String QUERY_METRICS_FILE = System.getProperty("timetracker.query.metricsFile");
+
+    private final ConnectionPool connectionPool;
+
+    private DatabaseManager() {
+        connectionPool = new ConnectionPool(DB_URL, DB_USER, DB_PASSWORD,
+            POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_BORROW_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS, POOL_LEAK_THRESHOLD_MS);
+        connectionPool.setStatementCacheSize(POOL_STATEMENT_CACHE_SIZE);
+        if (QUERY_METRICS_ENABLED) {
+            connectionPool.setQueryMetrics(new QueryMetrics(SLOW_QUERY_THRESHOLD_MS));
+        }
+    }
+
+    public static synchronized DatabaseManager getInstance() {
         if (instance == null) {
             instance = new DatabaseManager();
         }
         return instance;
     }
 
+    /**
+     * Borrows a pooled connection; closing it returns it to the pool
+     */
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        return connectionPool.borrow();
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * @return Per-query statistics, or null if instrumentation is disabled
+     */
+    public QueryMetrics getQueryMetrics() {
+        return connectionPool.getQueryMetrics();
+    }
+
+    public void shutdown() {
+        QueryMetrics metrics = connectionPool.getQueryMetrics();
+        if (metrics != null && QUERY_METRICS_FILE != null) {
+            try {
+                metrics.dumpToFile(Paths.get(QUERY_METRICS_FILE));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        connectionPool.close();
     }
 
     public void initializeDatabase() {
+        try {
+            connectionPool.warmUp();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
         try (Connection conn = getConnection()) {
             createTables(conn);
-            insertDummyData(conn);
+            if (insertDummyData(conn)) {
+                // Sample rows are inserted directly, so derive their rollups afterwards
+                new TimeLogRollupDAO().backfill();
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     private void createTables(Connection conn) throws SQLException {
-        String[] createTableQueries = {
-            """
-            CREATE TABLE IF NOT EXISTS users (
-                id INT AUTO_INCREMENT PRIMARY KEY,
-                username VARCHAR(50) UNIQUE NOT NULL,
-                password VARCHAR(100) NOT NULL,
-                role VARCHAR(20) NOT NULL,
-                email VARCHAR(100),
-                full_name VARCHAR(100)
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS projects (
-                id INT AUTO_INCREMENT PRIMARY KEY,
-                title VARCHAR(200) NOT NULL,
-                description TEXT,
-                start_date DATE,
-                end_date DATE,
-                status VARCHAR(20) DEFAULT 'ACTIVE'
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS tasks (
-                id INT AUTO_INCREMENT PRIMARY KEY,
-                title VARCHAR(200) NOT NULL,
-                description TEXT,
-                project_id INT,
-                assigned_user_id INT,
-                status VARCHAR(20) DEFAULT 'TODO',
-                due_date DATE,
-                estimated_hours INT,
-                FOREIGN KEY (project_id) REFERENCES projects(id),
-                FOREIGN KEY (assigned_user_id) REFERENCES users(id)
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS time_logs (
-                id INT AUTO_INCREMENT PRIMARY KEY,
-                task_id INT,
-                user_id INT,
-                date DATE NOT NULL,
-                hours_spent DECIMAL(5,2) NOT NULL,
-                description TEXT,
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                FOREIGN KEY (task_id) REFERENCES tasks(id),
-                FOREIGN KEY (user_id) REFERENCES users(id)
-            )
-            """
-        };
-
-        for (String query : createTableQueries) {
-            try (Statement stmt = conn.createStatement()) {
-                stmt.execute(query);
-            }
-        }
+        new SchemaMigrator().migrate(conn);
     }
 
-    private void insertDummyData(Connection conn) throws SQLException {
+    private boolean insertDummyData(Connection conn) throws SQLException {
         // Check if data already exists
         try (Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users")) {
             if (rs.next() && rs.getInt(1) > 0) {
-                return; // Data already exists
+                return false; // Data already exists
             }
         }
 
@@ -145,5 +154,6 @@ public class DatabaseManager {
             stmt.execute(insertTasks);
             stmt.execute(insertTimeLogs);
         }
+        return true;
     }
 }
\ No newline at end of file
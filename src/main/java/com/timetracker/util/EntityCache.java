@@ -0,0 +1,234 @@
+package com.timetracker.util;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size-bounded read-through cache with LRU eviction and an optional time-to-live.
+ * Only found entities are cached; a lookup that finds nothing is not remembered,
+ * so inserts never need to invalidate anything.
+ * @param <K> The key type
+ * @param <V> The cached entity type
+ */
+public class EntityCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    // Bumped on every invalidation; a load that raced with one is not cached
+    private final AtomicLong invalidationStamp = new AtomicLong();
+
+    /**
+     * @param name Name used in stats output
+     * @param maxSize Maximum number of cached entities
+     * @param ttlSeconds Seconds an entry stays valid, or 0 to keep entries until evicted
+     */
+    public EntityCache(String name, int maxSize, long ttlSeconds) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached entity or loads it
+     * @param key The key
+     * @param loader Loads the entity on a miss; may return null if it does not exist
+     * @return The entity, or null if the loader found none
+     * @throws E if the loader fails
+     */
+    public <E extends Exception> V get(K key, Loader<K, V, E> loader) throws E {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = invalidationStamp.get();
+        V loaded = loader.load(key);
+        if (loaded != null) {
+            putIfNotInvalidated(key, loaded, stamp);
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the entities for all keys, loading every missing one in a single batch
+     * @param keys The keys
+     * @param batchLoader Loads the missing keys; absent keys are simply left out of its result
+     * @return Map of key to entity for every key that exists
+     * @throws E if the batch loader fails
+     */
+    public <E extends Exception> Map<K, V> getMany(Collection<K> keys, BatchLoader<K, V, E> batchLoader) throws E {
+        Map<K, V> result = new LinkedHashMap<>();
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            V cached = getIfPresent(key);
+            if (cached != null) {
+                result.put(key, cached);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long stamp = invalidationStamp.get();
+            Map<K, V> loaded = batchLoader.loadAll(missing);
+            loaded.forEach((key, value) -> putIfNotInvalidated(key, value, stamp));
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    public V getIfPresent(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.loadedAt > ttlNanos) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            entries.put(key, new Entry<>(value, System.nanoTime()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putIfNotInvalidated(K key, V value, long stamp) {
+        lock.lock();
+        try {
+            if (invalidationStamp.get() == stamp) {
+                entries.put(key, new Entry<>(value, System.nanoTime()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            invalidationStamp.incrementAndGet();
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            invalidationStamp.incrementAndGet();
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats getStats() {
+        int size;
+        lock.lock();
+        try {
+            size = entries.size();
+        } finally {
+            lock.unlock();
+        }
+        return new Stats(name, size, maxSize, hits.get(), misses.get(), evictions.get(), expirations.get());
+    }
+
+    @FunctionalInterface
+    public interface Loader<K, V, E extends Exception> {
+        V load(K key) throws E;
+    }
+
+    @FunctionalInterface
+    public interface BatchLoader<K, V, E extends Exception> {
+        Map<K, V> loadAll(Set<K> keys) throws E;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Point-in-time cache statistics
+     */
+    public static class Stats {
+        private final String name;
+        private final int size;
+        private final int maxSize;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+
+        public Stats(String name, int size, int maxSize, long hits, long misses, long evictions, long expirations) {
+            this.name = name;
+            this.size = size;
+            this.maxSize = maxSize;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+        }
+
+        public String getName() { return name; }
+        public int getSize() { return size; }
+        public int getMaxSize() { return maxSize; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getExpirations() { return expirations; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : hits / (double) lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s cache[size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, expirations=%d]",
+                name, size, maxSize, hits, misses, getHitRate() * 100, evictions, expirations);
+        }
+    }
+}
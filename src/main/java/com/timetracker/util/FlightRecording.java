@@ -0,0 +1,49 @@
+package com.timetracker.util;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.text.ParseException;
+
+/**
+ * Starts a flight recording with the bundled TimeTracker settings when the
+ * application is launched with -Dtimetracker.jfr.file=<path>. The recording
+ * is written to that file when the application stops.
+ */
+public class FlightRecording {
+
+    private static final String SETTINGS = "/jfr/timetracker.jfc";
+
+    private Recording recording;
+
+    public void startIfRequested() {
+        String file = System.getProperty("timetracker.jfr.file");
+        if (file == null) {
+            return;
+        }
+        try (InputStream in = FlightRecording.class.getResourceAsStream(SETTINGS);
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            recording = new Recording(Configuration.create(reader));
+            recording.setName("TimeTracker");
+            recording.setDestination(Paths.get(file));
+            recording.start();
+            System.out.println("Flight recording started, writing to " + file);
+        } catch (IOException | ParseException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void stop() {
+        if (recording != null) {
+            recording.stop();
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.timetracker.util;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects stalls of the JavaFX application thread.
+ * A daemon thread keeps one heartbeat queued on the FX thread; if the
+ * heartbeat has not run within the threshold, the FX thread's current
+ * stack is logged so the blocking call can be found.
+ */
+public class FxThreadWatchdog {
+
+    public static final long DEFAULT_THRESHOLD_MS = 50;
+
+    private final Thread fxThread;
+    private final long thresholdNanos;
+    private volatile boolean running;
+    private volatile long heartbeatPostedAt;
+    private volatile boolean heartbeatPending;
+    private Thread monitor;
+
+    /**
+     * Must be created on the JavaFX application thread
+     */
+    public FxThreadWatchdog(long thresholdMillis) {
+        if (!Platform.isFxApplicationThread()) {
+            throw new IllegalStateException("FxThreadWatchdog must be created on the JavaFX application thread");
+        }
+        this.fxThread = Thread.currentThread();
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        monitor = new Thread(this::monitorLoop, "fx-thread-watchdog");
+        monitor.setDaemon(true);
+        monitor.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (monitor != null) {
+            monitor.interrupt();
+        }
+    }
+
+    private void monitorLoop() {
+        long pollMillis = Math.max(5, TimeUnit.NANOSECONDS.toMillis(thresholdNanos) / 2);
+        boolean reported = false;
+
+        while (running) {
+            if (!heartbeatPending) {
+                reported = false;
+                heartbeatPending = true;
+                heartbeatPostedAt = System.nanoTime();
+                Platform.runLater(() -> {
+                    long blockedNanos = System.nanoTime() - heartbeatPostedAt;
+                    if (blockedNanos > thresholdNanos) {
+                        System.err.printf("FX thread was blocked for %d ms%n",
+                            TimeUnit.NANOSECONDS.toMillis(blockedNanos));
+                    }
+                    heartbeatPending = false;
+                });
+            } else if (!reported && System.nanoTime() - heartbeatPostedAt > thresholdNanos) {
+                reported = true;
+                reportStall();
+            }
+
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void reportStall() {
+        StringBuilder message = new StringBuilder()
+            .append("FX thread blocked for more than ")
+            .append(TimeUnit.NANOSECONDS.toMillis(thresholdNanos))
+            .append(" ms, currently at:");
+        for (StackTraceElement frame : fxThread.getStackTrace()) {
+            message.append(System.lineSeparator()).append("\tat ").append(frame);
+        }
+        System.err.println(message);
+    }
+}
@@ -0,0 +1,224 @@
+package com.timetracker.util;
+
+import com.timetracker.dao.TaskDAO;
+import com.timetracker.dao.TimeLogDAO;
+import com.timetracker.exception.DatabaseException;
+import com.timetracker.model.TimeLog;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Running hour totals per task, project and user.
+ * Seeded once from a single GROUP BY query and then kept current by the
+ * DAOs, which commit every time log write through {@link #commit} so its
+ * deltas are applied in O(1). A reseed waits for commits in progress and holds
+ * new ones back while it queries, so each write is either in the seed or
+ * applied after it, never both or neither. A failed seed leaves the totals
+ * unseeded, and the next read tries again.
+ * Totals are stored as hundredths of an hour (the precision of
+ * time_logs.hours_spent) so repeated additions never drift.
+ * Reads never take a lock.
+ */
+public class HoursAggregator {
+    private static HoursAggregator instance;
+
+    private final Map<Integer, LongAdder> taskHours = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> projectHours = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> userHours = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> taskProjects = new ConcurrentHashMap<>();
+    private volatile boolean seeded;
+    // Shared from a time log commit until its deltas are applied; exclusive while seeding
+    private final ReentrantReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+    private HoursAggregator() {}
+
+    public static synchronized HoursAggregator getInstance() {
+        if (instance == null) {
+            instance = new HoursAggregator();
+        }
+        return instance;
+    }
+
+    /**
+     * Loads the totals from the database if that has not happened yet.
+     * On failure the totals stay empty and the next call tries again.
+     */
+    public void seed() {
+        if (!seeded) {
+            synchronized (this) {
+                if (!seeded) {
+                    try {
+                        reseed();
+                    } catch (DatabaseException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the in-memory totals; the next read seeds them again from the database
+     */
+    public synchronized void invalidate() {
+        commitLock.writeLock().lock();
+        try {
+            seeded = false;
+            clearTotals();
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Seeds on a background thread, e.g. at startup; readers that arrive first wait for it
+     */
+    public void seedInBackground() {
+        Thread seeder = new Thread(this::seed, "hours-aggregator-seed");
+        seeder.setDaemon(true);
+        seeder.start();
+    }
+
+    /**
+     * Drops the in-memory totals and rebuilds them from the database.
+     * Time log commits wait while the totals are queried. The connection is
+     * borrowed before that, since waiting commits hold pool connections.
+     * @throws DatabaseException if the totals cannot be read; they are left unseeded
+     */
+    public synchronized void reseed() throws DatabaseException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            commitLock.writeLock().lock();
+            try {
+                seeded = false;
+                clearTotals();
+                // Both reads finish before any total is filled in, so a failure leaves them empty
+                Map<Integer, Integer> seededProjects = new TaskDAO().getTaskProjectIds(conn);
+                List<TimeLogDAO.HoursTotal> totals = new TimeLogDAO().getHoursTotals(conn);
+
+                taskProjects.putAll(seededProjects);
+                for (Integer projectId : taskProjects.values()) {
+                    projectHours.computeIfAbsent(projectId, id -> new LongAdder());
+                }
+
+                for (TimeLogDAO.HoursTotal total : totals) {
+                    long hundredths = toHundredths(total.getHours());
+                    add(taskHours, total.getTaskId(), hundredths);
+                    add(userHours, total.getUserId(), hundredths);
+                    Integer projectId = taskProjects.get(total.getTaskId());
+                    if (projectId != null) {
+                        add(projectHours, projectId, hundredths);
+                    }
+                }
+                seeded = true;
+            } finally {
+                commitLock.writeLock().unlock();
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to seed hour totals", e);
+        }
+    }
+
+    private void clearTotals() {
+        taskHours.clear();
+        projectHours.clear();
+        userHours.clear();
+        taskProjects.clear();
+    }
+
+    /**
+     * Commits a time log write and applies it to the totals before a reseed can start
+     * @param removed Time logs the write deleted, or the previous versions of updated ones
+     * @param added Time logs the write inserted, or the new versions of updated ones
+     */
+    public void commit(Connection conn, List<TimeLog> removed, List<TimeLog> added) throws SQLException {
+        commitLock.readLock().lock();
+        try {
+            conn.commit();
+            for (TimeLog timeLog : removed) {
+                applyDelta(timeLog.getTaskId(), timeLog.getUserId(), -toHundredths(timeLog.getHoursSpent()));
+            }
+            for (TimeLog timeLog : added) {
+                applyDelta(timeLog.getTaskId(), timeLog.getUserId(), toHundredths(timeLog.getHoursSpent()));
+            }
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records which project a newly created task belongs to
+     */
+    public void registerTask(int taskId, int projectId) {
+        taskProjects.put(taskId, projectId);
+        projectHours.computeIfAbsent(projectId, id -> new LongAdder());
+    }
+
+    private void applyDelta(int taskId, int userId, long hundredths) {
+        if (!seeded) {
+            // Not seeded yet: the write is committed, so the seed will read it
+            return;
+        }
+        add(taskHours, taskId, hundredths);
+        add(userHours, userId, hundredths);
+        Integer projectId = getProjectId(taskId);
+        if (projectId != null) {
+            add(projectHours, projectId, hundredths);
+        }
+    }
+
+    /**
+     * @return The task's project, from the seeded mapping when possible, or null for an unknown task
+     */
+    public Integer getProjectId(int taskId) {
+        Integer projectId = taskProjects.get(taskId);
+        if (projectId == null) {
+            projectId = new TaskDAO().getProjectIdForTask(taskId);
+            if (projectId != null) {
+                taskProjects.put(taskId, projectId);
+            }
+        }
+        return projectId;
+    }
+
+    public Map<Integer, Double> getProjectHours() {
+        seed();
+        return snapshot(projectHours);
+    }
+
+    public Map<Integer, Double> getTaskHours() {
+        seed();
+        return snapshot(taskHours);
+    }
+
+    public Map<Integer, Double> getUserHours() {
+        seed();
+        return snapshot(userHours);
+    }
+
+    public double getHoursForTask(int taskId) {
+        seed();
+        LongAdder adder = taskHours.get(taskId);
+        return adder == null ? 0.0 : adder.sum() / 100.0;
+    }
+
+    private static void add(Map<Integer, LongAdder> totals, int key, long hundredths) {
+        totals.computeIfAbsent(key, k -> new LongAdder()).add(hundredths);
+    }
+
+    private static Map<Integer, Double> snapshot(Map<Integer, LongAdder> totals) {
+        Map<Integer, Double> copy = new HashMap<>();
+        totals.forEach((key, adder) -> copy.put(key, adder.sum() / 100.0));
+        return copy;
+    }
+
+    private static long toHundredths(double hours) {
+        return Math.round(hours * 100);
+    }
+}
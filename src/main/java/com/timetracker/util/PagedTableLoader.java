@@ -0,0 +1,267 @@
+package com.timetracker.util;
+
+import com.timetracker.dao.PageRequest;
+import com.timetracker.service.AsyncDataLoader;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Fills a TableView page by page from a keyset paginated listing.
+ * Only the first page is loaded up front; the next page is fetched when the
+ * user scrolls near the last loaded row, and a page that scrolled far out of
+ * view is dropped again so at most {@link #MAX_WINDOW_ROWS} rows are held,
+ * however long the listing. Dropped rows are re-fetched on the way back.
+ * Single committed rows (e.g. from the {@link ChangeFeed}) can be applied to
+ * the window with {@link #upsert} and {@link #remove} instead of reloading it.
+ * All methods must be called on the JavaFX application thread.
+ * @param <T> Row type
+ * @param <K> Type of the listing's sort column
+ */
+public final class PagedTableLoader<T, K extends Comparable<? super K>> {
+
+    public static final int PAGE_SIZE = PageRequest.DEFAULT_PAGE_SIZE;
+    public static final int MAX_WINDOW_ROWS = 5 * PAGE_SIZE;
+    // Rows from the edge of the window at which the adjacent page is requested
+    private static final int PREFETCH_ROWS = 30;
+
+    /**
+     * Reads one page; runs on the loader's worker threads
+     */
+    @FunctionalInterface
+    public interface PageFetcher<T, K> {
+        List<T> fetch(PageRequest<K> page) throws Exception;
+    }
+
+    private final TableView<T> table;
+    private final AsyncDataLoader dataLoader;
+    private final String key;
+    private final Function<T, K> sortKey;
+    private final ToIntFunction<T> id;
+    private final Comparator<T> order;
+    private final Consumer<Exception> onError;
+    private final ObservableList<T> items = FXCollections.observableArrayList();
+
+    private PageFetcher<T, K> fetcher;
+    private boolean moreBelow;
+    private boolean moreAbove;
+    private boolean loading;
+    // Bumped by every reload so pages of an earlier listing are discarded
+    private long generation;
+
+    /**
+     * @param key Loader key; a reload supersedes any page still loading under it
+     * @param sortKey Sort column value of a row
+     * @param id ID of a row, the listing's tie-breaker
+     * @param descending Whether the listing runs from the highest sort key down
+     */
+    public PagedTableLoader(TableView<T> table, AsyncDataLoader dataLoader, String key,
+                            Function<T, K> sortKey, ToIntFunction<T> id, boolean descending,
+                            Consumer<Exception> onError) {
+        this.table = table;
+        this.dataLoader = dataLoader;
+        this.key = key;
+        this.sortKey = sortKey;
+        this.id = id;
+        Comparator<T> ascending = Comparator.comparing(sortKey).thenComparingInt(id);
+        this.order = descending ? ascending.reversed() : ascending;
+        this.onError = onError;
+        table.setRowFactory(view -> new TableRow<>() {
+            @Override
+            public void updateIndex(int index) {
+                super.updateIndex(index);
+                onRowShown(index);
+            }
+        });
+    }
+
+    /**
+     * Shows the first page of a new listing
+     */
+    public void reload(PageFetcher<T, K> fetcher) {
+        this.fetcher = fetcher;
+        reload();
+    }
+
+    /**
+     * Shows the first page of the current listing again, e.g. after rows were added
+     */
+    public void reload() {
+        long current = ++generation;
+        loading = true;
+        StagedTableRenderer.showLoading(table);
+        PageFetcher<T, K> pageFetcher = fetcher;
+        dataLoader.loadLatestAsync(key, () -> pageFetcher.fetch(PageRequest.first(PAGE_SIZE + 1)), rows -> {
+            if (current != generation) {
+                return;
+            }
+            loading = false;
+            moreAbove = false;
+            moreBelow = trimExtraRow(rows, false);
+            items.setAll(rows);
+            table.setPlaceholder(new Label("No records found"));
+            table.setItems(items);
+        }, this::failed);
+    }
+
+    /**
+     * @return Rows currently held, which is a window of the listing
+     */
+    public List<T> getLoadedRows() {
+        return items;
+    }
+
+    /**
+     * Whether the row is in the loaded window
+     */
+    public boolean contains(int rowId) {
+        return indexOf(rowId) >= 0;
+    }
+
+    /**
+     * Puts a new or changed row in its sorted place, or drops it when it now sorts
+     * outside the window (it will be fetched with the page it belongs to)
+     */
+    public void upsert(T row) {
+        if (loading && table.getItems() != items) {
+            // The first page is still loading and will include the row
+            return;
+        }
+        remove(id.applyAsInt(row));
+        int position = Collections.binarySearch(items, row, order);
+        int index = position >= 0 ? position : -position - 1;
+        boolean beforeWindow = index == 0 && moreAbove;
+        boolean afterWindow = index == items.size() && moreBelow;
+        if (!beforeWindow && !afterWindow) {
+            items.add(index, row);
+        }
+    }
+
+    public void remove(int rowId) {
+        int index = indexOf(rowId);
+        if (index >= 0) {
+            items.remove(index);
+        }
+    }
+
+    private int indexOf(int rowId) {
+        for (int i = 0; i < items.size(); i++) {
+            if (id.applyAsInt(items.get(i)) == rowId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void onRowShown(int index) {
+        if (loading || index < 0 || index >= items.size() || table.getItems() != items) {
+            return;
+        }
+        if (moreBelow && index >= items.size() - PREFETCH_ROWS) {
+            T last = items.get(items.size() - 1);
+            loadPage(PageRequest.after(sortKey.apply(last), id.applyAsInt(last), PAGE_SIZE + 1));
+        } else if (moreAbove && index < PREFETCH_ROWS) {
+            T first = items.get(0);
+            loadPage(PageRequest.before(sortKey.apply(first), id.applyAsInt(first), PAGE_SIZE + 1));
+        }
+    }
+
+    private void loadPage(PageRequest<K> page) {
+        long current = generation;
+        loading = true;
+        PageFetcher<T, K> pageFetcher = fetcher;
+        dataLoader.loadLatestAsync(key, () -> pageFetcher.fetch(page), rows -> {
+            if (current != generation) {
+                return;
+            }
+            loading = false;
+            if (page.isBackward()) {
+                prepend(rows);
+            } else {
+                append(rows);
+            }
+        }, this::failed);
+    }
+
+    private void append(List<T> rows) {
+        moreBelow = trimExtraRow(rows, false);
+        items.addAll(withoutLoaded(rows));
+        int excess = items.size() - MAX_WINDOW_ROWS;
+        if (excess > 0) {
+            // Drop rows from the top and keep the same rows in view
+            int firstVisible = firstVisibleIndex();
+            items.remove(0, excess);
+            moreAbove = true;
+            table.scrollTo(Math.max(0, firstVisible - excess));
+        }
+    }
+
+    private void prepend(List<T> rows) {
+        moreAbove = trimExtraRow(rows, true);
+        List<T> added = withoutLoaded(rows);
+        int firstVisible = firstVisibleIndex();
+        items.addAll(0, added);
+        int excess = items.size() - MAX_WINDOW_ROWS;
+        if (excess > 0) {
+            items.remove(items.size() - excess, items.size());
+            moreBelow = true;
+        }
+        table.scrollTo(firstVisible + added.size());
+    }
+
+    /**
+     * Rows upserted while their page was loading are already in the window
+     */
+    private List<T> withoutLoaded(List<T> rows) {
+        Set<Integer> loaded = new HashSet<>();
+        for (T row : items) {
+            loaded.add(id.applyAsInt(row));
+        }
+        rows.removeIf(row -> loaded.contains(id.applyAsInt(row)));
+        return rows;
+    }
+
+    /**
+     * Pages are requested one row larger than shown; the extra row only tells whether more follow
+     * @param atStart Whether the extra row is the first one (backward pages)
+     * @return Whether there are more rows beyond the page
+     */
+    private static <T> boolean trimExtraRow(List<T> rows, boolean atStart) {
+        if (rows.size() <= PAGE_SIZE) {
+            return false;
+        }
+        rows.remove(atStart ? 0 : rows.size() - 1);
+        return true;
+    }
+
+    private int firstVisibleIndex() {
+        if (table.lookup(".virtual-flow") instanceof VirtualFlow<?> flow) {
+            IndexedCell<?> cell = flow.getFirstVisibleCell();
+            if (cell != null) {
+                return cell.getIndex();
+            }
+        }
+        return 0;
+    }
+
+    private void failed(Exception e) {
+        // Stop paging rather than retrying on every scroll; a reload starts over
+        loading = false;
+        moreAbove = false;
+        moreBelow = false;
+        onError.accept(e);
+    }
+}
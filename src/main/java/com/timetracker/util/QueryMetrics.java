@@ -0,0 +1,391 @@
+package com.timetracker.util;
+
+import com.timetracker.jfr.DaoQueryEvent;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * Per-query timing for every statement run through the connection pool.
+ * Queries are named after the DAO method that issued them (found with a StackWalker),
+ * and each name keeps a latency histogram, row counts, error counts and the time
+ * spent waiting for a pooled connection. Executions slower than the threshold are
+ * logged together with their bound parameters.
+ */
+public class QueryMetrics {
+
+    private static final String DAO_PACKAGE = "com.timetracker.dao.";
+    private static final String APP_PACKAGE = "com.timetracker.";
+    private static final int SLOW_QUERY_HISTORY = 100;
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final long slowThresholdNanos;
+    private final Map<String, QueryStats> stats = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    /**
+     * @param slowThresholdMillis Executions taking at least this long are logged; 0 logs none
+     */
+    public QueryMetrics(long slowThresholdMillis) {
+        this.slowThresholdNanos = slowThresholdMillis * 1_000_000L;
+    }
+
+    /**
+     * Names the current call site: the outermost method of the first run of DAO frames on
+     * the stack (so private helpers are reported as the public DAO method that called them),
+     * or the first application class outside the database plumbing when no DAO is involved.
+     */
+    public String currentQueryName() {
+        return WALKER.walk(frames -> {
+            String first = null;
+            String outermostDao = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String className = frame.getClassName();
+                boolean dao = className.startsWith(DAO_PACKAGE) && !className.endsWith(".BaseDAO");
+                if (dao) {
+                    outermostDao = simpleName(frame);
+                } else if (outermostDao != null) {
+                    break;
+                } else if (first == null && className.startsWith(APP_PACKAGE) && !isPlumbing(frame)) {
+                    first = simpleName(frame);
+                }
+            }
+            return outermostDao != null ? outermostDao : first != null ? first : "unknown";
+        });
+    }
+
+    public void recordAcquire(String queryName, long nanos) {
+        statsFor(queryName).acquire.record(nanos);
+    }
+
+    /**
+     * Wraps a statement so its executions, rows and parameters are recorded under the given name
+     */
+    public Statement instrument(Statement statement, String sql, String queryName) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+            : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+            new Class<?>[] { type }, new StatementHandler(statement, sql, statsFor(queryName)));
+    }
+
+    public List<QueryStats> getStats() {
+        List<QueryStats> snapshot = new ArrayList<>(stats.values());
+        snapshot.sort(Comparator.comparingDouble(QueryStats::getTotalMillis).reversed());
+        return snapshot;
+    }
+
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    public void reset() {
+        stats.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    /**
+     * Plain-text report of all query statistics, slowest total first, followed by the slow-query log
+     */
+    public String formatReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-48s %8s %10s %9s %9s %9s %10s %9s %6s%n",
+            "Query", "Calls", "Total ms", "p50 ms", "p99 ms", "Max ms", "Rows", "Acq p99", "Errors"));
+        for (QueryStats query : getStats()) {
+            report.append(String.format("%-48s %8d %10.1f %9.2f %9.2f %9.2f %10d %9.2f %6d%n",
+                query.getName(), query.getExecutions(), query.getTotalMillis(),
+                millis(query.latency.getPercentileNanos(50)), millis(query.latency.getPercentileNanos(99)),
+                millis(query.latency.getMaxNanos()), query.getRows(),
+                millis(query.acquire.getPercentileNanos(99)), query.getErrors()));
+        }
+
+        List<SlowQuery> slow = getSlowQueries();
+        report.append(String.format("%nSlow queries (>= %d ms), most recent last: %d%n",
+            slowThresholdNanos / 1_000_000L, slow.size()));
+        for (SlowQuery query : slow) {
+            report.append(query).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    public void dumpToFile(Path file) throws IOException {
+        Files.writeString(file, "Query metrics at " + LocalDateTime.now().format(TIMESTAMP)
+            + System.lineSeparator() + formatReport());
+    }
+
+    private QueryStats statsFor(String queryName) {
+        return stats.computeIfAbsent(queryName, QueryStats::new);
+    }
+
+    private void recordSlowQuery(QueryStats query, String sql, Map<Integer, Object> parameters, int batchSize, long nanos) {
+        SlowQuery slow = new SlowQuery(query.getName(), sql, parameters.toString(), batchSize, nanos);
+        System.out.println("Slow query: " + slow);
+        synchronized (slowQueries) {
+            if (slowQueries.size() == SLOW_QUERY_HISTORY) {
+                slowQueries.removeFirst();
+            }
+            slowQueries.addLast(slow);
+        }
+    }
+
+    private static boolean isPlumbing(StackWalker.StackFrame frame) {
+        Class<?> type = frame.getDeclaringClass();
+        return type.getName().startsWith(ConnectionPool.class.getName())
+            || type.getName().startsWith(QueryMetrics.class.getName())
+            || (type == DatabaseManager.class && frame.getMethodName().equals("getConnection"));
+    }
+
+    private static String simpleName(StackWalker.StackFrame frame) {
+        return frame.getDeclaringClass().getSimpleName() + "." + frame.getMethodName();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Timings for one named query
+     */
+    public static class QueryStats {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram acquire = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private QueryStats(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+        public long getExecutions() { return latency.getCount(); }
+        public long getRows() { return rows.sum(); }
+        public long getErrors() { return errors.sum(); }
+        public LatencyHistogram getLatency() { return latency; }
+        public LatencyHistogram getAcquireTime() { return acquire; }
+
+        public double getTotalMillis() {
+            return latency.getMeanNanos() * latency.getCount() / 1_000_000.0;
+        }
+    }
+
+    /**
+     * One logged slow execution
+     */
+    public static class SlowQuery {
+        private final LocalDateTime at = LocalDateTime.now();
+        private final String queryName;
+        private final String sql;
+        private final String parameters;
+        private final int batchSize;
+        private final long nanos;
+
+        private SlowQuery(String queryName, String sql, String parameters, int batchSize, long nanos) {
+            this.queryName = queryName;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.batchSize = batchSize;
+            this.nanos = nanos;
+        }
+
+        public String getQueryName() { return queryName; }
+        public String getSql() { return sql; }
+        public String getParameters() { return parameters; }
+        public double getMillis() { return millis(nanos); }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s took %.1f ms: %s params=%s%s", at.format(TIMESTAMP), queryName, getMillis(),
+                sql == null ? "" : sql.replaceAll("\\s+", " ").trim(), parameters,
+                batchSize > 0 ? " (last of " + batchSize + " batched rows)" : "");
+        }
+    }
+
+    /**
+     * Times execute* calls and remembers bound parameters for the slow-query log
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String sql;
+        private final QueryStats query;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private int batchSize;
+        private ResultSetHandler openResultSet;
+
+        private StatementHandler(Statement statement, String sql, QueryStats query) {
+            this.statement = statement;
+            this.sql = sql;
+            this.query = query;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            } else if (name.startsWith("execute")) {
+                return execute(method, args);
+            } else if (name.equals("close")) {
+                // Closing the statement implicitly closes its last result set
+                finishResultSet();
+            }
+            return invokeTarget(method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String executedSql = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+            int executedBatch = batchSize;
+            DaoQueryEvent event = new DaoQueryEvent();
+            event.begin();
+            String boundParameters = event.isEnabled() ? parameters.toString() : null;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invokeTarget(method, args);
+            } catch (Throwable e) {
+                query.errors.increment();
+                commitEvent(event, executedSql, boundParameters, executedBatch, 0, true);
+                throw e;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                query.latency.record(elapsed);
+                if (slowThresholdNanos > 0 && elapsed >= slowThresholdNanos) {
+                    recordSlowQuery(query, executedSql, parameters, executedBatch, elapsed);
+                }
+            }
+
+            if (method.getName().equals("executeBatch")) {
+                batchSize = 0;
+            }
+            if (result instanceof ResultSet resultSet) {
+                // The flight recorder event stays open until the rows have been read
+                finishResultSet();
+                openResultSet = new ResultSetHandler(resultSet, query,
+                    rows -> commitEvent(event, executedSql, boundParameters, executedBatch, rows, false));
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, openResultSet);
+            }
+            commitEvent(event, executedSql, boundParameters, executedBatch, countUpdatedRows(result), false);
+            return result;
+        }
+
+        private void commitEvent(DaoQueryEvent event, String executedSql, String boundParameters,
+                                 int executedBatch, long rows, boolean failed) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.queryName = query.getName();
+                event.sql = executedSql;
+                event.parameters = boundParameters;
+                event.batchSize = executedBatch;
+                event.rows = rows;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+
+        private long countUpdatedRows(Object result) {
+            long rows = 0;
+            if (result instanceof Integer count) {
+                rows = Math.max(count, 0);
+            } else if (result instanceof Long count) {
+                rows = Math.max(count, 0);
+            } else if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    rows += Math.max(count, 0);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    rows += Math.max(count, 0);
+                }
+            }
+            query.rows.add(rows);
+            return rows;
+        }
+
+        private void finishResultSet() {
+            if (openResultSet != null) {
+                openResultSet.finish();
+                openResultSet = null;
+            }
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Counts the rows read from a result set and reports the total once it is closed
+     */
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final QueryStats query;
+        private final LongConsumer onFinished;
+        private long rowsRead;
+        private boolean finished;
+
+        private ResultSetHandler(ResultSet resultSet, QueryStats query, LongConsumer onFinished) {
+            this.resultSet = resultSet;
+            this.query = query;
+            this.onFinished = onFinished;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            try {
+                Object result = method.invoke(resultSet, args);
+                if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                    query.rows.increment();
+                    rowsRead++;
+                } else if (method.getName().equals("close")) {
+                    finish();
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void finish() {
+            if (!finished) {
+                finished = true;
+                onFinished.accept(rowsRead);
+            }
+        }
+    }
+}
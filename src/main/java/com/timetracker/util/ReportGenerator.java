@@ -1,103 +1,98 @@
 package com.timetracker.util;
 
-import com.timetracker.model.Task;
-import com.timetracker.dao.TimeLogDAO;
-import com.timetracker.dao.TaskDAO;
+import com.timetracker.analytics.Aggregation;
+import com.timetracker.analytics.GroupBy;
+import com.timetracker.analytics.ReportEngine;
+import com.timetracker.analytics.TimeLogFilter;
+import com.timetracker.jfr.ReportRunEvent;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 /**
  * ReportGenerator class demonstrating:
  * - Collections & Generics (Map, Set, List with generics)
- * - Multithreading & Synchronization (ConcurrentHashMap, ReentrantReadWriteLock)
- * - Thread-safe operations
+ * - Thread-safe operations on shared, incrementally maintained totals
+ *
+ * Reports are snapshots of HoursAggregator, which is seeded once and then
+ * updated on every time log write, so they never go stale and never
+ * rescan the time_logs table. Ad-hoc reports (any grouping, filter and
+ * aggregation) run on the parallel ReportEngine over the columnar time log store.
  */
 public class ReportGenerator {
     
-    private final TimeLogDAO timeLogDAO;
-    private final TaskDAO taskDAO;
-    
-    // Using ConcurrentHashMap for thread-safe map operations
-    private final Map<Integer, Double> projectHoursCache = new ConcurrentHashMap<>();
-    
-    // Using ReentrantReadWriteLock for synchronization
-    private final ReentrantReadWriteLock cacheLock = new ReentrantReadWriteLock();
+    private final HoursAggregator aggregator;
+    private final ReportEngine engine;
     
     // Using Set for unique collections
     private final Set<Integer> processedProjects = Collections.synchronizedSet(new HashSet<>());
     
     public ReportGenerator() {
-        this.timeLogDAO = new TimeLogDAO();
-        this.taskDAO = new TaskDAO();
+        this(new ReportEngine());
+    }
+    
+    public ReportGenerator(ReportEngine engine) {
+        this.aggregator = HoursAggregator.getInstance();
+        this.engine = engine;
     }
     
     /**
      * Generates a report of hours spent per project
-     * Demonstrates thread-safe operations with synchronization
      */
     public Map<Integer, Double> generateProjectHoursReport() {
-        cacheLock.readLock().lock();
-        try {
-            // Check cache first
-            if (!projectHoursCache.isEmpty()) {
-                return new HashMap<>(projectHoursCache);
-            }
-        } finally {
-            cacheLock.readLock().unlock();
-        }
-        
-        // Write lock for cache update
-        cacheLock.writeLock().lock();
-        try {
-            // Double-check after acquiring write lock
-            if (!projectHoursCache.isEmpty()) {
-                return new HashMap<>(projectHoursCache);
-            }
-            
-            // Generate report using collections and generics
-            Map<Integer, Double> report = new HashMap<>();
-            List<Task> tasks = taskDAO.getAllTasks();
-            
-            // Using Stream API with generics
-            Map<Integer, List<Task>> tasksByProject = tasks.stream()
-                .collect(Collectors.groupingBy(Task::getProjectId));
-            
-            for (Map.Entry<Integer, List<Task>> entry : tasksByProject.entrySet()) {
-                int projectId = entry.getKey();
-                List<Task> projectTasks = entry.getValue();
-                
-                double totalHours = 0.0;
-                for (Task task : projectTasks) {
-                    totalHours += timeLogDAO.getTotalHoursByTaskId(task.getId());
-                }
-                
-                report.put(projectId, totalHours);
-                processedProjects.add(projectId);
-            }
-            
-            // Update cache
-            projectHoursCache.putAll(report);
-            return new HashMap<>(report);
-            
-        } finally {
-            cacheLock.writeLock().unlock();
-        }
+        Map<Integer, Double> report = run("project-hours", aggregator::getProjectHours);
+        processedProjects.addAll(report.keySet());
+        return report;
     }
     
     /**
-     * Clears the cache (thread-safe)
+     * Generates a report of hours spent per user
+     */
+    public Map<Integer, Double> generateUserHoursReport() {
+        return run("user-hours", aggregator::getUserHours);
+    }
+    
+    /**
+     * Generates a report of hours spent per task
+     */
+    public Map<Integer, Double> generateTaskHoursReport() {
+        return run("task-hours", aggregator::getTaskHours);
+    }
+    
+    /**
+     * Generates an ad-hoc report, e.g. the 95th percentile of daily hours per user for one project
+     * @return Value per group: project, user or task ID, or epoch day for GroupBy.DAY
+     */
+    public Map<Integer, Double> generateReport(GroupBy groupBy, Aggregation aggregation, TimeLogFilter filter) {
+        return run(groupBy.name().toLowerCase() + "-report", () -> engine.run(groupBy, aggregation, filter));
+    }
+    
+    /**
+     * Discards the running totals and reloads them from the database,
+     * e.g. after rows were changed outside the DAOs
      */
     public void clearCache() {
-        cacheLock.writeLock().lock();
-        try {
-            projectHoursCache.clear();
-            processedProjects.clear();
-        } finally {
-            cacheLock.writeLock().unlock();
+        processedProjects.clear();
+        run("reseed", () -> {
+            aggregator.invalidate();
+            return aggregator.getProjectHours();
+        });
+    }
+    
+    /**
+     * Runs a report, recording it as a flight recorder event
+     */
+    private Map<Integer, Double> run(String reportName, Supplier<Map<Integer, Double>> report) {
+        ReportRunEvent event = new ReportRunEvent();
+        event.begin();
+        Map<Integer, Double> result = report.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.report = reportName;
+            event.entries = result.size();
+            event.commit();
         }
+        return result;
     }
     
     /**
@@ -107,4 +102,3 @@ public class ReportGenerator {
         return new HashSet<>(processedProjects);
     }
 }
-
@@ -0,0 +1,197 @@
+package com.timetracker.util;
+
+import java.sql.*;
+import java.util.List;
+
+/**
+ * Versioned, forward-only schema migrations.
+ * The applied version is kept in the schema_version table; on startup every
+ * migration with a higher version is run in order. To change the schema,
+ * append a new migration to MIGRATIONS - never edit one that has shipped.
+ */
+public class SchemaMigrator {
+
+    private static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "Create base tables",
+            """
+            CREATE TABLE IF NOT EXISTS users (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                username VARCHAR(50) UNIQUE NOT NULL,
+                password VARCHAR(100) NOT NULL,
+                role VARCHAR(20) NOT NULL,
+                email VARCHAR(100),
+                full_name VARCHAR(100)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS projects (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                title VARCHAR(200) NOT NULL,
+                description TEXT,
+                start_date DATE,
+                end_date DATE,
+                status VARCHAR(20) DEFAULT 'ACTIVE'
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS tasks (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                title VARCHAR(200) NOT NULL,
+                description TEXT,
+                project_id INT,
+                assigned_user_id INT,
+                status VARCHAR(20) DEFAULT 'TODO',
+                due_date DATE,
+                estimated_hours INT,
+                FOREIGN KEY (project_id) REFERENCES projects(id),
+                FOREIGN KEY (assigned_user_id) REFERENCES users(id)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS time_logs (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                task_id INT,
+                user_id INT,
+                date DATE NOT NULL,
+                hours_spent DECIMAL(5,2) NOT NULL,
+                description TEXT,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                FOREIGN KEY (task_id) REFERENCES tasks(id),
+                FOREIGN KEY (user_id) REFERENCES users(id)
+            )
+            """
+        ),
+        new Migration(2, "Secondary indexes for time log and task lookups",
+            "CREATE INDEX IF NOT EXISTS idx_time_logs_user_date ON time_logs(user_id, date)",
+            "CREATE INDEX IF NOT EXISTS idx_time_logs_task ON time_logs(task_id)",
+            "CREATE INDEX IF NOT EXISTS idx_time_logs_date ON time_logs(date)",
+            "CREATE INDEX IF NOT EXISTS idx_tasks_assignee_due ON tasks(assigned_user_id, due_date)",
+            "CREATE INDEX IF NOT EXISTS idx_tasks_project ON tasks(project_id)"
+        ),
+        new Migration(3, "Daily, weekly and monthly time log rollups",
+            """
+            CREATE TABLE IF NOT EXISTS time_log_rollups (
+                level VARCHAR(5) NOT NULL,
+                period_start DATE NOT NULL,
+                user_id INT NOT NULL,
+                task_id INT NOT NULL,
+                project_id INT,
+                hours DECIMAL(12,2) NOT NULL,
+                log_count INT NOT NULL,
+                PRIMARY KEY (level, period_start, user_id, task_id)
+            )
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_rollups_project ON time_log_rollups(level, project_id, period_start)",
+            "CREATE INDEX IF NOT EXISTS idx_rollups_user ON time_log_rollups(level, user_id, period_start)",
+            """
+            INSERT INTO time_log_rollups (level, period_start, user_id, task_id, project_id, hours, log_count)
+            SELECT 'DAY', l.date, COALESCE(l.user_id, 0), COALESCE(l.task_id, 0), MAX(t.project_id),
+                   SUM(l.hours_spent), COUNT(*)
+            FROM time_logs l LEFT JOIN tasks t ON t.id = l.task_id
+            GROUP BY l.date, COALESCE(l.user_id, 0), COALESCE(l.task_id, 0)
+            """,
+            """
+            INSERT INTO time_log_rollups (level, period_start, user_id, task_id, project_id, hours, log_count)
+            SELECT 'WEEK', CAST(DATEADD(DAY, 1 - ISO_DAY_OF_WEEK(period_start), period_start) AS DATE),
+                   user_id, task_id, MAX(project_id), SUM(hours), SUM(log_count)
+            FROM time_log_rollups WHERE level = 'DAY'
+            GROUP BY CAST(DATEADD(DAY, 1 - ISO_DAY_OF_WEEK(period_start), period_start) AS DATE), user_id, task_id
+            """,
+            """
+            INSERT INTO time_log_rollups (level, period_start, user_id, task_id, project_id, hours, log_count)
+            SELECT 'MONTH', CAST(DATEADD(DAY, 1 - DAY_OF_MONTH(period_start), period_start) AS DATE),
+                   user_id, task_id, MAX(project_id), SUM(hours), SUM(log_count)
+            FROM time_log_rollups WHERE level = 'DAY'
+            GROUP BY CAST(DATEADD(DAY, 1 - DAY_OF_MONTH(period_start), period_start) AS DATE), user_id, task_id
+            """
+        ),
+        new Migration(4, "Sort indexes for keyset paginated listings",
+            "CREATE INDEX IF NOT EXISTS idx_tasks_title ON tasks(title, id)",
+            "CREATE INDEX IF NOT EXISTS idx_projects_title ON projects(title, id)",
+            "CREATE INDEX IF NOT EXISTS idx_users_full_name ON users(full_name, id)"
+        ),
+        new Migration(5, "Checkpoint of the time log ingestion journal",
+            """
+            CREATE TABLE IF NOT EXISTS time_log_journal_checkpoint (
+                id INT PRIMARY KEY,
+                applied_sequence BIGINT NOT NULL
+            )
+            """,
+            "INSERT INTO time_log_journal_checkpoint (id, applied_sequence) VALUES (1, 0)"
+        )
+    );
+
+    /**
+     * Brings the schema up to the latest version
+     * @param conn Connection to migrate
+     * @throws SQLException if a migration fails or the database is newer than this code
+     */
+    public void migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INT PRIMARY KEY,
+                    description VARCHAR(200) NOT NULL,
+                    applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+                """);
+        }
+
+        int current = getCurrentVersion(conn);
+        int latest = MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+        if (current > latest) {
+            throw new SQLException("Database schema version " + current
+                + " is newer than the latest known version " + latest);
+        }
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version > current) {
+                apply(conn, migration);
+            }
+        }
+    }
+
+    public int getCurrentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : migration.statements) {
+                    stmt.execute(sql);
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                stmt.setInt(1, migration.version);
+                stmt.setString(2, migration.description);
+                stmt.executeUpdate();
+            }
+            conn.commit();
+            System.out.println("Applied schema migration " + migration.version + ": " + migration.description);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Schema migration " + migration.version + " failed", e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final String[] statements;
+
+        private Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.timetracker.util;
+
+import javafx.animation.AnimationTimer;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.VBox;
+import javafx.geometry.Pos;
+
+import java.util.List;
+
+/**
+ * Fills TableViews in stages so large results never stall a frame:
+ * the first rows are shown immediately and the rest are appended one
+ * chunk per pulse. A newer render of the same table stops an older one.
+ * All methods must be called on the JavaFX application thread.
+ */
+public final class StagedTableRenderer {
+
+    public static final int FIRST_CHUNK = 100;
+    public static final int CHUNK_SIZE = 500;
+
+    private static final String RENDER_KEY = StagedTableRenderer.class.getName();
+
+    private StagedTableRenderer() {}
+
+    /**
+     * Replaces the table content with a loading indicator
+     */
+    public static void showLoading(TableView<?> table) {
+        stopRender(table);
+        ProgressIndicator indicator = new ProgressIndicator();
+        indicator.setMaxSize(40, 40);
+        VBox placeholder = new VBox(8, indicator, new Label("Loading..."));
+        placeholder.setAlignment(Pos.CENTER);
+        table.setPlaceholder(placeholder);
+        table.setItems(FXCollections.observableArrayList());
+    }
+
+    /**
+     * Shows the rows, first chunk now and the remainder over the following pulses
+     */
+    public static <T> void render(TableView<T> table, List<T> rows) {
+        stopRender(table);
+        table.setPlaceholder(new Label("No records found"));
+
+        int first = Math.min(FIRST_CHUNK, rows.size());
+        ObservableList<T> items = FXCollections.observableArrayList(rows.subList(0, first));
+        table.setItems(items);
+        if (first == rows.size()) {
+            return;
+        }
+
+        AnimationTimer timer = new AnimationTimer() {
+            private int offset = first;
+
+            @Override
+            public void handle(long now) {
+                int end = Math.min(offset + CHUNK_SIZE, rows.size());
+                items.addAll(rows.subList(offset, end));
+                offset = end;
+                if (offset >= rows.size()) {
+                    stop();
+                    table.getProperties().remove(RENDER_KEY, this);
+                }
+            }
+        };
+        table.getProperties().put(RENDER_KEY, timer);
+        timer.start();
+    }
+
+    private static void stopRender(TableView<?> table) {
+        Object previous = table.getProperties().remove(RENDER_KEY);
+        if (previous instanceof AnimationTimer) {
+            ((AnimationTimer) previous).stop();
+        }
+    }
+}
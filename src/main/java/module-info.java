@@ -3,6 +3,7 @@ module timetracker {
     requires javafx.fxml;
     requires java.sql;
     requires java.desktop;
+    requires jdk.jfr;
     
     opens com.timetracker to javafx.fxml;
     opens com.timetracker.controller to javafx.fxml;
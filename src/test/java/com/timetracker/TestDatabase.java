@@ -0,0 +1,23 @@
+package com.timetracker;
+
+import com.timetracker.util.DatabaseManager;
+
+/**
+ * In-memory database shared by the tests that go through DatabaseManager.
+ * Its URL is read once per JVM, so every such test class must open this one
+ * rather than name its own.
+ */
+public final class TestDatabase {
+
+    public static final String URL = "jdbc:h2:mem:timetracker_test;DB_CLOSE_DELAY=-1";
+
+    private TestDatabase() {}
+
+    /**
+     * Migrates the database and adds the sample data, if that has not happened yet
+     */
+    public static synchronized void initialize() {
+        System.setProperty("timetracker.db.url", URL);
+        DatabaseManager.getInstance().initializeDatabase();
+    }
+}
@@ -0,0 +1,164 @@
+package com.timetracker.dao;
+
+import com.timetracker.util.SchemaMigrator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the hot DAO queries resolve through the indexes the schema
+ * migrations create, by reading H2's EXPLAIN output for each of them. The
+ * tables are filled and analyzed first so the planner has real selectivity to
+ * go by. An index is expected by its table and leading columns rather than by
+ * name: H2 gives every foreign key its own index, and a lookup through that one
+ * is as good as through the migration's index on the same column.
+ */
+class QueryPlanTest {
+
+    private static final int USERS = 50;
+    private static final int PROJECTS = 20;
+    private static final int TASKS = 1_000;
+    private static final int TIME_LOGS = 50_000;
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 1, 31);
+
+    private static Connection conn;
+
+    @BeforeAll
+    static void migrate() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:query_plan;DB_CLOSE_DELAY=-1", "sa", "");
+        new SchemaMigrator().migrate(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO users (username, password, role, full_name) "
+                + "SELECT 'user' || x, 'secret', 'TEAM_MEMBER', 'User ' || x FROM SYSTEM_RANGE(1, " + USERS + ")");
+            stmt.execute("INSERT INTO projects (title) SELECT 'Project ' || x FROM SYSTEM_RANGE(1, " + PROJECTS + ")");
+            stmt.execute("INSERT INTO tasks (title, project_id, assigned_user_id, due_date) "
+                + "SELECT 'Task ' || x, MOD(x, " + PROJECTS + ") + 1, MOD(x, " + USERS + ") + 1, "
+                + "DATEADD(DAY, MOD(x, 365), DATE '2024-01-01') FROM SYSTEM_RANGE(1, " + TASKS + ")");
+            stmt.execute("INSERT INTO time_logs (task_id, user_id, date, hours_spent) "
+                + "SELECT MOD(x, " + TASKS + ") + 1, MOD(x, " + USERS + ") + 1, "
+                + "DATEADD(DAY, MOD(x, 730), DATE '2023-01-01'), 1.5 FROM SYSTEM_RANGE(1, " + TIME_LOGS + ")");
+            stmt.execute("ANALYZE");
+        }
+    }
+
+    @AfterAll
+    static void close() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    void timeLogsByUserUseUserDateIndex() throws SQLException {
+        assertUsesIndex(TimeLogQuery.all().forUser(1), "TIME_LOGS", "USER_ID");
+    }
+
+    @Test
+    void timeLogsByUserAndDateRangeUseUserDateIndex() throws SQLException {
+        assertUsesIndex(TimeLogQuery.all().forUser(1).between(FROM, TO), "TIME_LOGS", "USER_ID", "DATE");
+    }
+
+    @Test
+    void timeLogsByTaskUseTaskIndex() throws SQLException {
+        assertUsesIndex(TimeLogQuery.all().forTask(1), "TIME_LOGS", "TASK_ID");
+    }
+
+    @Test
+    void timeLogsByDateRangeUseDateIndex() throws SQLException {
+        assertUsesIndex(TimeLogQuery.all().between(FROM, TO), "TIME_LOGS", "DATE");
+    }
+
+    @Test
+    void timeLogsByProjectUseProjectAndTaskIndexes() throws SQLException {
+        TimeLogQuery query = TimeLogQuery.all().forProject(1);
+        assertUsesIndex(query, "TASKS", "PROJECT_ID");
+        assertUsesIndex(query, "TIME_LOGS", "TASK_ID");
+    }
+
+    @Test
+    void timeLogPagesSeekOnDateIndex() throws SQLException {
+        TimeLogQuery query = TimeLogQuery.all().between(FROM, TO)
+            .page(PageRequest.after(TO, 100, PageRequest.DEFAULT_PAGE_SIZE));
+        assertUsesIndex(query, "TIME_LOGS", "DATE");
+    }
+
+    @Test
+    void tasksByAssigneeUseAssigneeDueIndex() throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "EXPLAIN SELECT * FROM tasks WHERE assigned_user_id = ? ORDER BY due_date")) {
+            stmt.setInt(1, 1);
+            assertPlanNames(stmt, "TASKS", "ASSIGNED_USER_ID");
+        }
+    }
+
+    @Test
+    void taskPagesSeekOnTitleIndex() throws SQLException {
+        PageRequest<String> page = PageRequest.after("Design", 10, PageRequest.DEFAULT_PAGE_SIZE);
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN SELECT * FROM tasks WHERE "
+                + page.seekCondition("title", "id", false) + " " + page.orderAndLimit("title", "id", false))) {
+            page.bind(stmt, 1);
+            assertPlanNames(stmt, "TASKS", "TITLE", "ID");
+        }
+    }
+
+    private static void assertUsesIndex(TimeLogQuery query, String table, String... columns) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + query.toSql("*"))) {
+            query.bind(stmt, 1, true);
+            assertPlanNames(stmt, table, columns);
+        }
+    }
+
+    /**
+     * Asserts that the plan reads through an index on the table that starts with the given columns
+     */
+    private static void assertPlanNames(PreparedStatement explain, String table, String... columns)
+            throws SQLException {
+        Set<String> indexes = indexesOn(table, columns);
+        assertFalse(indexes.isEmpty(), "No index on " + table + List.of(columns));
+        try (ResultSet rs = explain.executeQuery()) {
+            assertTrue(rs.next(), "EXPLAIN returned no plan");
+            String plan = rs.getString(1).toUpperCase();
+            assertTrue(indexes.stream().anyMatch(index -> plan.contains("PUBLIC." + index + ":")),
+                "Expected one of " + indexes + " in plan:\n" + plan);
+        }
+    }
+
+    private static Set<String> indexesOn(String table, String... columns) throws SQLException {
+        Map<String, List<String>> columnsByIndex = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT index_name, column_name FROM information_schema.index_columns "
+                + "WHERE table_schema = 'PUBLIC' AND table_name = ? ORDER BY index_name, ordinal_position")) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    columnsByIndex.computeIfAbsent(rs.getString(1), name -> new ArrayList<>()).add(rs.getString(2));
+                }
+            }
+        }
+        Set<String> indexes = new TreeSet<>();
+        for (Map.Entry<String, List<String>> entry : columnsByIndex.entrySet()) {
+            List<String> indexColumns = entry.getValue();
+            if (indexColumns.size() >= columns.length
+                    && indexColumns.subList(0, columns.length).equals(List.of(columns))) {
+                indexes.add(entry.getKey());
+            }
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,138 @@
+package com.timetracker.dao;
+
+import com.timetracker.TestDatabase;
+import com.timetracker.dao.TimeLogRollupDAO.PeriodRun;
+import com.timetracker.dao.TimeLogRollupDAO.RollupLevel;
+import com.timetracker.model.TimeLog;
+import com.timetracker.util.DatabaseManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Range planning over the rollup levels, and the rollups staying in step with
+ * the time log writes
+ */
+class TimeLogRollupDAOTest {
+
+    private final TimeLogRollupDAO rollupDAO = new TimeLogRollupDAO();
+    private final TimeLogDAO timeLogDAO = new TimeLogDAO();
+
+    @BeforeAll
+    static void initializeDatabase() {
+        TestDatabase.initialize();
+    }
+
+    @ParameterizedTest(name = "{0}..{1}")
+    @CsvSource({
+        // A week crossing into a month that is covered whole
+        "2024-01-29, 2024-02-29",
+        // Mid-month start ending on a month end
+        "2024-03-13, 2024-04-30",
+        // A single day
+        "2024-05-15, 2024-05-15",
+        // Monday to Sunday inside one month
+        "2024-05-06, 2024-05-12",
+        // A week crossing into a month that ends after the range
+        "2024-04-29, 2024-05-20",
+        // Multi-year
+        "2022-11-17, 2025-02-03"
+    })
+    void planCoversEachDayOnce(LocalDate startDate, LocalDate endDate) {
+        List<LocalDate> covered = new ArrayList<>();
+        for (PeriodRun run : rollupDAO.planRuns(startDate, endDate)) {
+            covered.addAll(days(run));
+        }
+
+        List<LocalDate> expected = new ArrayList<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            expected.add(day);
+        }
+        assertEquals(expected, covered);
+    }
+
+    @Test
+    void weekDoesNotSwallowTheStartOfAWholeMonth() {
+        List<PeriodRun> runs = rollupDAO.planRuns(LocalDate.of(2024, 1, 29), LocalDate.of(2024, 2, 29));
+        assertEquals("[DAY[2024-01-29..2024-01-31], MONTH[2024-02-01..2024-02-01]]", runs.toString());
+    }
+
+    @Test
+    void writesKeepRollupsConsistent() throws Exception {
+        // Around a week and a month boundary, so every level gets rows
+        List<TimeLog> written = new ArrayList<>();
+        for (LocalDate date : List.of(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 5))) {
+            TimeLog timeLog = new TimeLog(1, 1, date, 2.5, "Rollup write");
+            assertTrue(timeLogDAO.createTimeLog(timeLog));
+            written.add(timeLog);
+        }
+        TimeLog moved = written.get(0);
+        moved.setDate(LocalDate.of(2024, 3, 4));
+        moved.setHoursSpent(1.25);
+        assertTrue(timeLogDAO.updateTimeLog(moved));
+        assertTrue(timeLogDAO.deleteTimeLog(written.get(1).getId()));
+
+        assertEquals(List.of(), rollupDAO.checkConsistency());
+        assertEquals(rawProjectHours(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31)),
+            rollupDAO.getProjectHours(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31)));
+
+        assertTrue(rollupDAO.backfill());
+        assertEquals(List.of(), rollupDAO.checkConsistency());
+    }
+
+    /**
+     * Days whose rollup rows the run reads: every period of its level starting between its first and last period
+     */
+    private static List<LocalDate> days(PeriodRun run) {
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate period = run.getFirstPeriod(); !period.isAfter(run.getLastPeriod()); ) {
+            LocalDate next;
+            if (run.getLevel() == RollupLevel.MONTH) {
+                assertEquals(1, period.getDayOfMonth(), run + " starts mid-month");
+                next = period.plusMonths(1);
+            } else if (run.getLevel() == RollupLevel.WEEK) {
+                assertEquals(DayOfWeek.MONDAY, period.getDayOfWeek(), run + " starts mid-week");
+                next = period.plusWeeks(1);
+            } else {
+                next = period.plusDays(1);
+            }
+            for (LocalDate day = period; day.isBefore(next); day = day.plusDays(1)) {
+                days.add(day);
+            }
+            period = next;
+        }
+        return days;
+    }
+
+    private static Map<Integer, Double> rawProjectHours(LocalDate startDate, LocalDate endDate) throws SQLException {
+        Map<Integer, Double> hours = new HashMap<>();
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT t.project_id, SUM(l.hours_spent) "
+                 + "FROM time_logs l JOIN tasks t ON t.id = l.task_id "
+                 + "WHERE l.date BETWEEN ? AND ? AND t.project_id IS NOT NULL GROUP BY t.project_id")) {
+            stmt.setDate(1, java.sql.Date.valueOf(startDate));
+            stmt.setDate(2, java.sql.Date.valueOf(endDate));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    hours.put(rs.getInt(1), rs.getDouble(2));
+                }
+            }
+        }
+        return hours;
+    }
+}
@@ -0,0 +1,158 @@
+package com.timetracker.journal;
+
+import com.timetracker.TestDatabase;
+import com.timetracker.dao.TimeLogDAO;
+import com.timetracker.exception.DatabaseException;
+import com.timetracker.model.TimeLog;
+import com.timetracker.util.DatabaseManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Applying journaled writes to an in-memory database: exactly once across a
+ * simulated crash, and each outcome reported once
+ */
+class JournalReplayerTest {
+
+    private static final int MISSING_ID = 999_999;
+
+    @TempDir
+    Path directory;
+
+    private final TimeLogDAO timeLogDAO = new TimeLogDAO();
+
+    @BeforeAll
+    static void initializeDatabase() {
+        TestDatabase.initialize();
+    }
+
+    @Test
+    void replayAfterCrashAppliesEachWriteOnce() throws Exception {
+        TimeLogJournal journal = open();
+        JournalReplayer replayer = new JournalReplayer(journal, timeLogDAO, 2);
+        TimeLog first = timeLog("crash", 1);
+        TimeLog second = timeLog("crash", 2);
+        List<JournalRecord> committed = List.of(journal.appendCreate(first), journal.appendCreate(second));
+        replayer.apply(committed, new RecordingListener());
+
+        TimeLog update = timeLog("crash", 1);
+        update.setId(first.getId());
+        update.setHoursSpent(4.0);
+        journal.appendUpdate(update);
+        journal.appendDelete(second.getId());
+        journal.appendCreate(timeLog("crash", 3));
+        // Crash: the last three writes are journaled but never committed, and the journal is not closed
+
+        try (TimeLogJournal reopened = open()) {
+            JournalReplayer restarted = new JournalReplayer(reopened, timeLogDAO, 2);
+            assertEquals(3, restarted.replay(reopened.getLastSequence()));
+            assertEquals(reopened.getLastSequence(), restarted.getAppliedSequence());
+        }
+        Map<String, Double> expected = new LinkedHashMap<>();
+        expected.put("crash 1", 4.0);
+        expected.put("crash 3", 1.5);
+        assertEquals(expected, hoursByDescription("crash"));
+
+        // Another restart finds nothing left to do
+        try (TimeLogJournal reopened = open()) {
+            assertEquals(0, new JournalReplayer(reopened, timeLogDAO, 2).replay(reopened.getLastSequence()));
+        }
+        assertEquals(expected, hoursByDescription("crash"));
+    }
+
+    @Test
+    void eachOutcomeIsReportedOnce() throws Exception {
+        try (TimeLogJournal journal = open()) {
+            TimeLog orphan = timeLog("outcome", 2);
+            orphan.setTaskId(MISSING_ID);
+            List<JournalRecord> records = List.of(
+                journal.appendCreate(timeLog("outcome", 1)),
+                journal.appendCreate(orphan),
+                journal.appendDelete(MISSING_ID));
+
+            JournalReplayer replayer = new JournalReplayer(journal, timeLogDAO, 10);
+            RecordingListener listener = new RecordingListener();
+            replayer.apply(records, listener);
+            assertEquals(List.of(
+                "applied " + records.get(0).getSequence() + " true",
+                "rejected " + records.get(1).getSequence(),
+                "applied " + records.get(2).getSequence() + " false"), listener.events);
+
+            // A retry of the same records reports nothing again
+            replayer.apply(records, listener);
+            assertEquals(3, listener.events.size());
+
+            // A replayer that did not report them only knows they were committed, not how
+            RecordingListener other = new RecordingListener();
+            new JournalReplayer(journal, timeLogDAO, 10).apply(records, other);
+            assertEquals(List.of(
+                "earlier " + records.get(0).getSequence(),
+                "earlier " + records.get(1).getSequence(),
+                "earlier " + records.get(2).getSequence()), other.events);
+        }
+        assertEquals(Map.of("outcome 1", 1.5), hoursByDescription("outcome"));
+    }
+
+    /**
+     * Opens the journal in the test's directory, numbering on from the database's checkpoint
+     */
+    private TimeLogJournal open() throws IOException, DatabaseException {
+        TimeLogJournal journal = new TimeLogJournal(directory, TimeLogJournal.DEFAULT_SEGMENT_BYTES,
+            FsyncPolicy.NEVER, 0);
+        journal.advanceTo(timeLogDAO.getAppliedJournalSequence());
+        return journal;
+    }
+
+    private static TimeLog timeLog(String prefix, int i) {
+        return new TimeLog(1, 1, LocalDate.of(2024, 4, 1), 1.5, prefix + " " + i);
+    }
+
+    private static Map<String, Double> hoursByDescription(String prefix) throws SQLException {
+        Map<String, Double> hours = new LinkedHashMap<>();
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT description, hours_spent FROM time_logs WHERE description LIKE ? ORDER BY description")) {
+            stmt.setString(1, prefix + " %");
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    hours.put(rs.getString(1), rs.getDouble(2));
+                }
+            }
+        }
+        return hours;
+    }
+
+    private static final class RecordingListener implements JournalReplayer.ApplyListener {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void applied(JournalRecord record, boolean changed) {
+            events.add("applied " + record.getSequence() + " " + changed);
+        }
+
+        @Override
+        public void rejected(JournalRecord record, String reason) {
+            events.add("rejected " + record.getSequence());
+        }
+
+        @Override
+        public void committedEarlier(JournalRecord record) {
+            events.add("earlier " + record.getSequence());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.timetracker.journal;
+
+import com.timetracker.model.TimeLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Segment format, crash recovery, rolling and compaction of the time log journal
+ */
+class TimeLogJournalTest {
+
+    // Room for three of the records below (56-byte header plus "Work item N", padded to 72) after the segment header
+    private static final int SMALL_SEGMENT_BYTES = 16 + 3 * 72;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsSurviveReopening() throws IOException {
+        try (TimeLogJournal journal = open(TimeLogJournal.DEFAULT_SEGMENT_BYTES)) {
+            journal.appendCreate(timeLog(1));
+            TimeLog update = timeLog(2);
+            update.setId(42);
+            journal.appendUpdate(update);
+            journal.appendDelete(43);
+        }
+
+        try (TimeLogJournal journal = open(TimeLogJournal.DEFAULT_SEGMENT_BYTES)) {
+            assertEquals(3, journal.getLastSequence());
+            List<JournalRecord> records = journal.read(0, Long.MAX_VALUE);
+            assertEquals(3, records.size());
+
+            JournalRecord create = records.get(0);
+            assertEquals(JournalRecord.Type.CREATE, create.getType());
+            assertEquals(1, create.getSequence());
+            assertEquals(0, create.getTimeLogId());
+            assertEquals(timeLog(1).getDescription(), create.getTimeLog().getDescription());
+            assertEquals(timeLog(1).getDate(), create.getTimeLog().getDate());
+            assertEquals(1.5, create.getTimeLog().getHoursSpent());
+
+            assertEquals(JournalRecord.Type.UPDATE, records.get(1).getType());
+            assertEquals(42, records.get(1).getTimeLogId());
+            assertEquals(JournalRecord.Type.DELETE, records.get(2).getType());
+            assertEquals(43, records.get(2).getTimeLogId());
+            assertNull(records.get(2).getTimeLog());
+
+            assertEquals(List.of(2L, 3L), sequences(journal.read(1, 3)));
+            assertEquals(List.of(2L), sequences(journal.read(1, 2)));
+        }
+    }
+
+    @Test
+    void tornTailEndsTheSegment() throws IOException {
+        try (TimeLogJournal journal = open(TimeLogJournal.DEFAULT_SEGMENT_BYTES)) {
+            for (int i = 1; i <= 3; i++) {
+                journal.appendCreate(timeLog(i));
+            }
+        }
+        // A crash while the third record was being written back leaves the file cut off inside it
+        Path segment = onlySegment();
+        int third = recordOffset(segment, 3);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(third + 20);
+        }
+
+        try (TimeLogJournal journal = open(TimeLogJournal.DEFAULT_SEGMENT_BYTES)) {
+            assertEquals(2, journal.getLastSequence());
+            assertEquals(List.of(1L, 2L), sequences(journal.read(0, Long.MAX_VALUE)));
+            assertEquals(3, journal.appendCreate(timeLog(4)).getSequence());
+        }
+        try (TimeLogJournal journal = open(TimeLogJournal.DEFAULT_SEGMENT_BYTES)) {
+            List<JournalRecord> records = journal.read(0, Long.MAX_VALUE);
+            assertEquals(List.of(1L, 2L, 3L), sequences(records));
+            assertEquals(timeLog(4).getDescription(), records.get(2).getTimeLog().getDescription());
+        }
+    }
+
+    @Test
+    void badChecksumEndsTheSegment() throws IOException {
+        try (TimeLogJournal journal = open(TimeLogJournal.DEFAULT_SEGMENT_BYTES)) {
+            for (int i = 1; i <= 3; i++) {
+                journal.appendCreate(timeLog(i));
+            }
+        }
+        // Flip a description byte of the second record; nothing after it can be trusted
+        Path segment = onlySegment();
+        int second = recordOffset(segment, 2);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.allocate(1);
+            channel.read(data, second + 56);
+            data.put(0, (byte) (data.get(0) ^ 0x01)).rewind();
+            channel.write(data, second + 56);
+        }
+
+        try (TimeLogJournal journal = open(TimeLogJournal.DEFAULT_SEGMENT_BYTES)) {
+            assertEquals(1, journal.getLastSequence());
+            assertEquals(List.of(1L), sequences(journal.read(0, Long.MAX_VALUE)));
+            assertEquals(2, journal.appendCreate(timeLog(5)).getSequence());
+        }
+        try (TimeLogJournal journal = open(TimeLogJournal.DEFAULT_SEGMENT_BYTES)) {
+            List<JournalRecord> records = journal.read(0, Long.MAX_VALUE);
+            assertEquals(List.of(1L, 2L), sequences(records));
+            assertEquals(timeLog(5).getDescription(), records.get(1).getTimeLog().getDescription());
+        }
+    }
+
+    @Test
+    void segmentsRollAndAppliedOnesAreCompacted() throws IOException {
+        try (TimeLogJournal journal = open(SMALL_SEGMENT_BYTES)) {
+            for (int i = 1; i <= 10; i++) {
+                journal.appendCreate(timeLog(i));
+            }
+            // Three records per segment: 1-3, 4-6, 7-9 and the active 10
+            assertEquals(4, journal.getSegmentCount());
+            assertEquals(10, journal.read(0, Long.MAX_VALUE).size());
+
+            JournalCompactor compactor = new JournalCompactor(journal);
+            // 5 is inside the second segment, so only the first can go
+            assertEquals(1, compactor.compact(5));
+            assertEquals(3, segmentFiles().size());
+            assertEquals(List.of(6L, 7L, 8L, 9L, 10L), sequences(journal.read(5, Long.MAX_VALUE)));
+
+            // The active segment stays even when all of it is applied
+            assertEquals(2, compactor.compact(10));
+            assertEquals(1, journal.getSegmentCount());
+            assertEquals(3, compactor.getDeletedSegments());
+            assertEquals(List.of(10L), sequences(journal.read(9, Long.MAX_VALUE)));
+        }
+
+        // Once everything is applied and compacted, numbering continues from the checkpoint
+        try (TimeLogJournal journal = open(SMALL_SEGMENT_BYTES)) {
+            new JournalCompactor(journal).compact(10);
+            journal.advanceTo(10);
+            assertEquals(11, journal.appendCreate(timeLog(11)).getSequence());
+        }
+    }
+
+    private TimeLogJournal open(int segmentBytes) throws IOException {
+        return new TimeLogJournal(directory, segmentBytes, FsyncPolicy.BATCH, 0);
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segmentFiles();
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    /**
+     * @return File offset of the n-th record (from 1) of a segment
+     */
+    private static int recordOffset(Path segment, int n) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int offset = 16;
+            for (int i = 1; i < n; i++) {
+                int length = data.getInt(offset);
+                assertTrue(length > 0, "Segment has fewer than " + n + " records");
+                offset += length;
+            }
+            return offset;
+        }
+    }
+
+    private static List<Long> sequences(List<JournalRecord> records) {
+        return records.stream().map(JournalRecord::getSequence).toList();
+    }
+
+    static TimeLog timeLog(int i) {
+        return new TimeLog(1, 1, LocalDate.of(2024, 3, 1).plusDays(i), 1.5, "Work item " + i);
+    }
+}
@@ -0,0 +1,182 @@
+package com.timetracker.search;
+
+import com.timetracker.search.SearchHit.DocumentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query planning and the on-disk format of the search index. Every query test
+ * runs against the index as built and as read back from its saved form.
+ */
+class InvertedIndexTest {
+
+    private static final LocalDate MAY = LocalDate.of(2024, 5, 1);
+    // More terms than a prefix probes one by one, so "worklog*" is a wide prefix
+    private static final int WORKLOG_DOCS = 20;
+    private static final int WORKLOG_USER = 5;
+    private static final int RARE_USER = 7;
+
+    @Test
+    void saveAndReadKeepsResults() throws IOException {
+        InvertedIndex built = fixture();
+        InvertedIndex reloaded = reload(built);
+
+        assertEquals(built.getDocumentCount(), reloaded.getDocumentCount());
+        assertEquals(built.getTermCount(), reloaded.getTermCount());
+        for (DocumentType type : DocumentType.values()) {
+            assertEquals(built.liveCount(type), reloaded.liveCount(type));
+            assertEquals(built.maxEntityId(type), reloaded.maxEntityId(type));
+        }
+        assertFalse(reloaded.contains(DocumentType.TIME_LOG, 3));
+        assertTrue(reloaded.contains(DocumentType.TIME_LOG, 2));
+        for (String text : List.of("token", "\"token refresh\"", "refresh*", "auth*", "worklog*", "special worklog*",
+                "entry", "rotation", "cache")) {
+            assertEquals(entities(built.search(SearchQuery.parse(text))),
+                entities(reloaded.search(SearchQuery.parse(text))), text);
+        }
+    }
+
+    @Test
+    void reloadedIndexKeepsIndexing() throws IOException {
+        InvertedIndex index = reload(fixture());
+        index.add(DocumentType.TIME_LOG, 40, WORKLOG_USER, MAY, "Special worklog77");
+        index.add(DocumentType.TIME_LOG, 1, 1, LocalDate.of(2024, 3, 1), "Token refreshed later");
+        index.remove(DocumentType.TIME_LOG, 30);
+
+        // The wide prefix is probed through the forward index rebuilt on load, plus the new document
+        assertEquals(List.of("TIME_LOG#40"), entities(index.search(SearchQuery.parse("special worklog*"))));
+        assertEquals(List.of("TASK#1"), entities(index.search(SearchQuery.parse("\"token refresh\""))));
+
+        InvertedIndex again = reload(index);
+        assertEquals(List.of("TIME_LOG#40"), entities(again.search(SearchQuery.parse("special worklog*"))));
+        assertEquals(List.of("TIME_LOG#1"), entities(again.search(SearchQuery.parse("refreshed"))));
+    }
+
+    @ParameterizedTest(name = "reloaded={0}")
+    @ValueSource(booleans = { false, true })
+    void phrasesNeedAdjacentTermsInOrder(boolean reloaded) throws IOException {
+        InvertedIndex index = index(reloaded);
+        assertEquals(List.of("TASK#1", "TIME_LOG#1"), entities(index.search(SearchQuery.parse("\"token refresh\""))));
+        // Time log 2 had them reversed before it was re-indexed
+        assertEquals(List.of(), entities(index.search(SearchQuery.parse("\"refresh token\""))));
+        assertEquals(List.of("TIME_LOG#2"), entities(index.search(SearchQuery.parse("\"rotation of refresh\""))));
+        // Both terms, but not next to each other
+        assertEquals(List.of("TIME_LOG#1"), entities(index.search(SearchQuery.parse("fixed flow"))));
+        assertEquals(List.of(), entities(index.search(SearchQuery.parse("\"fixed flow\""))));
+        assertEquals(List.of(), entities(index.search(SearchQuery.parse("\"refresh fixed\""))));
+        // Removed
+        assertEquals(List.of(), entities(index.search(SearchQuery.parse("\"token cache refresh\""))));
+        assertEquals(List.of("TASK#1"), entities(index.search(SearchQuery.parse("\"oauth2 login token\""))));
+        // A hyphenated word is a phrase of its parts
+        assertEquals(List.of("TASK#1"), entities(index.search(SearchQuery.parse("oauth2-login"))));
+        assertEquals(List.of(), entities(index.search(SearchQuery.parse("login-oauth2"))));
+        assertEquals(List.of(), entities(index.search(SearchQuery.parse("\"token unknown\""))));
+    }
+
+    @ParameterizedTest(name = "reloaded={0}")
+    @ValueSource(booleans = { false, true })
+    void narrowAndWidePrefixes(boolean reloaded) throws IOException {
+        InvertedIndex index = index(reloaded);
+        // Narrow: two terms, each searched directly; the removed time log is gone
+        assertEquals(List.of("TIME_LOG#4"), entities(index.search(SearchQuery.parse("auth*"))));
+        assertEquals(List.of("TIME_LOG#2"), entities(index.search(SearchQuery.parse("rot*"))));
+        assertEquals(List.of("TIME_LOG#19"), entities(index.search(SearchQuery.parse("worklog19*"))));
+
+        // Wide, driving the scan: the union of every expansion, newest first
+        List<String> worklogs = entities(index.search(SearchQuery.parse("worklog*")));
+        assertEquals(WORKLOG_DOCS + 1, worklogs.size());
+        assertEquals("TIME_LOG#30", worklogs.get(0));
+        assertEquals("TIME_LOG#10", worklogs.get(worklogs.size() - 1));
+
+        // Wide, probed for a rarer term through each document's own terms
+        assertEquals(List.of("TIME_LOG#30"), entities(index.search(SearchQuery.parse("special worklog*"))));
+        assertEquals(List.of(), entities(index.search(SearchQuery.parse("special worklox*"))));
+        assertEquals(List.of(), entities(index.search(SearchQuery.parse("zebra*"))));
+    }
+
+    @ParameterizedTest(name = "reloaded={0}")
+    @ValueSource(booleans = { false, true })
+    void userAndDateFilters(boolean reloaded) throws IOException {
+        InvertedIndex index = index(reloaded);
+        // The user has two documents, fewer than "entry" matches, so the user's list drives the scan
+        assertEquals(List.of("TIME_LOG#15", "TIME_LOG#12"),
+            entities(index.search(SearchQuery.parse("entry").forUser(RARE_USER))));
+        assertEquals(List.of("TIME_LOG#15"),
+            entities(index.search(SearchQuery.parse("entry").forUser(RARE_USER).between(MAY.plusDays(3), null))));
+        assertEquals(List.of(), entities(index.search(SearchQuery.parse("rotation").forUser(RARE_USER))));
+        assertEquals(List.of(), entities(index.search(SearchQuery.parse("entry").forUser(999))));
+
+        // The text drives and the dates filter; an undated task is left out once dates are given
+        assertEquals(List.of("TIME_LOG#11", "TIME_LOG#10"),
+            entities(index.search(SearchQuery.parse("entry").between(MAY, MAY.plusDays(1)))));
+        assertEquals(List.of("TASK#2"), entities(index.search(SearchQuery.parse("entry").ofType(DocumentType.TASK))));
+        assertEquals(List.of(), entities(index.search(SearchQuery.parse("entry").ofType(DocumentType.TASK)
+            .between(null, MAY.plusDays(30)))));
+
+        assertEquals(List.of("TASK#2", "TIME_LOG#29"), entities(index.search(SearchQuery.parse("entry").limit(2))));
+    }
+
+    /**
+     * Login and token notes, one re-indexed and one removed, then WORKLOG_DOCS
+     * numbered entries on consecutive days in May
+     */
+    private static InvertedIndex fixture() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(DocumentType.TIME_LOG, 1, 1, LocalDate.of(2024, 3, 1), "Fixed token refresh in the login flow");
+        index.add(DocumentType.TIME_LOG, 2, 2, LocalDate.of(2024, 3, 2), "Refresh token rotation reviewed");
+        index.add(DocumentType.TIME_LOG, 3, 1, LocalDate.of(2024, 3, 3), "Token cache refresh");
+        index.add(DocumentType.TASK, 1, 1, LocalDate.of(2024, 4, 1), "OAuth2-login token refresh");
+        index.add(DocumentType.TIME_LOG, 4, 3, LocalDate.of(2024, 3, 4), "Authentication and authorization notes");
+        index.add(DocumentType.TIME_LOG, 2, 2, LocalDate.of(2024, 3, 2), "Rotation of refresh tokens reviewed");
+        index.add(DocumentType.TIME_LOG, 3, 1, LocalDate.of(2024, 3, 3), "Token cache refresh");
+        index.add(DocumentType.TIME_LOG, 5, 3, LocalDate.of(2024, 3, 5), "Authorities");
+        index.remove(DocumentType.TIME_LOG, 5);
+
+        for (int i = 0; i < WORKLOG_DOCS; i++) {
+            int id = 10 + i;
+            int user = id == 12 || id == 15 ? RARE_USER : WORKLOG_USER;
+            index.add(DocumentType.TIME_LOG, id, user, MAY.plusDays(i), "Worklog" + id + " entry");
+        }
+        index.add(DocumentType.TASK, 2, WORKLOG_USER, null, "Entry task without a due date");
+        index.add(DocumentType.TIME_LOG, 30, WORKLOG_USER, MAY, "Special worklog99");
+        index.add(DocumentType.TIME_LOG, 31, WORKLOG_USER, MAY, "Special notes");
+        index.remove(DocumentType.TIME_LOG, 3);
+        return index;
+    }
+
+    private static InvertedIndex index(boolean reloaded) throws IOException {
+        return reloaded ? reload(fixture()) : fixture();
+    }
+
+    private static InvertedIndex reload(InvertedIndex index) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            index.write(out);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return InvertedIndex.read(in);
+        }
+    }
+
+    private static List<String> entities(List<SearchHit> hits) {
+        List<String> entities = new ArrayList<>(hits.size());
+        for (SearchHit hit : hits) {
+            entities.add(hit.getType() + "#" + hit.getEntityId());
+        }
+        return entities;
+    }
+}